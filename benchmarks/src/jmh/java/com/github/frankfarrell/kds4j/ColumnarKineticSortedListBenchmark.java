@@ -0,0 +1,56 @@
+package com.github.frankfarrell.kds4j;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of advance on a ColumnarKineticSortedList, to compare with the EVENT_DRIVEN results of KineticSortedListBenchmark
+ * on the same motions
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ColumnarKineticSortedListBenchmark {
+
+    @Param({"1000", "10000", "1000000"})
+    public int n;
+
+    @Param({"0.01", "1.0"})
+    public double eventDensity;
+
+    @Param({"0.01", "1.0"})
+    public double timeStep;
+
+    private ColumnarKineticSortedList<Integer> list;
+    private double time;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        final Random random = new Random(Motions.SEED);
+        final List<Integer> elements = new ArrayList<>(n);
+        final double[] coefficients = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            elements.add(i);
+            coefficients[2 * i] = random.nextDouble() * n;
+            coefficients[2 * i + 1] = (random.nextDouble() * 2 - 1) * eventDensity;
+        }
+        list = new ColumnarKineticSortedList<>(0.0, 1);
+        list.addAllPolynomials(elements, coefficients);
+        time = 0.0;
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5, batchSize = Motions.ADVANCES_PER_ITERATION)
+    @Measurement(iterations = 10, batchSize = Motions.ADVANCES_PER_ITERATION)
+    public boolean advance() {
+        time += timeStep;
+        return list.advance(time);
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.frankfarrell.kds4j;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of getBoundingBox and advance on a KineticBoundingBox
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class KineticBoundingBoxBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int n;
+
+    @Param({"0.01", "1.0"})
+    public double eventDensity;
+
+    @Param({"0.01", "1.0"})
+    public double timeStep;
+
+    private KineticBoundingBox<Integer> boundingBox;
+    private double time;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        boundingBox = new KineticBoundingBox<>(0.0, Motions.linearPlanar(n, eventDensity, new Random(Motions.SEED)));
+        time = 0.0;
+    }
+
+    /*
+    Linear motions stop crossing once they are sorted by speed, so advance is measured as a fixed number of steps
+    from a fresh structure rather than in a steady state
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = Motions.ADVANCES_PER_ITERATION)
+    @Measurement(iterations = 10, batchSize = Motions.ADVANCES_PER_ITERATION)
+    public boolean advance() {
+        time += timeStep;
+        return boundingBox.advance(time);
+    }
+
+    @Benchmark
+    public BoundingBox getBoundingBox() {
+        return boundingBox.getBoundingBox();
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.frankfarrell.kds4j;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of poll and advance on a KineticPriorityQueue
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class KineticPriorityQueueBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int n;
+
+    @Param({"0.01", "1.0"})
+    public double eventDensity;
+
+    @Param({"0.01", "1.0"})
+    public double timeStep;
+
+    private KineticPriorityQueue<Integer> queue;
+    private double time;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = new KineticPriorityQueue<>(0.0, Motions.linear(n, eventDensity, new Random(Motions.SEED)));
+        time = 0.0;
+    }
+
+    /*
+    Linear motions stop crossing once they are sorted by speed, so advance is measured as a fixed number of steps
+    from a fresh structure rather than in a steady state
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = Motions.ADVANCES_PER_ITERATION)
+    @Measurement(iterations = 10, batchSize = Motions.ADVANCES_PER_ITERATION)
+    public boolean advance() {
+        time += timeStep;
+        return queue.advance(time);
+    }
+
+    /*
+    Polls the head then offers it back, so the size stays at n
+     */
+    @Benchmark
+    public OneDimensionalKineticElement<Integer> pollAndOffer() {
+        final OneDimensionalKineticElement<Integer> head = queue.poll();
+        queue.offer(head);
+        return head;
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.frankfarrell.kds4j;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of add, remove and advance on a KineticSortedList, for each storage and advance mode
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class KineticSortedListBenchmark {
+
+    @Param({"1000", "10000"})
+    public int n;
+
+    @Param({"0.01", "1.0"})
+    public double eventDensity;
+
+    @Param({"0.01", "1.0"})
+    public double timeStep;
+
+    @Param({"ARRAY", "TREE"})
+    public KineticSortedList.Storage storage;
+
+    @Param({"NEIGHBOURHOOD_RESORT", "EVENT_DRIVEN"})
+    public KineticSortedList.AdvanceMode advanceMode;
+
+    private KineticSortedList<Integer> list;
+    private List<OneDimensionalKineticElement<Integer>> extras;
+    private Random random;
+    private double time;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        random = new Random(Motions.SEED);
+        list = new KineticSortedList<>(0.0, Motions.linear(n, eventDensity, random), new OneDimensionalKDSSolver(), storage, advanceMode);
+        extras = Motions.linear(1024, eventDensity, random);
+        time = 0.0;
+        next = 0;
+    }
+
+    /*
+    Linear motions stop crossing once they are sorted by speed, so advance is measured as a fixed number of steps
+    from a fresh structure rather than in a steady state
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = Motions.ADVANCES_PER_ITERATION)
+    @Measurement(iterations = 10, batchSize = Motions.ADVANCES_PER_ITERATION)
+    public boolean advance() {
+        time += timeStep;
+        return list.advance(time);
+    }
+
+    /*
+    Adds an element then removes one at random, so the size stays at n
+     */
+    @Benchmark
+    public OneDimensionalKineticElement<Integer> addAndRemove() {
+        list.add(extras.get(next++ & 1023));
+        return list.remove(random.nextInt(list.size()));
+    }
+}
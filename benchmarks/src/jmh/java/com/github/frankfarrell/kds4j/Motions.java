@@ -0,0 +1,49 @@
+package com.github.frankfarrell.kds4j;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random linear motions for the benchmarks.
+ *
+ * Elements start spread evenly over [0, n) with speeds in [-eventDensity, eventDensity], so the number of crossings
+ * per unit of time grows with eventDensity but not with n.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+final class Motions {
+
+    static final long SEED = 42L;
+
+    static final int ADVANCES_PER_ITERATION = 100;
+
+    private Motions() {
+    }
+
+    static List<OneDimensionalKineticElement<Integer>> linear(final int n, final double eventDensity, final Random random) {
+        final List<OneDimensionalKineticElement<Integer>> elements = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            elements.add(linearElement(i, n, eventDensity, random));
+        }
+        return elements;
+    }
+
+    static OneDimensionalKineticElement<Integer> linearElement(final int id, final int n, final double eventDensity, final Random random) {
+        return PolynomialKineticElement.linear(id, random.nextDouble() * n, (random.nextDouble() * 2 - 1) * eventDensity);
+    }
+
+    static List<TwoDimensionalKineticElement<Integer>> linearPlanar(final int n, final double eventDensity, final Random random) {
+        final List<TwoDimensionalKineticElement<Integer>> elements = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            final double x = random.nextDouble() * n;
+            final double dx = (random.nextDouble() * 2 - 1) * eventDensity;
+            final double y = random.nextDouble() * n;
+            final double dy = (random.nextDouble() * 2 - 1) * eventDensity;
+            elements.add(TwoDimensionalKineticElement.of(i, t -> x + dx * t, t -> y + dy * t));
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.frankfarrell.kds4j;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single certificate computation for different kinds of motion.
+ *
+ * LINEAR and QUADRATIC are plain functions, so go through the numerical solver.
+ * The POLYNOMIAL variants are the same motions as PolynomialKineticElements, which are solved in closed form.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class OneDimensionalKDSSolverBenchmark {
+
+    public enum Motion {
+        LINEAR,
+        POLYNOMIAL_LINEAR,
+        QUADRATIC,
+        POLYNOMIAL_QUADRATIC,
+        TRIGONOMETRIC
+    }
+
+    private static final int PAIRS = 256;
+
+    @Param({"LINEAR", "POLYNOMIAL_LINEAR", "QUADRATIC", "POLYNOMIAL_QUADRATIC", "TRIGONOMETRIC"})
+    public Motion motion;
+
+    private OneDimensionalKDSSolver solver;
+    private OneDimensionalKineticElement<Integer>[] lefts;
+    private OneDimensionalKineticElement<Integer>[] rights;
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        final Random random = new Random(Motions.SEED);
+        solver = new OneDimensionalKDSSolver();
+        lefts = new OneDimensionalKineticElement[PAIRS];
+        rights = new OneDimensionalKineticElement[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            //Left starts above right, and about half the pairs cross
+            lefts[i] = element(i, 10 + random.nextDouble() * 10, random.nextDouble() * 2 - 1, random.nextDouble() * 0.2 - 0.1);
+            rights[i] = element(i, random.nextDouble() * 10, random.nextDouble() * 2 - 1, random.nextDouble() * 0.2 - 0.1);
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public Optional<Double> calculateIntersection() {
+        final int i = next++ & (PAIRS - 1);
+        return solver.calculateIntersection(lefts[i], rights[i], 0.0);
+    }
+
+    private OneDimensionalKineticElement<Integer> element(final int id, final double a, final double b, final double c) {
+        switch (motion) {
+            case LINEAR:
+                return OneDimensionalKineticElement.of(id, t -> a + b * t);
+            case POLYNOMIAL_LINEAR:
+                return PolynomialKineticElement.linear(id, a, b);
+            case QUADRATIC:
+                return OneDimensionalKineticElement.of(id, t -> a + b * t + c * t * t);
+            case POLYNOMIAL_QUADRATIC:
+                return new PolynomialKineticElement<>(id, a, b, c);
+            default:
+                return OneDimensionalKineticElement.of(id, t -> a + b * Math.sin(t + c * 10));
+        }
+    }
+}
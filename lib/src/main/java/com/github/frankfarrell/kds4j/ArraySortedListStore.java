@@ -0,0 +1,140 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Array backed store, where the id of an element is its rank.
+ *
+ * get is O(1), but insert and remove shift the arrays and re-point every certificate after them, so are O(n).
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+final class ArraySortedListStore<E> implements SortedListStore<E> {
+
+    /*
+    These two ArrayLists store elements and the relevant certificates. Eg, a cert with itself and i+1.
+    The last element has a null certificate, so both are always the same size
+     */
+    private final ArrayList<OneDimensionalKineticElement<E>> elements = new ArrayList<>();
+    private final ArrayList<Certificate<E>> elementCertificates = new ArrayList<>();
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public int idAt(final int rank) {
+        return rank;
+    }
+
+    @Override
+    public int rankOf(final int id) {
+        return id;
+    }
+
+    @Override
+    public int first() {
+        return elements.isEmpty() ? -1 : 0;
+    }
+
+    @Override
+    public int next(final int id) {
+        return id + 1 < elements.size() ? id + 1 : -1;
+    }
+
+    @Override
+    public int previous(final int id) {
+        return id - 1;
+    }
+
+    @Override
+    public OneDimensionalKineticElement<E> element(final int id) {
+        return elements.get(id);
+    }
+
+    @Override
+    public void setElement(final int id, final OneDimensionalKineticElement<E> element) {
+        elements.set(id, element);
+    }
+
+    @Override
+    public boolean holds(final int id, final OneDimensionalKineticElement<E> element) {
+        return id >= 0 && id < elements.size() && elements.get(id) == element;
+    }
+
+    @Override
+    public Certificate<E> certificate(final int id) {
+        return elementCertificates.get(id);
+    }
+
+    @Override
+    public void setCertificate(final int id, final Certificate<E> certificate) {
+        elementCertificates.set(id, certificate);
+        if (certificate != null) {
+            certificate.index = id;
+        }
+    }
+
+    @Override
+    public boolean shiftsIds() {
+        return true;
+    }
+
+    @Override
+    public int insert(final int rank, final OneDimensionalKineticElement<E> element) {
+        elements.add(rank, element);
+        elementCertificates.add(rank, null);
+        reindexCertificates(rank + 1);
+        return rank;
+    }
+
+    @Override
+    public void remove(final int id) {
+        elements.remove(id);
+        elementCertificates.remove(id);
+        reindexCertificates(id);
+    }
+
+    @Override
+    public void load(final List<OneDimensionalKineticElement<E>> elements, final List<Certificate<E>> certificates) {
+        this.elements.clear();
+        this.elements.addAll(elements);
+        this.elementCertificates.clear();
+        this.elementCertificates.addAll(certificates);
+        if (!elements.isEmpty()) {
+            this.elementCertificates.add(null);
+        }
+        reindexCertificates(0);
+    }
+
+    @Override
+    public int firstRank(final IntPredicate predicate) {
+        int low = 0;
+        int high = elements.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (predicate.test(mid)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /*
+    Certificates store their own index, this brings them up to date from index onwards after a shift
+     */
+    private void reindexCertificates(final int fromIndex) {
+        for (int i = Math.max(fromIndex, 0); i < elementCertificates.size(); i++) {
+            final Certificate<E> certificate = elementCertificates.get(i);
+            if (certificate != null) {
+                certificate.index = i;
+            }
+        }
+    }
+}
@@ -9,7 +9,8 @@ import java.util.Optional;
  * If expiryTime is not present, this means the certficate is valid indefinitely.
  * What that means depends on how the certificate was created.
  *  1) If it was determined through analysis that left is always greater than right, then it is valid forever
- *  2) If it was determined computationally, then it is valid until whatever upper bound was used in the computation.
+ *  2) If it was determined computationally, then it is only known to be valid up to the horizon that was searched.
+ *     Such certificates are marked recheck, with the end of the horizon as expiryTime, and are re-solved rather than failing then.
  *
  * Left has higher priority than Right until expiryTime
  *
@@ -33,12 +34,41 @@ public class Certificate<E> {
      */
     public final Optional<Double> expiryTime;
 
+    /**
+     * If true, left and right do not cross at expiryTime. It is the end of the window searched, when the certificate must be solved again
+     */
+    public final boolean recheck;
+
+    /*
+    Primitive copy of expiryTime, positive infinity if the certificate is valid indefinitely
+     */
+    final double expiry;
+
+    /*
+    Slot of this certificate in a CertificateHeap, -1 if it is not in one
+     */
+    int heapIndex = -1;
+
+    /*
+    Position or id of left in the data structure that owns this certificate, -1 if it is no longer in use
+     */
+    int index = -1;
+
     public Certificate(final E left,
                        final E right,
                        final Double expiryTime) {
+        this(left, right, expiryTime, false);
+    }
+
+    public Certificate(final E left,
+                       final E right,
+                       final Double expiryTime,
+                       final boolean recheck) {
         this.left = left;
         this.right = right;
         this.expiryTime = Optional.of(expiryTime);
+        this.expiry = expiryTime;
+        this.recheck = recheck;
     }
 
     public Certificate(final E left,
@@ -46,5 +76,7 @@ public class Certificate<E> {
         this.left = left;
         this.right = right;
         this.expiryTime = Optional.empty();
+        this.expiry = Double.POSITIVE_INFINITY;
+        this.recheck = false;
     }
 }
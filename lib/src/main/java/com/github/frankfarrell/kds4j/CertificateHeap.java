@@ -0,0 +1,162 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary min heap of certificates, ordered by expiry.
+ *
+ * Each certificate stores its own slot in the heap, so removing or replacing an arbitrary certificate is O(log n)
+ * rather than the O(n) search java.util.PriorityQueue needs.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+final class CertificateHeap<E> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Certificate<E>[] heap;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    CertificateHeap() {
+        this.heap = (Certificate<E>[]) new Certificate[DEFAULT_CAPACITY];
+        this.size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(final Certificate<E> certificate) {
+        return certificate.heapIndex >= 0 && certificate.heapIndex < size && heap[certificate.heapIndex] == certificate;
+    }
+
+    /**
+     * @return Certificate that expires first, null if the heap is empty
+     */
+    Certificate<E> peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /**
+     * @return Expiry of the certificate that expires first, positive infinity if the heap is empty
+     */
+    double peekExpiry() {
+        return size == 0 ? Double.POSITIVE_INFINITY : heap[0].expiry;
+    }
+
+    void add(final Certificate<E> certificate) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = certificate;
+        certificate.heapIndex = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    Certificate<E> poll() {
+        if (size == 0) {
+            return null;
+        }
+        final Certificate<E> first = heap[0];
+        removeAt(0);
+        return first;
+    }
+
+    /**
+     * @param certificate Certificate to remove
+     *
+     * @return false if the certificate was not in the heap
+     */
+    boolean remove(final Certificate<E> certificate) {
+        if (certificate == null || !contains(certificate)) {
+            return false;
+        }
+        removeAt(certificate.heapIndex);
+        return true;
+    }
+
+    /**
+     * Puts replacement into the slot of existing, or just adds it if existing is not in the heap
+     *
+     * @param existing Certificate to replace, may be null
+     * @param replacement Certificate to add
+     */
+    void replace(final Certificate<E> existing, final Certificate<E> replacement) {
+        if (existing == null || !contains(existing)) {
+            add(replacement);
+            return;
+        }
+        final int slot = existing.heapIndex;
+        existing.heapIndex = -1;
+        heap[slot] = replacement;
+        replacement.heapIndex = slot;
+        siftUp(slot);
+        siftDown(replacement.heapIndex);
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].heapIndex = -1;
+            heap[i] = null;
+        }
+        size = 0;
+    }
+
+    private void removeAt(final int slot) {
+        final Certificate<E> removed = heap[slot];
+        removed.heapIndex = -1;
+        size--;
+        if (slot == size) {
+            heap[size] = null;
+            return;
+        }
+        final Certificate<E> last = heap[size];
+        heap[size] = null;
+        heap[slot] = last;
+        last.heapIndex = slot;
+        siftUp(slot);
+        siftDown(last.heapIndex);
+    }
+
+    private void siftUp(int slot) {
+        final Certificate<E> certificate = heap[slot];
+        while (slot > 0) {
+            final int parent = (slot - 1) >>> 1;
+            if (heap[parent].expiry <= certificate.expiry) {
+                break;
+            }
+            heap[slot] = heap[parent];
+            heap[slot].heapIndex = slot;
+            slot = parent;
+        }
+        heap[slot] = certificate;
+        certificate.heapIndex = slot;
+    }
+
+    private void siftDown(int slot) {
+        final Certificate<E> certificate = heap[slot];
+        final int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            final int right = child + 1;
+            if (right < size && heap[right].expiry < heap[child].expiry) {
+                child = right;
+            }
+            if (certificate.expiry <= heap[child].expiry) {
+                break;
+            }
+            heap[slot] = heap[child];
+            heap[slot].heapIndex = slot;
+            slot = child;
+        }
+        heap[slot] = certificate;
+        certificate.heapIndex = slot;
+    }
+}
@@ -0,0 +1,480 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Kinetic sorted list of polynomial movers, stored column wise for very large lists.
+ *
+ * Instead of an element object and a lambda per element, the coefficients of every element are kept in one double[]
+ * indexed by an int id, with the elements themselves in a side table. The order is an int[] of ids, and the certificate
+ * between each pair of neighbours is a double in an array indexed by rank, kept in an int[] heap. Comparisons and
+ * certificates are then computed from contiguous memory without allocating, and nothing is boxed.
+ *
+ * Certificates are solved in closed form, as for PolynomialKineticElement, and advance is always event driven.
+ * Events cost O(log n). addPolynomial and remove shift the arrays, so are O(n), use addAllPolynomials to load many elements.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class ColumnarKineticSortedList<E> extends AbstractList<E> implements KineticDataStructure<E> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    //Steps taken from a closed form root onto the first double past the crossing, before falling back to Polynomials
+    private static final int MAX_POLISH_STEPS = 64;
+
+    private final int stride;
+    private final KineticMetrics metrics;
+    private final KineticEventPublisher<E> events = new KineticEventPublisher<>();
+
+    //Difference of two elements, reused for every certificate
+    private final double[] difference;
+
+    private double time;
+    private int size = 0;
+    private int certificatesCreated = 0;
+
+    /*
+    Indexed by id. Ids are dense, removing an element moves the last id into its place
+     */
+    private double[] coefficients;
+    private Object[] elements;
+    private int[] rankOfId;
+
+    /*
+    Indexed by rank. expiries[i] is when the element at i stops having priority over the element at i + 1
+     */
+    private int[] idAtRank;
+    private double[] expiries;
+    private int[] heapSlotOfRank;
+
+    //Min heap of ranks ordered by expiry, holds every certificate
+    private int[] heap;
+
+    public ColumnarKineticSortedList(final Double startTime, final int degree) {
+        this(startTime, degree, KineticMetrics.NO_OP);
+    }
+
+    /**
+     * @param degree Highest degree of any polynomial that will be added, eg 1 for linear motion
+     */
+    public ColumnarKineticSortedList(final Double startTime, final int degree, final KineticMetrics metrics) {
+        if (degree < 0) {
+            throw new IllegalArgumentException("Degree must not be negative");
+        }
+        this.time = startTime;
+        this.stride = degree + 1;
+        this.metrics = metrics;
+        this.difference = new double[stride];
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param element The element to store in the data structure
+     * @param coefficients Coefficients in ascending order of power, at most degree + 1 of them
+     */
+    public void addPolynomial(final E element, final double... coefficients) {
+        checkCoefficients(coefficients.length);
+        ensureCapacity(size + 1);
+        final int id = size;
+        System.arraycopy(coefficients, 0, this.coefficients, id * stride, coefficients.length);
+        Arrays.fill(this.coefficients, id * stride + coefficients.length, (id + 1) * stride, 0.0);
+        elements[id] = element;
+
+        final double value = valueOf(id, time);
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (valueOf(idAtRank[mid], time) >= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        final int rank = low;
+
+        System.arraycopy(idAtRank, rank, idAtRank, rank + 1, size - rank);
+        idAtRank[rank] = id;
+        if (rank < size - 1) {
+            System.arraycopy(expiries, rank, expiries, rank + 1, size - 1 - rank);
+        }
+        size++;
+        for (int i = rank; i < size; i++) {
+            rankOfId[idAtRank[i]] = i;
+        }
+        if (rank > 0) {
+            expiries[rank - 1] = solve(rank - 1);
+        }
+        if (rank < size - 1) {
+            expiries[rank] = solve(rank);
+        }
+        heapify();
+        modCount++;
+    }
+
+    public void addLinear(final E element, final double initialValue, final double rate) {
+        addPolynomial(element, initialValue, rate);
+    }
+
+    /**
+     * Adds many elements at once, sorting and certifying the whole list in O(n log n)
+     *
+     * @param elements Elements to add
+     * @param coefficients Coefficients of each element in turn, degree + 1 per element in ascending order of power
+     */
+    public void addAllPolynomials(final List<? extends E> elements, final double[] coefficients) {
+        if (coefficients.length != elements.size() * stride) {
+            throw new IllegalArgumentException("Expected " + stride + " coefficients per element");
+        }
+        ensureCapacity(size + elements.size());
+        System.arraycopy(coefficients, 0, this.coefficients, size * stride, coefficients.length);
+        for (final E element : elements) {
+            this.elements[size] = element;
+            idAtRank[size] = size;
+            size++;
+        }
+
+        final double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = valueOf(idAtRank[i], time);
+        }
+        sortDescending(values, idAtRank, size);
+        for (int i = 0; i < size; i++) {
+            rankOfId[idAtRank[i]] = i;
+        }
+        for (int i = 0; i < size - 1; i++) {
+            expiries[i] = solve(i);
+        }
+        heapify();
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(final int rank) {
+        checkRank(rank);
+        return (E) elements[idAtRank[rank]];
+    }
+
+    /**
+     * @return Priority of the element at rank, at the current time
+     */
+    public double valueAt(final int rank) {
+        checkRank(rank);
+        return valueOf(idAtRank[rank], time);
+    }
+
+    /**
+     * @return Copy of the coefficients of the element at rank, degree + 1 of them
+     */
+    public double[] getCoefficients(final int rank) {
+        checkRank(rank);
+        final int offset = idAtRank[rank] * stride;
+        return Arrays.copyOfRange(coefficients, offset, offset + stride);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public E remove(final int rank) {
+        final E removed = get(rank);
+        final int id = idAtRank[rank];
+
+        System.arraycopy(idAtRank, rank + 1, idAtRank, rank, size - 1 - rank);
+        if (rank < size - 1) {
+            System.arraycopy(expiries, rank + 1, expiries, rank, size - 2 - rank);
+        }
+        size--;
+        for (int i = rank; i < size; i++) {
+            rankOfId[idAtRank[i]] = i;
+        }
+
+        //The last id takes the place of the removed one, so ids stay dense
+        final int last = size;
+        if (id != last) {
+            System.arraycopy(coefficients, last * stride, coefficients, id * stride, stride);
+            elements[id] = elements[last];
+            rankOfId[id] = rankOfId[last];
+            idAtRank[rankOfId[id]] = id;
+        }
+        elements[last] = null;
+
+        if (rank > 0 && rank < size) {
+            expiries[rank - 1] = solve(rank - 1);
+        }
+        heapify();
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public boolean advance(final double t) {
+        if (t < time) {
+            throw new RuntimeException("Cannot reverse time");
+        } else if (t == time) {
+            return false;
+        }
+
+        final long start = metrics.isEnabled() ? System.nanoTime() : 0L;
+        final int createdBefore = certificatesCreated;
+        int swaps = 0;
+        while (size > 1 && expiries[heap[0]] < t) {
+            final int rank = heap[0];
+            this.time = Math.max(this.time, expiries[rank]);
+
+            final int overtaken = idAtRank[rank];
+            final int overtaker = idAtRank[rank + 1];
+            idAtRank[rank] = overtaker;
+            idAtRank[rank + 1] = overtaken;
+            rankOfId[overtaker] = rank;
+            rankOfId[overtaken] = rank + 1;
+            events.record(KineticEvent.Type.SWAP, elementOf(overtaker), elementOf(overtaken), this.time);
+            swaps++;
+
+            recertify(rank);
+            if (rank > 0) {
+                recertify(rank - 1);
+            }
+            if (rank + 1 < size - 1) {
+                recertify(rank + 1);
+            }
+        }
+        this.time = t;
+        if (metrics.isEnabled()) {
+            metrics.recordAdvance(certificatesCreated - createdBefore, swaps, swaps, Math.max(size - 1, 0), System.nanoTime() - start);
+        }
+        events.publish();
+        return swaps > 0;
+    }
+
+    @Override
+    public double getTime() {
+        return time;
+    }
+
+    @Override
+    public double nextEventTime() {
+        return size > 1 ? expiries[heap[0]] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Listeners are told of each swap of neighbouring elements, as a SWAP event
+     */
+    @Override
+    public void addListener(final KineticEventListener<E> listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(final KineticEventListener<E> listener) {
+        events.removeListener(listener);
+    }
+
+    private double valueOf(final int id, final double t) {
+        final int offset = id * stride;
+        double value = 0.0;
+        for (int i = stride - 1; i >= 0; i--) {
+            value = value * t + coefficients[offset + i];
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementOf(final int id) {
+        return (E) elements[id];
+    }
+
+    /*
+    First time from the current time at which the element at rank falls below the element at rank + 1, infinite if never.
+    Agrees with Polynomials.firstNegativeCrossing, without allocating for constant and linear differences
+     */
+    private double solve(final int rank) {
+        final int left = idAtRank[rank] * stride;
+        final int right = idAtRank[rank + 1] * stride;
+        int length = 0;
+        for (int i = 0; i < stride; i++) {
+            difference[i] = coefficients[left + i] - coefficients[right + i];
+            if (difference[i] != 0.0) {
+                length = i + 1;
+            }
+        }
+
+        final double crossing;
+        if (length == 0) {
+            crossing = Double.NaN;
+        } else if (length == 1) {
+            crossing = difference[0] < 0 ? time : Double.NaN;
+        } else if (length == 2) {
+            crossing = linearCrossing(difference[0], difference[1]);
+        } else {
+            crossing = Polynomials.firstNegativeCrossing(Arrays.copyOf(difference, length), time);
+        }
+        return Double.isNaN(crossing) ? Double.POSITIVE_INFINITY : crossing;
+    }
+
+    private double linearCrossing(final double constant, final double rate) {
+        final double now = constant + rate * time;
+        if (now < 0 || (now == 0 && rate < 0)) {
+            return time;
+        }
+        if (rate >= 0) {
+            return Double.NaN;
+        }
+        //The root is rounded, so step onto the first double where the difference is negative
+        double root = Math.max(time, -constant / rate);
+        for (int i = 0; i < MAX_POLISH_STEPS && root > time && constant + rate * Math.nextDown(root) < 0; i++) {
+            root = Math.nextDown(root);
+        }
+        for (int i = 0; i < MAX_POLISH_STEPS; i++) {
+            if (constant + rate * root < 0) {
+                return root;
+            }
+            root = Math.nextUp(root);
+        }
+        return Polynomials.firstNegativeCrossing(new double[]{constant, rate}, time);
+    }
+
+    private void recertify(final int rank) {
+        final double previous = expiries[rank];
+        expiries[rank] = solve(rank);
+        certificatesCreated++;
+        if (expiries[rank] < previous) {
+            siftUp(heapSlotOfRank[rank]);
+        } else {
+            siftDown(heapSlotOfRank[rank]);
+        }
+    }
+
+    private void heapify() {
+        final int certificates = Math.max(size - 1, 0);
+        for (int i = 0; i < certificates; i++) {
+            heap[i] = i;
+            heapSlotOfRank[i] = i;
+        }
+        for (int i = (certificates >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void siftUp(int slot) {
+        final int rank = heap[slot];
+        while (slot > 0) {
+            final int parent = (slot - 1) >>> 1;
+            if (expiries[heap[parent]] <= expiries[rank]) {
+                break;
+            }
+            heap[slot] = heap[parent];
+            heapSlotOfRank[heap[slot]] = slot;
+            slot = parent;
+        }
+        heap[slot] = rank;
+        heapSlotOfRank[rank] = slot;
+    }
+
+    private void siftDown(int slot) {
+        final int certificates = size - 1;
+        final int rank = heap[slot];
+        final int half = certificates >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            if (child + 1 < certificates && expiries[heap[child + 1]] < expiries[heap[child]]) {
+                child++;
+            }
+            if (expiries[rank] <= expiries[heap[child]]) {
+                break;
+            }
+            heap[slot] = heap[child];
+            heapSlotOfRank[heap[slot]] = slot;
+            slot = child;
+        }
+        heap[slot] = rank;
+        heapSlotOfRank[rank] = slot;
+    }
+
+    /*
+    Heap sort of ids by descending value, in place and without boxing
+     */
+    private static void sortDescending(final double[] values, final int[] ids, final int length) {
+        for (int i = (length >>> 1) - 1; i >= 0; i--) {
+            siftDownMin(values, ids, i, length);
+        }
+        for (int end = length - 1; end > 0; end--) {
+            swap(values, ids, 0, end);
+            siftDownMin(values, ids, 0, end);
+        }
+    }
+
+    private static void siftDownMin(final double[] values, final int[] ids, int slot, final int length) {
+        while (2 * slot + 1 < length) {
+            int child = 2 * slot + 1;
+            if (child + 1 < length && values[child + 1] < values[child]) {
+                child++;
+            }
+            if (values[slot] <= values[child]) {
+                return;
+            }
+            swap(values, ids, slot, child);
+            slot = child;
+        }
+    }
+
+    private static void swap(final double[] values, final int[] ids, final int i, final int j) {
+        final double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        final int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+
+    private void checkCoefficients(final int count) {
+        if (count > stride) {
+            throw new IllegalArgumentException("At most " + stride + " coefficients per element");
+        }
+    }
+
+    private void checkRank(final int rank) {
+        if (rank < 0 || rank >= size) {
+            throw new IndexOutOfBoundsException("Index: " + rank + ", Size: " + size);
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > elements.length) {
+            int newCapacity = elements.length;
+            while (newCapacity < capacity) {
+                newCapacity *= 2;
+            }
+            coefficients = Arrays.copyOf(coefficients, newCapacity * stride);
+            elements = Arrays.copyOf(elements, newCapacity);
+            rankOfId = Arrays.copyOf(rankOfId, newCapacity);
+            idAtRank = Arrays.copyOf(idAtRank, newCapacity);
+            expiries = Arrays.copyOf(expiries, newCapacity);
+            heapSlotOfRank = Arrays.copyOf(heapSlotOfRank, newCapacity);
+            heap = Arrays.copyOf(heap, newCapacity);
+        }
+    }
+
+    private void allocate(final int capacity) {
+        coefficients = new double[capacity * stride];
+        elements = new Object[capacity];
+        rankOfId = new int[capacity];
+        idAtRank = new int[capacity];
+        expiries = new double[capacity];
+        heapSlotOfRank = new int[capacity];
+        heap = new int[capacity];
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.frankfarrell.kds4j;
+
+/**
+ * KineticBoundingBox that can be read from many threads while one advances it.
+ *
+ * Readers get the bounding box from snapshot(). Unlike the other concurrent structures, the box moves even when no side
+ * changes element, so it is captured after every advance. That is O(1).
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class ConcurrentKineticBoundingBox<E> extends ConcurrentKineticDataStructure<E, KineticBoundingBox<E>, BoundingBox> {
+
+    public ConcurrentKineticBoundingBox(final KineticBoundingBox<E> boundingBox) {
+        super(boundingBox);
+    }
+
+    @Override
+    protected BoundingBox capture() {
+        return structure.getBoundingBox();
+    }
+
+    @Override
+    public synchronized boolean advance(final double t) {
+        final boolean changed = structure.advance(t);
+        publish(true);
+        return changed;
+    }
+
+    /**
+     * @return Bounding box as of the last published snapshot, null if there were no elements
+     */
+    public BoundingBox getBoundingBox() {
+        return snapshot().value;
+    }
+
+    public synchronized boolean add(final TwoDimensionalKineticElement<E> element) {
+        final boolean changed = structure.add(element);
+        publish(changed);
+        return changed;
+    }
+
+    public synchronized boolean remove(final TwoDimensionalKineticElement<E> element) {
+        final boolean changed = structure.remove(element);
+        publish(changed);
+        return changed;
+    }
+
+    public synchronized boolean updateTrajectory(final TwoDimensionalKineticElement<E> element,
+                                                 final TwoDimensionalKineticElement<E> trajectory) {
+        final boolean changed = structure.updateTrajectory(element, trajectory);
+        publish(changed);
+        return changed;
+    }
+}
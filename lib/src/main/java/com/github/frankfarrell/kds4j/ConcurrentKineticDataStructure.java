@@ -0,0 +1,78 @@
+package com.github.frankfarrell.kds4j;
+
+/**
+ * Wraps a kinetic data structure so that any number of threads can read it while another advances or changes it.
+ *
+ * Writes are serialised on the wrapper and, once finished, publish an immutable snapshot through a volatile field.
+ * Readers only read that field, so they never lock and never wait for an advance, but see the state as of the last
+ * completed write. A snapshot is only copied from the structure when something has changed, so an advance with no
+ * reordering just publishes the new time.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public abstract class ConcurrentKineticDataStructure<E, S extends KineticDataStructure<E>, T> implements KineticDataStructure<E> {
+
+    /*
+    Only accessed while holding the lock on this
+     */
+    protected final S structure;
+
+    private volatile KineticSnapshot<T> snapshot;
+
+    protected ConcurrentKineticDataStructure(final S structure) {
+        this.structure = structure;
+        synchronized (this) {
+            this.snapshot = new KineticSnapshot<>(0, structure.getTime(), capture());
+        }
+    }
+
+    /**
+     * @return Immutable copy of the part of the structure readers need, called with the lock held after each change
+     */
+    protected abstract T capture();
+
+    /**
+     * @return The latest published snapshot, without locking
+     */
+    public KineticSnapshot<T> snapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public synchronized boolean advance(final double t) {
+        final boolean changed = structure.advance(t);
+        publish(changed);
+        return changed;
+    }
+
+    @Override
+    public double getTime() {
+        return snapshot.time;
+    }
+
+    @Override
+    public synchronized double nextEventTime() {
+        return structure.nextEventTime();
+    }
+
+    @Override
+    public synchronized void addListener(final KineticEventListener<E> listener) {
+        structure.addListener(listener);
+    }
+
+    @Override
+    public synchronized void removeListener(final KineticEventListener<E> listener) {
+        structure.removeListener(listener);
+    }
+
+    /**
+     * Publishes a new snapshot. Must be called with the lock held
+     *
+     * @param changed false if only the time has changed, so the previous value can be reused
+     */
+    protected void publish(final boolean changed) {
+        final KineticSnapshot<T> previous = snapshot;
+        snapshot = new KineticSnapshot<>(previous.version + 1, structure.getTime(), changed ? capture() : previous.value);
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.frankfarrell.kds4j;
+
+/**
+ * KineticPriorityQueue that can be read from many threads while one advances it.
+ *
+ * Readers get the head of the queue from snapshot(), or peek(). Publishing only captures the head, so costs O(1).
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class ConcurrentKineticPriorityQueue<E>
+        extends ConcurrentKineticDataStructure<E, KineticPriorityQueue<E>, OneDimensionalKineticElement<E>> {
+
+    public ConcurrentKineticPriorityQueue(final KineticPriorityQueue<E> queue) {
+        super(queue);
+    }
+
+    @Override
+    protected OneDimensionalKineticElement<E> capture() {
+        return structure.peek();
+    }
+
+    /**
+     * @return Head of the queue as of the last published snapshot, null if it was empty
+     */
+    public OneDimensionalKineticElement<E> peek() {
+        return snapshot().value;
+    }
+
+    public synchronized boolean offer(final OneDimensionalKineticElement<E> element) {
+        final boolean changed = structure.offer(element);
+        publish(changed);
+        return changed;
+    }
+
+    public synchronized OneDimensionalKineticElement<E> poll() {
+        final OneDimensionalKineticElement<E> head = structure.poll();
+        publish(head != null);
+        return head;
+    }
+
+    public synchronized boolean remove(final OneDimensionalKineticElement<E> element) {
+        final boolean changed = structure.remove(element);
+        publish(changed);
+        return changed;
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * KineticSortedList that can be read from many threads while one advances it.
+ *
+ * Readers get the whole ordering as an immutable list from snapshot(). Each change copies the list once, which costs O(n)
+ * per advance that reorders anything, so suits rankings that are read far more often than they change.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class ConcurrentKineticSortedList<E>
+        extends ConcurrentKineticDataStructure<E, KineticSortedList<E>, List<OneDimensionalKineticElement<E>>> {
+
+    public ConcurrentKineticSortedList(final KineticSortedList<E> list) {
+        super(list);
+    }
+
+    @Override
+    protected List<OneDimensionalKineticElement<E>> capture() {
+        return Collections.unmodifiableList(new ArrayList<>(structure));
+    }
+
+    public synchronized boolean add(final OneDimensionalKineticElement<E> element) {
+        final boolean changed = structure.add(element);
+        publish(changed);
+        return changed;
+    }
+
+    public synchronized OneDimensionalKineticElement<E> remove(final int index) {
+        final OneDimensionalKineticElement<E> removed = structure.remove(index);
+        publish(true);
+        return removed;
+    }
+
+    public synchronized boolean remove(final OneDimensionalKineticElement<E> element) {
+        final boolean changed = structure.remove(element);
+        publish(changed);
+        return changed;
+    }
+
+    public synchronized boolean updateTrajectory(final OneDimensionalKineticElement<E> element,
+                                                 final OneDimensionalKineticElement<E> trajectory) {
+        final boolean changed = structure.updateTrajectory(element, trajectory);
+        publish(changed);
+        return changed;
+    }
+
+    public synchronized boolean addAll(final Collection<? extends OneDimensionalKineticElement<E>> elements) {
+        final boolean changed = structure.addAll(elements);
+        publish(changed);
+        return changed;
+    }
+
+    public synchronized boolean removeIf(final Predicate<? super OneDimensionalKineticElement<E>> filter) {
+        final boolean changed = structure.removeIf(filter);
+        publish(changed);
+        return changed;
+    }
+
+    public synchronized void clear() {
+        structure.clear();
+        publish(true);
+    }
+}
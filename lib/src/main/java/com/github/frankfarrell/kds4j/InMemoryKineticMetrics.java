@@ -0,0 +1,188 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * KineticMetrics that keeps a histogram of each measurement in memory.
+ *
+ * Histograms have power of two buckets, so record in constant time and space. Use histograms() to export them.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class InMemoryKineticMetrics implements KineticMetrics {
+
+    private final Histogram bracketingIterations = new Histogram();
+    private final Histogram evaluations = new Histogram();
+    private final AtomicLong solverGaveUp = new AtomicLong();
+
+    private final Histogram certificatesCreated = new Histogram();
+    private final Histogram certificatesFailed = new Histogram();
+    private final Histogram events = new Histogram();
+    private final Histogram heapSize = new Histogram();
+    private final Histogram advanceNanos = new Histogram();
+
+    @Override
+    public void recordSolve(final int bracketingIterations, final int evaluations, final boolean gaveUp) {
+        this.bracketingIterations.record(bracketingIterations);
+        this.evaluations.record(evaluations);
+        if (gaveUp) {
+            solverGaveUp.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void recordAdvance(final int certificatesCreated,
+                              final int certificatesFailed,
+                              final int events,
+                              final int heapSize,
+                              final long nanos) {
+        this.certificatesCreated.record(certificatesCreated);
+        this.certificatesFailed.record(certificatesFailed);
+        this.events.record(events);
+        this.heapSize.record(heapSize);
+        this.advanceNanos.record(nanos);
+    }
+
+    /**
+     * @return Number of numerical solves that found no crossing within their window, and were marked to be rechecked
+     */
+    public long solverGaveUp() {
+        return solverGaveUp.get();
+    }
+
+    public Histogram solverBracketingIterations() {
+        return bracketingIterations;
+    }
+
+    public Histogram solverEvaluations() {
+        return evaluations;
+    }
+
+    public Histogram advanceCertificatesCreated() {
+        return certificatesCreated;
+    }
+
+    public Histogram advanceCertificatesFailed() {
+        return certificatesFailed;
+    }
+
+    public Histogram advanceEvents() {
+        return events;
+    }
+
+    public Histogram advanceHeapSize() {
+        return heapSize;
+    }
+
+    public Histogram advanceNanos() {
+        return advanceNanos;
+    }
+
+    /**
+     * @return Every histogram by name, for export
+     */
+    public Map<String, Histogram> histograms() {
+        final Map<String, Histogram> histograms = new LinkedHashMap<>();
+        histograms.put("solver.bracketingIterations", bracketingIterations);
+        histograms.put("solver.evaluations", evaluations);
+        histograms.put("advance.certificatesCreated", certificatesCreated);
+        histograms.put("advance.certificatesFailed", certificatesFailed);
+        histograms.put("advance.events", events);
+        histograms.put("advance.heapSize", heapSize);
+        histograms.put("advance.nanos", advanceNanos);
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("solver.gaveUp=").append(solverGaveUp()).append('\n');
+        histograms().forEach((name, histogram) -> builder.append(name).append('=').append(histogram).append('\n'));
+        return builder.toString();
+    }
+
+    /**
+     * Histogram of non negative values. Bucket i counts the values v with 2^(i-1) <= v < 2^i, and bucket 0 counts zeros
+     */
+    public static class Histogram {
+
+        private final long[] buckets = new long[Long.SIZE + 1];
+        private long count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+
+        public synchronized void record(final long value) {
+            final long clamped = Math.max(value, 0);
+            buckets[Long.SIZE - Long.numberOfLeadingZeros(clamped)]++;
+            count++;
+            sum += clamped;
+            min = Math.min(min, clamped);
+            max = Math.max(max, clamped);
+        }
+
+        public synchronized long count() {
+            return count;
+        }
+
+        public synchronized long sum() {
+            return sum;
+        }
+
+        /**
+         * @return Smallest value recorded, 0 if none have been
+         */
+        public synchronized long min() {
+            return count == 0 ? 0 : min;
+        }
+
+        /**
+         * @return Largest value recorded, 0 if none have been
+         */
+        public synchronized long max() {
+            return count == 0 ? 0 : max;
+        }
+
+        public synchronized double mean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        /**
+         * @param quantile Between 0 and 1
+         *
+         * @return Upper bound of the bucket the quantile falls in, capped at max
+         */
+        public synchronized long percentile(final double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    final long upper = i == 0 ? 0 : i >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+                    return Math.min(upper, max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * @return Copy of the bucket counts
+         */
+        public synchronized long[] buckets() {
+            return buckets.clone();
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "count=" + count + " mean=" + mean() + " min=" + min() + " p50=" + percentile(0.5)
+                    + " p99=" + percentile(0.99) + " max=" + max();
+        }
+    }
+}
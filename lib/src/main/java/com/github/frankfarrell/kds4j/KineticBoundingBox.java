@@ -1,45 +1,214 @@
 package com.github.frankfarrell.kds4j;
 
+import org.apache.commons.math3.analysis.solvers.BracketingNthOrderBrentSolver;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 /**
- * A naive implementation of a Kinetic Bounding Box
+ * Implementation of a Kinetic Bounding Box
+ *
+ * Maintains four kinetic tournaments to keep track of top, bottom, left and right.
+ * The bounding box at any time is determined by the winners of these tournaments. Only the extremes are certified,
+ * so reorderings between elements inside the box cost nothing, and each event costs O(log n).
  *
- * Maintains two KineticSortedLists to keep track of top, bottom, left and right.
- * The bounding box at any time is determined by the head and tails of these queues.
+ * @author frankfarrell
+ * @since 0.0.1
  */
-public class KineticBoundingBox<E> implements KineticDataStructure{
+public class KineticBoundingBox<E> implements KineticDataStructure<E> {
 
-    private Double time;
+    private double time;
 
-    private final KineticSortedList<E> xQueue;
-    private final KineticSortedList<E> yQueue;
+    private final KineticTournament<E> top;
+    private final KineticTournament<E> bottom;
+    private final KineticTournament<E> left;
+    private final KineticTournament<E> right;
+
+    /*
+    The one dimensional x and y elements each element was split into, so it can be removed from the tournaments
+     */
+    private final Map<TwoDimensionalKineticElement<E>, OneDimensionalKineticElement<E>> xElements;
+    private final Map<TwoDimensionalKineticElement<E>, OneDimensionalKineticElement<E>> yElements;
+
+    /*
+    Changes of winner in each tournament are re-recorded as changes of that side, and published together once all four have advanced
+     */
+    private final KineticEventPublisher<E> events = new KineticEventPublisher<>();
+    private final KineticEventListener<E> topListener = forwardAs(KineticEvent.Type.TOP_CHANGED);
+    private final KineticEventListener<E> bottomListener = forwardAs(KineticEvent.Type.BOTTOM_CHANGED);
+    private final KineticEventListener<E> leftListener = forwardAs(KineticEvent.Type.LEFT_CHANGED);
+    private final KineticEventListener<E> rightListener = forwardAs(KineticEvent.Type.RIGHT_CHANGED);
 
     public KineticBoundingBox() {
-        this.xQueue = new KineticSortedList<>();
-        this.yQueue = new KineticSortedList<>();
+        this(0.0);
+    }
+
+    public KineticBoundingBox(final Double startTime) {
+        this(startTime, Collections.emptyList(), new OneDimensionalKDSSolver());
+    }
+
+    public KineticBoundingBox(final Double startTime,
+                              final Collection<TwoDimensionalKineticElement<E>> elements) {
+        this(startTime, elements, new OneDimensionalKDSSolver());
+    }
+
+    public KineticBoundingBox(final Double startTime,
+                              final Collection<TwoDimensionalKineticElement<E>> elements,
+                              final BracketingNthOrderBrentSolver solver) {
+        this(startTime, elements, new OneDimensionalKDSSolver(solver));
+    }
+
+    public KineticBoundingBox(final Double startTime,
+                              final Collection<TwoDimensionalKineticElement<E>> elements,
+                              final OneDimensionalKDSSolver solver) {
+        this.time = startTime;
+
+        this.xElements = new IdentityHashMap<>();
+        this.yElements = new IdentityHashMap<>();
+        for(final TwoDimensionalKineticElement<E> element : elements){
+            xElements.put(element, element.xElement());
+            yElements.put(element, element.yElement());
+        }
+
+        this.top = new KineticTournament<>(startTime, KineticTournament.Order.MAXIMUM, yElements.values(), solver);
+        this.bottom = new KineticTournament<>(startTime, KineticTournament.Order.MINIMUM, yElements.values(), solver);
+        this.left = new KineticTournament<>(startTime, KineticTournament.Order.MINIMUM, xElements.values(), solver);
+        this.right = new KineticTournament<>(startTime, KineticTournament.Order.MAXIMUM, xElements.values(), solver);
     }
 
+    /**
+     * @return Boolean indicating if the element at any of the four sides changed
+     */
     @Override
-    public Boolean advance(Double t) {
+    public boolean advance(final double t) {
         if (t < time) {
             throw new RuntimeException("Cannot reverse time");
-        } else if (t.equals(time)) {
+        } else if (t == time) {
             return false;
         } else {
             this.time = t;
-            return this.xQueue.advance(t) && this.yQueue.advance(t);
+            //Not short circuited, every side has to be advanced
+            final boolean changed = this.top.advance(t) | this.bottom.advance(t) | this.left.advance(t) | this.right.advance(t);
+            events.publish();
+            return changed;
+        }
+    }
+
+    @Override
+    public double getTime() {
+        return time;
+    }
+
+    @Override
+    public double nextEventTime() {
+        return Math.min(Math.min(top.nextEventTime(), bottom.nextEventTime()), Math.min(left.nextEventTime(), right.nextEventTime()));
+    }
+
+    /**
+     * Listeners are told each time the element at a side changes, as TOP_CHANGED, BOTTOM_CHANGED, LEFT_CHANGED
+     * or RIGHT_CHANGED events
+     */
+    @Override
+    public void addListener(final KineticEventListener<E> listener) {
+        //The tournaments are only listened to while someone listens to the box
+        if(!events.isListening()){
+            top.addListener(topListener);
+            bottom.addListener(bottomListener);
+            left.addListener(leftListener);
+            right.addListener(rightListener);
+        }
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(final KineticEventListener<E> listener) {
+        events.removeListener(listener);
+        if(!events.isListening()){
+            top.removeListener(topListener);
+            bottom.removeListener(bottomListener);
+            left.removeListener(leftListener);
+            right.removeListener(rightListener);
         }
     }
 
+    /**
+     * @param element Element to add
+     *
+     * @return false if the element, by identity, is already in the bounding box
+     */
     public boolean add(final TwoDimensionalKineticElement<E> element) {
-        return this.xQueue.add(new OneDimensionalKineticElement<>(element.element, element.xFunction)) && this.yQueue.add(new OneDimensionalKineticElement<>(element.element, element.yFunction));
+        if(xElements.containsKey(element)){
+            return false;
+        }
+        final OneDimensionalKineticElement<E> xElement = element.xElement();
+        final OneDimensionalKineticElement<E> yElement = element.yElement();
+        xElements.put(element, xElement);
+        yElements.put(element, yElement);
+
+        return this.top.add(yElement) & this.bottom.add(yElement) & this.left.add(xElement) & this.right.add(xElement);
+    }
+
+    /**
+     * @param element Element to remove, by identity
+     *
+     * @return false if the element is not in the bounding box
+     */
+    public boolean remove(final TwoDimensionalKineticElement<E> element) {
+        final OneDimensionalKineticElement<E> xElement = xElements.remove(element);
+        final OneDimensionalKineticElement<E> yElement = yElements.remove(element);
+        if(xElement == null){
+            return false;
+        }
+
+        return this.top.remove(yElement) & this.bottom.remove(yElement) & this.left.remove(xElement) & this.right.remove(xElement);
+    }
+
+    /**
+     * Changes the motion of an element from the current time, eg when a mover changes course.
+     * The new motion is passed as a new element, which takes the place of the old one in each side's tournament in O(log n)
+     *
+     * @param element Element to replace, by identity
+     * @param trajectory Element with the new motion
+     *
+     * @return false if element is not in the bounding box, or trajectory already is
+     */
+    public boolean updateTrajectory(final TwoDimensionalKineticElement<E> element, final TwoDimensionalKineticElement<E> trajectory) {
+        if(!xElements.containsKey(element) || xElements.containsKey(trajectory)){
+            return false;
+        }
+        final OneDimensionalKineticElement<E> xElement = xElements.remove(element);
+        final OneDimensionalKineticElement<E> yElement = yElements.remove(element);
+        final OneDimensionalKineticElement<E> newXElement = trajectory.xElement();
+        final OneDimensionalKineticElement<E> newYElement = trajectory.yElement();
+        xElements.put(trajectory, newXElement);
+        yElements.put(trajectory, newYElement);
+
+        return this.top.replace(yElement, newYElement) & this.bottom.replace(yElement, newYElement)
+                & this.left.replace(xElement, newXElement) & this.right.replace(xElement, newXElement);
+    }
+
+    public int size() {
+        return xElements.size();
     }
 
+    /**
+     * @return Bounding box of all elements at the current time, null if there are no elements
+     */
     public BoundingBox getBoundingBox(){
-        final Double top = yQueue.get(0).function.apply(time);
-        final Double bottom = yQueue.get(yQueue.size() -1 ).function.apply(time);
-        final Double left = xQueue.get(0).function.apply(time);
-        final Double right = xQueue.get(xQueue.size() -1 ).function.apply(time);
-        return new BoundingBox(top, bottom, left, right);
+        if(xElements.isEmpty()){
+            return null;
+        }
+        final double topValue = top.peek().cachedValueAt(time);
+        final double bottomValue = bottom.peek().cachedValueAt(time);
+        final double leftValue = left.peek().cachedValueAt(time);
+        final double rightValue = right.peek().cachedValueAt(time);
+        return new BoundingBox(topValue, bottomValue, leftValue, rightValue);
+    }
+
+    private KineticEventListener<E> forwardAs(final KineticEvent.Type type) {
+        return batch -> batch.forEach(event -> events.record(type, event.left, event.right, event.time));
     }
 
 }
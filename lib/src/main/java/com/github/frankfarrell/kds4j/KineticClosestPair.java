@@ -0,0 +1,452 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the closest pair of elements moving in two dimensions, in the style of Basch, Guibas and Zhang.
+ *
+ * The plane around each element is split into six cones of 60 degrees. In each cone, the element's neighbour is the
+ * element in the cone nearest along the cone's axis, and the closest pair is always one of these at most 6n
+ * candidate pairs. Candidates are kept in a minimum kinetic tournament on their squared distance.
+ *
+ * Whether an element is in a cone, and where it is along the axis, is decided by its projections onto three
+ * directions 60 degrees apart, each kept in an event driven kinetic sorted list. So neighbours can only change when two
+ * elements swap in one of the lists, and each swap is repaired locally. Where Basch, Guibas and Zhang find a new
+ * neighbour with a kinetic range tree, here it is found by walking the sorted list along the cone's axis, which is
+ * O(n) in the worst case but usually stops after a few elements.
+ *
+ * Squared distances of elements created with TwoDimensionalKineticElement.polynomial or linear are polynomials, and
+ * their certificates are exact. Otherwise they are solved numerically, which can miss two candidates whose order
+ * changes and changes back within one of the solver's bracketing windows.
+ *
+ * @see OneDimensionalKineticClosestPair for elements moving in one dimension
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class KineticClosestPair<E> implements KineticDataStructure<E> {
+
+    private static final int DIRECTIONS = 3;
+    private static final int CONES = 6;
+
+    //Directions of the projections, at 0, 60 and 120 degrees. Direction d + 3 is the opposite of d
+    private static final double[] COS = {1.0, 0.5, -0.5};
+    private static final double[] SIN = {0.0, Math.sqrt(3.0) / 2.0, Math.sqrt(3.0) / 2.0};
+
+    private final OneDimensionalKDSSolver solver;
+    private final List<KineticSortedList<Node>> projections = new ArrayList<>(DIRECTIONS);
+    private final KineticTournament<Candidate> candidates;
+    private final Map<Long, Candidate> candidatesByPair = new HashMap<>();
+    private final IdentityHashMap<TwoDimensionalKineticElement<E>, Node> nodes = new IdentityHashMap<>();
+    private final KineticEventPublisher<E> events = new KineticEventPublisher<>();
+
+    //Swaps of the last step in any of the projections, always collected as every swap can change a neighbour
+    private final List<Swap> swaps = new ArrayList<>();
+
+    private double time;
+    private int nextId = 0;
+
+    public KineticClosestPair(final Double startTime) {
+        this(startTime, Collections.emptyList());
+    }
+
+    public KineticClosestPair(final Double startTime,
+                              final Collection<TwoDimensionalKineticElement<E>> elements) {
+        this(startTime, elements, new OneDimensionalKDSSolver());
+    }
+
+    public KineticClosestPair(final Double startTime,
+                              final Collection<TwoDimensionalKineticElement<E>> elements,
+                              final OneDimensionalKDSSolver solver) {
+        this.time = startTime;
+        this.solver = solver;
+        for (final TwoDimensionalKineticElement<E> element : elements) {
+            if (!nodes.containsKey(element)) {
+                nodes.put(element, new Node(element));
+            }
+        }
+        for (int d = 0; d < DIRECTIONS; d++) {
+            final int direction = d;
+            final List<OneDimensionalKineticElement<Node>> projected = new ArrayList<>(nodes.size());
+            nodes.values().forEach(node -> projected.add(node.projections[direction]));
+            final KineticSortedList<Node> list = new KineticSortedList<>(startTime, projected, solver,
+                    KineticSortedList.Storage.ARRAY, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+            list.addListener(batch -> batch.forEach(event -> swaps.add(new Swap(direction, event))));
+            projections.add(list);
+        }
+        this.candidates = new KineticTournament<>(startTime, KineticTournament.Order.MINIMUM, Collections.emptyList(), solver);
+
+        final double now = now();
+        for (final Node node : nodes.values()) {
+            for (int cone = 0; cone < CONES; cone++) {
+                setNeighbour(node, cone, findNeighbour(node, cone, now));
+            }
+        }
+    }
+
+    /**
+     * @return Boolean indicating if the closest pair changed
+     */
+    @Override
+    public boolean advance(final double t) {
+        if (t < time) {
+            throw new RuntimeException("Cannot reverse time");
+        } else if (t == time) {
+            return false;
+        }
+
+        final KineticPair<TwoDimensionalKineticElement<E>> before = getClosestPair();
+        KineticPair<TwoDimensionalKineticElement<E>> current = before;
+        while (true) {
+            final double next = nextEventTime();
+            if (next >= t) {
+                break;
+            }
+            //Steps just past the next event, so the sorted lists are in their new order when neighbours are searched
+            final double step = Math.min(t, Math.nextUp(next));
+            candidates.advance(step);
+            projections.forEach(list -> list.advance(step));
+            this.time = step;
+            swaps.sort(Comparator.comparingDouble(swap -> swap.time));
+            final double now = now();
+            for (final Swap swap : swaps) {
+                for (int cone = 0; cone < CONES; cone++) {
+                    if (cone % DIRECTIONS == swap.direction) {
+                        axisSwapped(cone, swap.higher, swap.lower);
+                    } else {
+                        boundarySwapped(cone, swap.higher, swap.lower, now);
+                        boundarySwapped(cone, swap.lower, swap.higher, now);
+                    }
+                }
+            }
+            swaps.clear();
+            current = recordChange(current);
+        }
+        candidates.advance(t);
+        projections.forEach(list -> list.advance(t));
+        this.time = t;
+        current = recordChange(current);
+        events.publish();
+        return !samePair(before, current);
+    }
+
+    @Override
+    public double getTime() {
+        return time;
+    }
+
+    @Override
+    public double nextEventTime() {
+        double next = candidates.nextEventTime();
+        for (final KineticSortedList<Node> list : projections) {
+            next = Math.min(next, list.nextEventTime());
+        }
+        return next;
+    }
+
+    /**
+     * Listeners are told each time the closest pair changes, as a CLOSEST_PAIR_CHANGED event
+     */
+    @Override
+    public void addListener(final KineticEventListener<E> listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(final KineticEventListener<E> listener) {
+        events.removeListener(listener);
+    }
+
+    /**
+     * Adding an element is O(n), as it may become the neighbour of any other element
+     */
+    public boolean add(final TwoDimensionalKineticElement<E> element) {
+        if (nodes.containsKey(element)) {
+            return false;
+        }
+        final Node node = new Node(element);
+        nodes.put(element, node);
+        for (int d = 0; d < DIRECTIONS; d++) {
+            projections.get(d).add(node.projections[d]);
+        }
+
+        final double now = now();
+        for (int cone = 0; cone < CONES; cone++) {
+            setNeighbour(node, cone, findNeighbour(node, cone, now));
+        }
+        for (final Node other : nodes.values()) {
+            for (int cone = 0; cone < CONES; cone++) {
+                if (inCone(cone, other, node, now) && nearer(cone, node, other.neighbours[cone], now)) {
+                    setNeighbour(other, cone, node);
+                }
+            }
+        }
+        return true;
+    }
+
+    public boolean remove(final TwoDimensionalKineticElement<E> element) {
+        final Node node = nodes.remove(element);
+        if (node == null) {
+            return false;
+        }
+        for (int d = 0; d < DIRECTIONS; d++) {
+            final KineticSortedList<Node> list = projections.get(d);
+            list.remove(list.rank(node.projections[d]));
+        }
+
+        final double now = now();
+        for (int cone = 0; cone < CONES; cone++) {
+            setNeighbour(node, cone, null);
+        }
+        for (int cone = 0; cone < CONES; cone++) {
+            for (final Node other : new ArrayList<>(node.neighbourOf(cone))) {
+                setNeighbour(other, cone, findNeighbour(other, cone, now));
+            }
+        }
+        return true;
+    }
+
+    public boolean contains(final TwoDimensionalKineticElement<E> element) {
+        return nodes.containsKey(element);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * @return The closest pair, in no particular order, null if there are fewer than two elements
+     */
+    public KineticPair<TwoDimensionalKineticElement<E>> getClosestPair() {
+        final OneDimensionalKineticElement<Candidate> closest = candidates.peek();
+        return closest == null ? null : new KineticPair<>(closest.element.first.element, closest.element.second.element);
+    }
+
+    /**
+     * @return Euclidean distance between the closest pair, Double.POSITIVE_INFINITY if there are fewer than two elements
+     */
+    public double getDistance() {
+        final OneDimensionalKineticElement<Candidate> closest = candidates.peek();
+        return closest == null ? Double.POSITIVE_INFINITY : Math.sqrt(Math.max(0.0, closest.valueAt(time)));
+    }
+
+    /*
+    Higher overtook lower along the axis of cone, so it is now further from every element with lower as its neighbour
+     */
+    private void axisSwapped(final int cone, final Node higher, final Node lower) {
+        final Node nearer = cone < DIRECTIONS ? lower : higher;
+        final Node further = nearer == lower ? higher : lower;
+        final double now = now();
+        for (final Node node : new ArrayList<>(further.neighbourOf(cone))) {
+            if (node != nearer && inCone(cone, node, nearer, now)) {
+                setNeighbour(node, cone, nearer);
+            }
+        }
+    }
+
+    /*
+    Other crossed a boundary of the cone of node, in or out
+     */
+    private void boundarySwapped(final int cone, final Node node, final Node other, final double now) {
+        final Node neighbour = node.neighbours[cone];
+        if (inCone(cone, node, other, now)) {
+            if (neighbour != other && nearer(cone, other, neighbour, now)) {
+                setNeighbour(node, cone, other);
+            }
+        } else if (neighbour == other) {
+            setNeighbour(node, cone, findNeighbour(node, cone, now));
+        }
+    }
+
+    /*
+    Walks the projection along the axis of cone away from node, the first element in the cone is the nearest along the axis
+     */
+    private Node findNeighbour(final Node node, final int cone, final double now) {
+        final int direction = cone % DIRECTIONS;
+        final KineticSortedList<Node> list = projections.get(direction);
+        //Lists are in descending order, so cones along a direction walk towards the head
+        final int step = cone < DIRECTIONS ? -1 : 1;
+        for (int rank = list.rank(node.projections[direction]) + step; rank >= 0 && rank < list.size(); rank += step) {
+            final Node other = list.get(rank).element;
+            if (inCone(cone, node, other, now)) {
+                return other;
+            }
+        }
+        return null;
+    }
+
+    private void setNeighbour(final Node node, final int cone, final Node neighbour) {
+        final Node previous = node.neighbours[cone];
+        if (previous == neighbour) {
+            return;
+        }
+        if (previous != null) {
+            previous.neighbourOf(cone).remove(node);
+            release(node, previous);
+        }
+        node.neighbours[cone] = neighbour;
+        if (neighbour != null) {
+            neighbour.neighbourOf(cone).add(node);
+            retain(node, neighbour);
+        }
+    }
+
+    private void retain(final Node a, final Node b) {
+        final long key = key(a, b);
+        Candidate candidate = candidatesByPair.get(key);
+        if (candidate == null) {
+            candidate = new Candidate(a, b);
+            candidatesByPair.put(key, candidate);
+            candidates.add(candidate.element);
+        }
+        candidate.references++;
+    }
+
+    private void release(final Node a, final Node b) {
+        final long key = key(a, b);
+        final Candidate candidate = candidatesByPair.get(key);
+        if (--candidate.references == 0) {
+            candidatesByPair.remove(key);
+            candidates.remove(candidate.element);
+        }
+    }
+
+    private long key(final Node a, final Node b) {
+        return ((long) Math.min(a.id, b.id) << 32) | Math.max(a.id, b.id);
+    }
+
+    /*
+    Position along direction, which is one of the three projections or its opposite
+     */
+    private double position(final int direction, final Node node, final double t) {
+        final double value = node.projections[direction % DIRECTIONS].valueAt(t);
+        return direction < DIRECTIONS ? value : -value;
+    }
+
+    /*
+    Cone is the 60 degrees either side of direction cone, other is in it if it is on the inside of both boundaries
+     */
+    private boolean inCone(final int cone, final Node node, final Node other, final double t) {
+        final int left = (cone + 1) % CONES;
+        final int right = (cone + CONES - 1) % CONES;
+        return other != node
+                && position(left, other, t) >= position(left, node, t)
+                && position(right, other, t) >= position(right, node, t);
+    }
+
+    private boolean nearer(final int cone, final Node node, final Node than, final double t) {
+        return than == null || position(cone, node, t) < position(cone, than, t);
+    }
+
+    private static boolean polynomial(final TwoDimensionalKineticElement<?> element) {
+        return element.xCoefficients != null && element.yCoefficients != null;
+    }
+
+    /*
+    Orders are decided one solver resolution after time, as a swap at time may not be resolved yet
+     */
+    private double now() {
+        return time + solver.resolution(time);
+    }
+
+    private KineticPair<TwoDimensionalKineticElement<E>> recordChange(final KineticPair<TwoDimensionalKineticElement<E>> previous) {
+        final KineticPair<TwoDimensionalKineticElement<E>> current = getClosestPair();
+        if (current != null && !samePair(previous, current)) {
+            events.record(KineticEvent.Type.CLOSEST_PAIR_CHANGED, current.first.element, current.second.element, time);
+        }
+        return current;
+    }
+
+    private static boolean samePair(final KineticPair<?> a, final KineticPair<?> b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private final class Node {
+
+        private final TwoDimensionalKineticElement<E> element;
+        private final int id = nextId++;
+
+        @SuppressWarnings("unchecked")
+        private final OneDimensionalKineticElement<Node>[] projections = new OneDimensionalKineticElement[DIRECTIONS];
+
+        //Neighbour in each cone, null if the cone is empty
+        @SuppressWarnings("unchecked")
+        private final Node[] neighbours = (Node[]) new KineticClosestPair.Node[CONES];
+
+        //Elements that have this as their neighbour in each cone, created when first needed
+        @SuppressWarnings("unchecked")
+        private final Set<Node>[] neighbourOf = new Set[CONES];
+
+        private Node(final TwoDimensionalKineticElement<E> element) {
+            this.element = element;
+            for (int d = 0; d < DIRECTIONS; d++) {
+                final double cos = COS[d];
+                final double sin = SIN[d];
+                projections[d] = polynomial(element)
+                        ? new PolynomialKineticElement<>(this, Polynomials.combine(element.xCoefficients, cos, element.yCoefficients, sin))
+                        : OneDimensionalKineticElement.of(this, t -> element.xAt(t) * cos + element.yAt(t) * sin);
+            }
+        }
+
+        private Set<Node> neighbourOf(final int cone) {
+            if (neighbourOf[cone] == null) {
+                neighbourOf[cone] = new HashSet<>();
+            }
+            return neighbourOf[cone];
+        }
+    }
+
+    private final class Candidate {
+
+        private final Node first;
+        private final Node second;
+        private int references = 0;
+
+        //Squared distance between the pair
+        private final OneDimensionalKineticElement<Candidate> element;
+
+        private Candidate(final Node first, final Node second) {
+            this.first = first;
+            this.second = second;
+            if (polynomial(first.element) && polynomial(second.element)) {
+                final double[] dx = Polynomials.subtract(first.element.xCoefficients, second.element.xCoefficients);
+                final double[] dy = Polynomials.subtract(first.element.yCoefficients, second.element.yCoefficients);
+                this.element = new PolynomialKineticElement<>(this, Polynomials.add(Polynomials.multiply(dx, dx), Polynomials.multiply(dy, dy)));
+            } else {
+                this.element = OneDimensionalKineticElement.of(this, t -> {
+                    final double dx = first.element.xAt(t) - second.element.xAt(t);
+                    final double dy = first.element.yAt(t) - second.element.yAt(t);
+                    return dx * dx + dy * dy;
+                });
+            }
+        }
+    }
+
+    private final class Swap {
+
+        private final int direction;
+        private final Node higher;
+        private final Node lower;
+        private final double time;
+
+        private Swap(final int direction, final KineticEvent<Node> event) {
+            this.direction = direction;
+            this.higher = event.left;
+            this.lower = event.right;
+            this.time = event.time;
+        }
+    }
+}
@@ -0,0 +1,584 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maintains the convex hull of elements moving in two dimensions.
+ *
+ * The hull is kept as an upper and a lower chain, each sorted by x. Every element that is not a vertex of a chain
+ * is assigned to the edge of the chain above it in x. The certificates are that
+ *  1) each vertex is a convex turn of its two neighbours, and is left of the next vertex
+ *  2) each other element is below the edge it is assigned to, and within its x range
+ * all solved with the same root finding as the one dimensional structures, in closed form for elements created with
+ * TwoDimensionalKineticElement.polynomial or linear. When a certificate fails, only the chain
+ * between the vertices around it is rebuilt, from the vertices and elements assigned to edges there.
+ *
+ * add and remove are incremental in the same way, and getHull is O(h) for h vertices.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Kinetic_convex_hull">Wikipedia entry</a>
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class KineticConvexHull<E> implements KineticDataStructure<E> {
+
+    //Certificates of a vertex
+    private static final int CONVEX = 0;
+    private static final int ORDERED = 1;
+
+    //Certificates of an element below an edge
+    private static final int RIGHT_OF_START = 0;
+    private static final int LEFT_OF_END = 1;
+    private static final int BELOW = 2;
+
+    private static final OneDimensionalKineticElement<Object> ZERO = OneDimensionalKineticElement.of(null, t -> 0.0);
+    private static final PolynomialKineticElement<Object> POLYNOMIAL_ZERO = new PolynomialKineticElement<>(null);
+    private static final double[] NO_TERMS = new double[0];
+
+    private final OneDimensionalKDSSolver solver;
+    private final CertificateHeap<Node> certificatesPriorityQueue = new CertificateHeap<>();
+    private final IdentityHashMap<TwoDimensionalKineticElement<E>, Node> nodes = new IdentityHashMap<>();
+    private final KineticEventPublisher<E> events = new KineticEventPublisher<>();
+
+    private final Chain upper = new Chain(1.0);
+    //The lower chain is the upper chain with y reflected
+    private final Chain lower = new Chain(-1.0);
+
+    private double time;
+    private boolean advancing = false;
+    private boolean hullChanged;
+
+    //Running total, only read to report the difference over each advance to the solver's metrics
+    private int certificatesCreated;
+
+    public KineticConvexHull(final Double startTime) {
+        this(startTime, Collections.emptyList());
+    }
+
+    public KineticConvexHull(final Double startTime,
+                             final Collection<TwoDimensionalKineticElement<E>> elements) {
+        this(startTime, elements, new OneDimensionalKDSSolver());
+    }
+
+    public KineticConvexHull(final Double startTime,
+                             final Collection<TwoDimensionalKineticElement<E>> elements,
+                             final OneDimensionalKDSSolver solver) {
+        this.time = startTime;
+        this.solver = solver;
+
+        final List<Node> upperNodes = new ArrayList<>();
+        final List<Node> lowerNodes = new ArrayList<>();
+        for (final TwoDimensionalKineticElement<E> element : elements) {
+            if (!nodes.containsKey(element)) {
+                final Node node = newNodes(element);
+                upperNodes.add(node);
+                lowerNodes.add(node.twin);
+            }
+        }
+        link(upper, null, null, upperNodes);
+        link(lower, null, null, lowerNodes);
+    }
+
+    /**
+     * @return Boolean indicating if a vertex joined or left the hull
+     */
+    @Override
+    public boolean advance(final double t) {
+        if (t < time) {
+            throw new RuntimeException("Cannot reverse time");
+        } else if (t == time) {
+            return false;
+        }
+
+        final KineticMetrics metrics = solver.getMetrics();
+        final long start = metrics.isEnabled() ? System.nanoTime() : 0L;
+        final int createdBefore = certificatesCreated;
+        int certificatesFailed = 0;
+
+        advancing = true;
+        hullChanged = false;
+        try {
+            while (certificatesPriorityQueue.peekExpiry() < t) {
+                final Certificate<Node> certificate = certificatesPriorityQueue.poll();
+                this.time = Math.max(this.time, certificate.expiry);
+                final Node node = certificate.left;
+                final int kind = certificate.index;
+                node.certificates[kind] = null;
+                if (certificate.recheck) {
+                    //No crossing was found up to now, so the same certificate is solved for the next window
+                    certify(node, kind);
+                    continue;
+                }
+                certificatesFailed++;
+
+                final Chain chain = node.chain;
+                if (node.vertex) {
+                    if (kind == CONVEX) {
+                        rebuild(chain, node.previous, node.next, null);
+                    } else {
+                        rebuild(chain, node.previous, node.next.next, null);
+                    }
+                } else {
+                    final Node edge = node.edge;
+                    if (kind == RIGHT_OF_START) {
+                        rebuild(chain, edge.previous, edge.next, null);
+                    } else if (kind == LEFT_OF_END) {
+                        rebuild(chain, edge, edge.next.next, null);
+                    } else {
+                        rebuild(chain, edge, edge.next, null);
+                    }
+                }
+            }
+        } finally {
+            advancing = false;
+        }
+        this.time = t;
+
+        if (metrics.isEnabled()) {
+            metrics.recordAdvance(certificatesCreated - createdBefore, certificatesFailed, certificatesFailed,
+                    certificatesPriorityQueue.size(), System.nanoTime() - start);
+        }
+        events.publish();
+        return hullChanged;
+    }
+
+    @Override
+    public double getTime() {
+        return time;
+    }
+
+    @Override
+    public double nextEventTime() {
+        return certificatesPriorityQueue.peekExpiry();
+    }
+
+    /**
+     * Listeners are told each time an element becomes, or stops being, a vertex of the hull, as HULL_VERTEX_ADDED
+     * and HULL_VERTEX_REMOVED events
+     */
+    @Override
+    public void addListener(final KineticEventListener<E> listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(final KineticEventListener<E> listener) {
+        events.removeListener(listener);
+    }
+
+    public boolean add(final TwoDimensionalKineticElement<E> element) {
+        if (nodes.containsKey(element)) {
+            return false;
+        }
+        final Node node = newNodes(element);
+        insert(upper, node);
+        insert(lower, node.twin);
+        return true;
+    }
+
+    public boolean remove(final TwoDimensionalKineticElement<E> element) {
+        final Node node = nodes.remove(element);
+        if (node == null) {
+            return false;
+        }
+        delete(node);
+        delete(node.twin);
+        return true;
+    }
+
+    public boolean contains(final TwoDimensionalKineticElement<E> element) {
+        return nodes.containsKey(element);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return Vertices of the hull in counter clockwise order, starting from the one with the minimum x, and of those the minimum y
+     */
+    public List<TwoDimensionalKineticElement<E>> getHull() {
+        final List<TwoDimensionalKineticElement<E>> hull = new ArrayList<>();
+        for (Node vertex = lower.first; vertex != null; vertex = vertex.next) {
+            hull.add(vertex.element);
+        }
+        //The chains share their first and last vertices
+        for (Node vertex = upper.last == null ? null : upper.last.previous; vertex != null && vertex.previous != null; vertex = vertex.previous) {
+            hull.add(vertex.element);
+        }
+        return hull;
+    }
+
+    /**
+     * @return true if element is a vertex of the hull
+     */
+    public boolean isOnHull(final TwoDimensionalKineticElement<E> element) {
+        final Node node = nodes.get(element);
+        return node != null && (node.vertex || node.twin.vertex);
+    }
+
+    private Node newNodes(final TwoDimensionalKineticElement<E> element) {
+        final Node upperNode = new Node(element, upper);
+        final Node lowerNode = new Node(element, lower);
+        upperNode.twin = lowerNode;
+        lowerNode.twin = upperNode;
+        nodes.put(element, upperNode);
+        return upperNode;
+    }
+
+    private void insert(final Chain chain, final Node node) {
+        final double now = now();
+        Node before = null;
+        for (Node vertex = chain.first; vertex != null && order(vertex, node, now) <= 0; vertex = vertex.next) {
+            before = vertex;
+        }
+        final Node after = before == null ? chain.first : before.next;
+        if (before != null && after != null && cross(before, after, node, now) < 0) {
+            //Below the hull, so it only needs certificates
+            node.edge = before;
+            before.edgeNodes.add(node);
+            certifyAll(node);
+        } else {
+            rebuild(chain, before, after, node);
+        }
+    }
+
+    private void delete(final Node node) {
+        uncertify(node);
+        if (node.vertex) {
+            rebuild(node.chain, node.previous, node.next, null, node);
+        } else if (node.edge != null) {
+            node.edge.edgeNodes.remove(node);
+        }
+    }
+
+    private void rebuild(final Chain chain, final Node from, final Node to, final Node added) {
+        rebuild(chain, from, to, added, null);
+    }
+
+    /*
+    Rebuilds the chain strictly between the vertices from and to, null meaning the ends of the chain, from the vertices
+    and elements assigned to edges between them. The range is widened until every one of them is within the x range
+    of from and to, and until from and to are still convex turns afterwards
+     */
+    private void rebuild(final Chain chain, Node from, Node to, final Node added, final Node removed) {
+        final double now = now();
+        //Once linked, the added element is in the chain, and is found there if the range is widened
+        Node unlinked = added;
+        while (true) {
+            final List<Node> members = new ArrayList<>();
+            if (unlinked != null) {
+                members.add(unlinked);
+            }
+            for (Node vertex = from == null ? chain.first : from; vertex != null && vertex != to; vertex = vertex.next) {
+                if (vertex != from && vertex != removed) {
+                    members.add(vertex);
+                }
+                members.addAll(vertex.edgeNodes);
+            }
+
+            boolean widen = false;
+            for (final Node member : members) {
+                if (from != null && member.x(now) < from.x(now)) {
+                    from = from.previous;
+                    widen = true;
+                    break;
+                }
+                if (to != null && member.x(now) > to.x(now)) {
+                    to = to.next;
+                    widen = true;
+                    break;
+                }
+            }
+            if (widen) {
+                continue;
+            }
+
+            link(chain, from, to, members);
+            unlinked = null;
+
+            //Either end of the range may have been left as the end of the chain, and is then not a turn
+            if (from != null && from.previous != null && from.next != null && cross(from.previous, from, from.next, now) >= 0) {
+                from = from.previous;
+            } else if (to != null && to.next != null && to.previous != null && cross(to.previous, to, to.next, now) >= 0) {
+                to = to.next;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /*
+    Links members into the chain between from and to as their upper hull, by the monotone chain algorithm, and assigns
+    the members that are not vertices to the edges above them
+     */
+    private void link(final Chain chain, final Node from, final Node to, final List<Node> members) {
+        for (final Node member : members) {
+            member.mark = member.vertex;
+            uncertify(member);
+            member.vertex = false;
+            member.previous = null;
+            member.next = null;
+            member.edge = null;
+            member.edgeNodes.clear();
+        }
+        final double now = now();
+        members.sort((a, b) -> order(a, b, now));
+
+        final List<Node> vertices = new ArrayList<>();
+        if (from != null) {
+            from.edgeNodes.clear();
+            vertices.add(from);
+        }
+        for (final Node member : members) {
+            push(vertices, member, from, now);
+        }
+        if (to != null) {
+            push(vertices, to, from, now);
+        }
+
+        for (int i = 0; i < vertices.size(); i++) {
+            final Node vertex = vertices.get(i);
+            if (vertex != from && vertex != to) {
+                vertex.vertex = true;
+            }
+            if (i > 0) {
+                vertex.previous = vertices.get(i - 1);
+            }
+            if (i + 1 < vertices.size()) {
+                vertex.next = vertices.get(i + 1);
+            }
+        }
+        if (from == null) {
+            chain.first = vertices.isEmpty() ? null : vertices.get(0);
+            if (chain.first != null) {
+                chain.first.previous = null;
+            }
+        }
+        if (to == null) {
+            chain.last = vertices.isEmpty() ? null : vertices.get(vertices.size() - 1);
+            if (chain.last != null) {
+                chain.last.next = null;
+            }
+        }
+
+        int edge = 0;
+        for (final Node member : members) {
+            if (member.vertex || vertices.size() < 2) {
+                continue;
+            }
+            while (edge + 2 < vertices.size() && vertices.get(edge + 1).x(now) <= member.x(now)) {
+                edge++;
+            }
+            member.edge = vertices.get(edge);
+            member.edge.edgeNodes.add(member);
+        }
+
+        for (final Node member : members) {
+            if (member.vertex != member.mark && advancing) {
+                hullChanged = true;
+                if (!member.twin.vertex) {
+                    events.record(member.vertex ? KineticEvent.Type.HULL_VERTEX_ADDED : KineticEvent.Type.HULL_VERTEX_REMOVED,
+                            member.element.element, null, time);
+                }
+            }
+            if (member.vertex || member.edge != null) {
+                certifyAll(member);
+            }
+        }
+        if (from != null) {
+            uncertify(from);
+            certifyAll(from);
+        }
+        if (to != null) {
+            uncertify(to);
+            certifyAll(to);
+        }
+    }
+
+    /*
+    Adds node to the end of the upper hull being built, first removing vertices it makes concave. from is never removed
+     */
+    private void push(final List<Node> vertices, final Node node, final Node from, final double now) {
+        while (vertices.size() >= 2 && vertices.get(vertices.size() - 1) != from
+                && cross(vertices.get(vertices.size() - 2), vertices.get(vertices.size() - 1), node, now) >= 0) {
+            vertices.remove(vertices.size() - 1);
+        }
+        vertices.add(node);
+    }
+
+    /*
+    Certificates are solved from one solver resolution after time, as a crossing at time may not be resolved yet.
+    The hull is built from the positions then too, so that new certificates agree with it and do not fail straight away
+     */
+    private double now() {
+        return time + solver.resolution(time);
+    }
+
+    private void certifyAll(final Node node) {
+        if (node.vertex) {
+            if (node.previous != null && node.next != null) {
+                certify(node, CONVEX);
+            }
+            if (node.next != null) {
+                certify(node, ORDERED);
+            }
+        } else if (node.edge != null) {
+            certify(node, RIGHT_OF_START);
+            certify(node, LEFT_OF_END);
+            certify(node, BELOW);
+        }
+    }
+
+    private void certify(final Node node, final int kind) {
+        final OneDimensionalKineticElement<Node> validity;
+        if (node.vertex) {
+            final Node previous = node.previous;
+            final Node next = node.next;
+            if (kind == CONVEX) {
+                validity = previous.polynomial() && node.polynomial() && next.polynomial()
+                        ? new PolynomialKineticElement<>(node, Polynomials.subtract(NO_TERMS, cross(previous, node, next)))
+                        : OneDimensionalKineticElement.of(node, t -> -cross(previous, node, next, t));
+            } else {
+                validity = node.polynomial() && next.polynomial()
+                        ? new PolynomialKineticElement<>(node, Polynomials.subtract(next.xCoefficients(), node.xCoefficients()))
+                        : OneDimensionalKineticElement.of(node, t -> next.x(t) - node.x(t));
+            }
+        } else {
+            final Node start = node.edge;
+            final Node end = node.edge.next;
+            if (kind == RIGHT_OF_START) {
+                validity = node.polynomial() && start.polynomial()
+                        ? new PolynomialKineticElement<>(node, Polynomials.subtract(node.xCoefficients(), start.xCoefficients()))
+                        : OneDimensionalKineticElement.of(node, t -> node.x(t) - start.x(t));
+            } else if (kind == LEFT_OF_END) {
+                validity = end.polynomial() && node.polynomial()
+                        ? new PolynomialKineticElement<>(node, Polynomials.subtract(end.xCoefficients(), node.xCoefficients()))
+                        : OneDimensionalKineticElement.of(node, t -> end.x(t) - node.x(t));
+            } else {
+                validity = start.polynomial() && end.polynomial() && node.polynomial()
+                        ? new PolynomialKineticElement<>(node, Polynomials.subtract(NO_TERMS, cross(start, end, node)))
+                        : OneDimensionalKineticElement.of(node, t -> -cross(start, end, node, t));
+            }
+        }
+        //Against a constant zero, a polynomial validity element is solved in closed form, and no root of it is missed
+        final OneDimensionalKineticElement<Object> zero = validity instanceof PolynomialKineticElement ? POLYNOMIAL_ZERO : ZERO;
+        //The validity element is new for every certificate, so its roots are never looked up again
+        final Certificate<Node> certificate = solver.getCertificate(node, node, validity, zero, time, false);
+        certificate.index = kind;
+        //A certificate for the old neighbours must not be left in the queue
+        certificatesPriorityQueue.remove(node.certificates[kind]);
+        node.certificates[kind] = certificate;
+        certificatesPriorityQueue.add(certificate);
+        certificatesCreated++;
+    }
+
+    private void uncertify(final Node node) {
+        for (int kind = 0; kind < node.certificates.length; kind++) {
+            certificatesPriorityQueue.remove(node.certificates[kind]);
+            node.certificates[kind] = null;
+        }
+    }
+
+    /*
+    Both chains are ordered by x, then by y before it is reflected, so that they start and end at the same vertices even
+    when two elements have the same x
+     */
+    private int order(final Node a, final Node b, final double t) {
+        final int byX = Double.compare(a.x(t), b.x(t));
+        return byX != 0 ? byX : Double.compare(a.element.yAt(t), b.element.yAt(t));
+    }
+
+    /*
+    Negative if a, b, c turn clockwise, which every three consecutive vertices of an upper chain do
+     */
+    private double cross(final Node a, final Node b, final Node c, final double t) {
+        final double ax = a.x(t);
+        final double ay = a.y(t);
+        return (b.x(t) - ax) * (c.y(t) - ay) - (b.y(t) - ay) * (c.x(t) - ax);
+    }
+
+    /*
+    Coefficients of the cross product of a, b, c, for elements that are all polynomials
+     */
+    private double[] cross(final Node a, final Node b, final Node c) {
+        final double[] ax = a.xCoefficients();
+        final double[] ay = a.yCoefficients();
+        return Polynomials.subtract(
+                Polynomials.multiply(Polynomials.subtract(b.xCoefficients(), ax), Polynomials.subtract(c.yCoefficients(), ay)),
+                Polynomials.multiply(Polynomials.subtract(b.yCoefficients(), ay), Polynomials.subtract(c.xCoefficients(), ax)));
+    }
+
+    private final class Chain {
+
+        //1 for the upper chain, -1 for the lower
+        final double sign;
+
+        Node first;
+        Node last;
+
+        Chain(final double sign) {
+            this.sign = sign;
+        }
+    }
+
+    /*
+    An element in one of the chains, either a vertex or below an edge
+     */
+    private final class Node {
+
+        final TwoDimensionalKineticElement<E> element;
+        final Chain chain;
+
+        //The same element in the other chain
+        Node twin;
+
+        boolean vertex;
+        Node previous;
+        Node next;
+
+        //For a vertex, the elements below the edge to next
+        final Set<Node> edgeNodes = new LinkedHashSet<>();
+
+        //For other elements, the vertex starting the edge above it
+        Node edge;
+
+        @SuppressWarnings("unchecked")
+        final Certificate<Node>[] certificates = (Certificate<Node>[]) new Certificate[3];
+
+        //Whether it was a vertex before the chain around it was rebuilt
+        boolean mark;
+
+        Node(final TwoDimensionalKineticElement<E> element, final Chain chain) {
+            this.element = element;
+            this.chain = chain;
+        }
+
+        double x(final double t) {
+            return element.xAt(t);
+        }
+
+        double y(final double t) {
+            return chain.sign * element.yAt(t);
+        }
+
+        //Whether both coordinates are polynomials in time
+        boolean polynomial() {
+            return element.xCoefficients != null && element.yCoefficients != null;
+        }
+
+        double[] xCoefficients() {
+            return element.xCoefficients;
+        }
+
+        double[] yCoefficients() {
+            return Polynomials.combine(element.yCoefficients, chain.sign, NO_TERMS, 0.0);
+        }
+    }
+}
@@ -3,20 +3,56 @@ package com.github.frankfarrell.kds4j;
 /**
  * General interface for all kinetic data structures.
  *
- * The only method currently is advance(Double) which advances time to the specified Double.
+ * advance(double) advances time to the specified double, advance(Double) is kept as a boxed adapter to it.
+ * Listeners can be registered to be told what changed during each advance, rather than rescanning the structure.
  *
  * @author frankfarrell
  */
-public interface KineticDataStructure {
+public interface KineticDataStructure<E> {
 
     /**
      * Advances the system to time
-     * Returns boolean indicating whether any priorities have changed
+     * Returns boolean indicating whether what the structure answers for has changed, eg the order of a sorted list or the
+     * head of a priority queue. Changes the structure does not track, such as overtakes below the head of a queue, are not reported
      *
      * @param t Current time
      *
-     * @return Boolean indicating if any elements were reordered
+     * @return Boolean indicating if what the structure answers for changed
      */
-    Boolean advance(final Double t);
+    default Boolean advance(final Double t) {
+        return advance(t.doubleValue());
+    }
+
+    /**
+     * Advances the system to time without boxing
+     * Returns boolean indicating whether what the structure answers for has changed, as advance(Double) does
+     *
+     * @param t Current time
+     *
+     * @return boolean indicating if what the structure answers for changed
+     */
+    boolean advance(final double t);
+
+    /**
+     * @return Time the structure has been advanced to
+     */
+    double getTime();
+
+    /**
+     * Nothing in the structure changes until time passes this, so rather than advancing in a loop
+     * clients can wait until then, as KineticScheduler does. It changes when elements are added or removed
+     *
+     * @return Expiry time of the next certificate to fail, Double.POSITIVE_INFINITY if none will
+     */
+    double nextEventTime();
+
+    /**
+     * Registers a listener, which is called once per advance with the events that happened during it
+     *
+     * @param listener Listener to add
+     */
+    void addListener(final KineticEventListener<E> listener);
+
+    void removeListener(final KineticEventListener<E> listener);
 
 }
@@ -0,0 +1,84 @@
+package com.github.frankfarrell.kds4j;
+
+/**
+ * A change in a kinetic data structure caused by time advancing.
+ *
+ * Left is the element that gained priority and right the element it overtook, or that it replaced for changes of an extreme.
+ * Right is null if there was no previous element.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class KineticEvent<E> {
+
+    public enum Type {
+        /**
+         * Two neighbouring elements in a KineticSortedList swapped places
+         */
+        SWAP,
+        /**
+         * The head of a KineticPriorityQueue, or the winner of a KineticTournament, changed
+         */
+        NEW_TOP,
+        /**
+         * The element with the maximum y in a KineticBoundingBox changed
+         */
+        TOP_CHANGED,
+        /**
+         * The element with the minimum y in a KineticBoundingBox changed
+         */
+        BOTTOM_CHANGED,
+        /**
+         * The element with the minimum x in a KineticBoundingBox changed
+         */
+        LEFT_CHANGED,
+        /**
+         * The element with the maximum x in a KineticBoundingBox changed
+         */
+        RIGHT_CHANGED,
+        /**
+         * An element became a vertex of a KineticConvexHull. Right is null
+         */
+        HULL_VERTEX_ADDED,
+        /**
+         * An element stopped being a vertex of a KineticConvexHull, left is that element. Right is null
+         */
+        HULL_VERTEX_REMOVED,
+        /**
+         * The closest pair of a KineticClosestPair changed, left and right are the new pair
+         */
+        CLOSEST_PAIR_CHANGED
+    }
+
+    public final Type type;
+
+    /**
+     * Element that gained priority
+     */
+    public final E left;
+
+    /**
+     * Element that lost priority, may be null
+     */
+    public final E right;
+
+    /**
+     * When the change happened. This is the time of the crossing, which can be before the time passed to advance
+     */
+    public final double time;
+
+    public KineticEvent(final Type type,
+                        final E left,
+                        final E right,
+                        final double time) {
+        this.type = type;
+        this.left = left;
+        this.right = right;
+        this.time = time;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + left + ", " + right + ") at " + time;
+    }
+}
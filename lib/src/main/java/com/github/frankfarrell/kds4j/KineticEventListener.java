@@ -0,0 +1,20 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.List;
+
+/**
+ * Listener for the changes a kinetic data structure makes as time advances
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+@FunctionalInterface
+public interface KineticEventListener<E> {
+
+    /**
+     * Called once at the end of each call to advance that changed anything
+     *
+     * @param events Every change made during the call, in the order they happened
+     */
+    void onEvents(final List<KineticEvent<E>> events);
+}
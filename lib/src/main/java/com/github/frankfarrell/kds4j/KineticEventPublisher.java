@@ -0,0 +1,55 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects the events of one call to advance and hands them to the listeners as one batch.
+ *
+ * Nothing is recorded while there are no listeners, so structures nobody listens to do not allocate events.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+final class KineticEventPublisher<E> {
+
+    private final List<KineticEventListener<E>> listeners = new CopyOnWriteArrayList<>();
+    private List<KineticEvent<E>> pending = new ArrayList<>();
+
+    void addListener(final KineticEventListener<E> listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(final KineticEventListener<E> listener) {
+        listeners.remove(listener);
+    }
+
+    boolean isListening() {
+        return !listeners.isEmpty();
+    }
+
+    void record(final KineticEvent.Type type, final E left, final E right, final double time) {
+        if (isListening()) {
+            pending.add(new KineticEvent<>(type, left, right, time));
+        }
+    }
+
+    /**
+     * Sends the events recorded since the last publish to every listener, if there are any.
+     * Events are ordered by time, since a structure built from several others records them one part at a time
+     */
+    void publish() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        pending.sort(Comparator.comparingDouble(event -> event.time));
+        final List<KineticEvent<E>> batch = Collections.unmodifiableList(pending);
+        pending = new ArrayList<>();
+        for (final KineticEventListener<E> listener : listeners) {
+            listener.onEvents(batch);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.frankfarrell.kds4j;
+
+/**
+ * Receives measurements from the solver and from each call to advance, to help tune solver settings for a workload.
+ *
+ * Pass an implementation to OneDimensionalKDSSolver, and every data structure using that solver reports to it.
+ * The default is NO_OP, which records nothing and is checked before anything is measured.
+ *
+ * @see InMemoryKineticMetrics
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public interface KineticMetrics {
+
+    KineticMetrics NO_OP = new KineticMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordSolve(final int bracketingIterations, final int evaluations, final boolean gaveUp) {
+        }
+
+        @Override
+        public void recordAdvance(final int certificatesCreated,
+                                  final int certificatesFailed,
+                                  final int events,
+                                  final int heapSize,
+                                  final long nanos) {
+        }
+    };
+
+    /**
+     * @return false if nothing is recorded, so callers can skip measuring
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Called once per certificate computed by the solver
+     *
+     * @param bracketingIterations Upper bounds tried before the crossing was bracketed, out of MAX_SOLVER_BRACKETING_ITERATIONS. 0 for polynomials
+     * @param evaluations Evaluations of the difference of the two functions, including those made by the root finder. 0 for polynomials
+     * @param gaveUp True if the numerical search found no crossing within its window. The certificate is then marked to be
+     *               rechecked at the end of the window, the horizon or the end of a track, and only has no expiry if there
+     *               is neither
+     */
+    void recordSolve(final int bracketingIterations, final int evaluations, final boolean gaveUp);
+
+    /**
+     * Called once per call to advance that moves time forward. A structure built from others, like KineticBoundingBox,
+     * reports once for each of its parts
+     *
+     * @param certificatesCreated Certificates computed while advancing
+     * @param certificatesFailed Certificates that expired
+     * @param events Changes visible to users of the structure, eg swaps in a sorted list or changes of winner in a tournament
+     * @param heapSize Certificates in the event queue once advanced
+     * @param nanos Wall time of the call
+     */
+    void recordAdvance(final int certificatesCreated,
+                       final int certificatesFailed,
+                       final int events,
+                       final int heapSize,
+                       final long nanos);
+}
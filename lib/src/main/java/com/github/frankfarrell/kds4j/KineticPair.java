@@ -0,0 +1,53 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.Objects;
+
+/**
+ * Two elements of a kinetic data structure, eg the current closest pair.
+ *
+ * Pairs are unordered, (a, b) equals (b, a).
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public final class KineticPair<T> {
+
+    public final T first;
+
+    public final T second;
+
+    public KineticPair(final T first, final T second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * @return True if element is either of the pair
+     */
+    public boolean contains(final T element) {
+        return Objects.equals(first, element) || Objects.equals(second, element);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof KineticPair)) {
+            return false;
+        }
+        final KineticPair<?> other = (KineticPair<?>) o;
+        return Objects.equals(first, other.first) && Objects.equals(second, other.second)
+                || Objects.equals(first, other.second) && Objects.equals(second, other.first);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(first) + Objects.hashCode(second);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + first + ", " + second + ")";
+    }
+}
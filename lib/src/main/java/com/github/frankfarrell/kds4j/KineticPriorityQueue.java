@@ -1,36 +1,49 @@
 package com.github.frankfarrell.kds4j;
 
 import org.apache.commons.math3.analysis.solvers.*;
-import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 import java.util.*;
 
 /**
+ * Implementation of a kinetic priority queue.
+ *
+ * Backed by a max kinetic tournament rather than a full sorted list, so only the certificates needed to know the top
+ * element are kept and repaired. Each event, offer and poll costs O(log n).
+ *
+ * Elements are held by identity, and each may be in the queue only once. Offering an element that is already in the
+ * queue, or creating a queue from a collection holding one twice, throws an IllegalArgumentException.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Kinetic_priority_queue">Wikipedia entry</a>
+ *
  * Created by frankfarrell on 22/02/2018.
  */
-public class KineticPriorityQueue<E> extends AbstractQueue<OneDimensionalKineticElement<E>> implements KineticDataStructure {
+public class KineticPriorityQueue<E> extends AbstractQueue<OneDimensionalKineticElement<E>> implements KineticDataStructure<E> {
 
-    private final KineticSortedList<E> backingKineticSortedList;
+    private static final String DUPLICATE_ELEMENT = "Element is already in the queue";
+
+    private final KineticTournament<E> backingKineticTournament;
 
     //TODO Make a single constructor
     public KineticPriorityQueue() {
-        this.backingKineticSortedList = new KineticSortedList<>();
+        this.backingKineticTournament = new KineticTournament<>(0.0, KineticTournament.Order.MAXIMUM);
     }
 
     public KineticPriorityQueue(final Double startTime) {
-        this.backingKineticSortedList = new KineticSortedList<>(startTime);
+        this.backingKineticTournament = new KineticTournament<>(startTime, KineticTournament.Order.MAXIMUM);
     }
 
 
     public KineticPriorityQueue(final Double startTime,
                                 final Collection<OneDimensionalKineticElement<E>> elements) {
-        this.backingKineticSortedList = new KineticSortedList<>(startTime, elements);
+        this.backingKineticTournament = new KineticTournament<>(startTime, KineticTournament.Order.MAXIMUM, elements);
+        requireDistinct(elements);
     }
 
     public KineticPriorityQueue(final Double startTime,
                                 final Collection<OneDimensionalKineticElement<E>> elements,
                                 final BracketingNthOrderBrentSolver solver) {
-        this.backingKineticSortedList = new KineticSortedList<>(startTime, elements, solver);
+        this.backingKineticTournament = new KineticTournament<>(startTime, KineticTournament.Order.MAXIMUM, elements, solver);
+        requireDistinct(elements);
     }
 
 
@@ -38,38 +51,94 @@ public class KineticPriorityQueue<E> extends AbstractQueue<OneDimensionalKinetic
     public KineticPriorityQueue(final Double startTime,
                                  final BracketingNthOrderBrentSolver solver) {
 
-        this.backingKineticSortedList = new KineticSortedList<>(startTime, solver);
+        this.backingKineticTournament = new KineticTournament<>(startTime, KineticTournament.Order.MAXIMUM, Collections.emptyList(), solver);
+    }
+
+    /**
+     * @return Boolean indicating if the head of the queue changed
+     */
+    @Override
+    public boolean advance(final double t) {
+        return this.backingKineticTournament.advance(t);
     }
 
     @Override
-    public Boolean advance(final Double t) {
-        return this.backingKineticSortedList.advance(t);
+    public double getTime() {
+        return this.backingKineticTournament.getTime();
     }
 
-    @Deprecated
+    @Override
+    public double nextEventTime() {
+        return this.backingKineticTournament.nextEventTime();
+    }
+
+    /**
+     * Listeners are told each time the head of the queue changes, as a NEW_TOP event
+     */
+    @Override
+    public void addListener(final KineticEventListener<E> listener) {
+        this.backingKineticTournament.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(final KineticEventListener<E> listener) {
+        this.backingKineticTournament.removeListener(listener);
+    }
+
+    /**
+     * @return An iterator over the elements in no particular order, as with java.util.PriorityQueue
+     */
     @Override
     public Iterator<OneDimensionalKineticElement<E>> iterator() {
-        throw new NotImplementedException();
+        return this.backingKineticTournament.iterator();
     }
 
     @Override
     public int size() {
-        return this.backingKineticSortedList.size();
+        return this.backingKineticTournament.size();
     }
 
+    /**
+     * @return true, as the queue is unbounded
+     * @throws IllegalArgumentException If the element is already in the queue
+     */
     @Override
     public boolean offer(final OneDimensionalKineticElement<E> element) {
-        return this.backingKineticSortedList.add(element);
+        if (!this.backingKineticTournament.add(element)) {
+            throw new IllegalArgumentException(DUPLICATE_ELEMENT);
+        }
+        return true;
     }
 
     @Override
     public OneDimensionalKineticElement<E> poll() {
-        return this.backingKineticSortedList.remove(0);
+        return this.backingKineticTournament.poll();
     }
 
     @Override
     public OneDimensionalKineticElement<E> peek() {
-        //Returns first element if it exists from ArrayList without deletion
-        return this.backingKineticSortedList.get(0);
+        //Returns the winner of the tournament if it exists without deletion
+        return this.backingKineticTournament.peek();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(final Object element) {
+        return element instanceof OneDimensionalKineticElement &&
+                this.backingKineticTournament.remove((OneDimensionalKineticElement<E>) element);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(final Object element) {
+        return element instanceof OneDimensionalKineticElement &&
+                this.backingKineticTournament.contains((OneDimensionalKineticElement<E>) element);
+    }
+
+    //The tournament keeps one slot for each distinct element
+    private void requireDistinct(final Collection<OneDimensionalKineticElement<E>> elements) {
+        if (this.backingKineticTournament.size() != elements.size()) {
+            throw new IllegalArgumentException(DUPLICATE_ELEMENT);
+        }
     }
 }
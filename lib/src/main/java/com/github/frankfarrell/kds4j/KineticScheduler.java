@@ -0,0 +1,153 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Advances kinetic data structures as a clock runs, waking only when something can change.
+ *
+ * Rather than advancing on a fixed tick, the scheduler sleeps on a ScheduledExecutorService until the earliest
+ * nextEventTime of its structures, or an earlier time requested with requestAdvance, then advances every structure to
+ * the clock. Ticks where no certificate fails are never run.
+ *
+ * Structures are advanced on the executor's threads. They are not thread safe, so read them through listeners or wrap
+ * them in the concurrent structures, and call reschedule after adding or removing elements.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class KineticScheduler implements AutoCloseable {
+
+    private final ScheduledExecutorService executor;
+    private final DoubleSupplier clock;
+    private final double nanosPerUnit;
+
+    private final List<KineticDataStructure<?>> structures = new ArrayList<>();
+    private final PriorityQueue<Double> requestedTimes = new PriorityQueue<>();
+
+    private ScheduledFuture<?> pending;
+    private double pendingTime = Double.POSITIVE_INFINITY;
+    private boolean closed = false;
+
+    /**
+     * Kinetic time is read from the system clock, starting at startTime now and moving one per unit
+     */
+    public KineticScheduler(final ScheduledExecutorService executor,
+                            final double startTime,
+                            final TimeUnit unit) {
+        this(executor, systemClock(startTime, unit), unit);
+    }
+
+    /**
+     * @param clock Current kinetic time, it must never go backwards
+     * @param unit Real time taken by one unit of kinetic time, to convert waits to delays on the executor
+     */
+    public KineticScheduler(final ScheduledExecutorService executor,
+                            final DoubleSupplier clock,
+                            final TimeUnit unit) {
+        this.executor = executor;
+        this.clock = clock;
+        this.nanosPerUnit = unit.toNanos(1);
+    }
+
+    public synchronized void register(final KineticDataStructure<?> structure) {
+        structures.add(structure);
+        reschedule();
+    }
+
+    public synchronized void unregister(final KineticDataStructure<?> structure) {
+        structures.remove(structure);
+        reschedule();
+    }
+
+    /**
+     * Wakes at time even if no event is due, eg to answer a query about the structures at that time
+     */
+    public synchronized void requestAdvance(final double time) {
+        requestedTimes.add(time);
+        reschedule();
+    }
+
+    /**
+     * Re-reads the next event time of each structure, needed after elements are added or removed
+     */
+    public synchronized void reschedule() {
+        if (closed) {
+            return;
+        }
+        final double wakeTime = nextWakeTime();
+        if (wakeTime >= pendingTime) {
+            return;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pendingTime = wakeTime;
+        if (wakeTime == Double.POSITIVE_INFINITY) {
+            pending = null;
+        } else {
+            //Certificates only fail once time has passed their expiry, so waits are rounded up
+            final double wait = Math.ceil((wakeTime - clock.getAsDouble()) * nanosPerUnit);
+            pending = executor.schedule(this::wake, (long) Math.max(1.0, Math.min(wait, Long.MAX_VALUE)), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Advances every structure to the clock, without waiting to be woken
+     *
+     * @return The time it will next wake at, Double.POSITIVE_INFINITY if it will not
+     */
+    public synchronized double advance() {
+        final double now = clock.getAsDouble();
+        for (final KineticDataStructure<?> structure : structures) {
+            if (now > structure.getTime()) {
+                structure.advance(now);
+            }
+        }
+        while (!requestedTimes.isEmpty() && requestedTimes.peek() <= now) {
+            requestedTimes.poll();
+        }
+        return nextWakeTime();
+    }
+
+    /**
+     * Stops waking. The executor is not shut down, as it may be shared
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    private synchronized void wake() {
+        pending = null;
+        pendingTime = Double.POSITIVE_INFINITY;
+        if (closed) {
+            return;
+        }
+        advance();
+        reschedule();
+    }
+
+    private double nextWakeTime() {
+        double wakeTime = requestedTimes.isEmpty() ? Double.POSITIVE_INFINITY : requestedTimes.peek();
+        for (final KineticDataStructure<?> structure : structures) {
+            wakeTime = Math.min(wakeTime, structure.nextEventTime());
+        }
+        return wakeTime;
+    }
+
+    private static DoubleSupplier systemClock(final double startTime, final TimeUnit unit) {
+        final long origin = System.nanoTime();
+        final double nanosPerUnit = unit.toNanos(1);
+        return () -> startTime + (System.nanoTime() - origin) / nanosPerUnit;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.frankfarrell.kds4j;
+
+/**
+ * Immutable view of a kinetic data structure at one point in time.
+ *
+ * Each advance or change published by a concurrent structure creates a new snapshot with the next version,
+ * so readers can tell whether what they hold is still current.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class KineticSnapshot<T> {
+
+    /**
+     * Incremented with every snapshot published, starting at 0
+     */
+    public final long version;
+
+    /**
+     * Time the structure had been advanced to
+     */
+    public final double time;
+
+    public final T value;
+
+    public KineticSnapshot(final long version,
+                           final double time,
+                           final T value) {
+        this.version = version;
+        this.time = time;
+        this.value = value;
+    }
+}
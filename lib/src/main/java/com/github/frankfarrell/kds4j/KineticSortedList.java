@@ -1,10 +1,9 @@
 package com.github.frankfarrell.kds4j;
 
 import org.apache.commons.math3.analysis.solvers.BracketingNthOrderBrentSolver;
-import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 import java.util.*;
-import java.util.stream.Collector;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -16,253 +15,684 @@ import java.util.stream.IntStream;
  * @author frankfarrell
  * @since 0.0.1
  */
-public class KineticSortedList<E> extends AbstractList<OneDimensionalKineticElement<E>> implements KineticDataStructure {
+public class KineticSortedList<E> extends AbstractList<OneDimensionalKineticElement<E>> implements KineticDataStructure<E> {
+
+    /**
+     * How the ordered elements are stored.
+     *
+     * ARRAY has O(1) get but O(n) add and remove, since they shift the elements after them.
+     * TREE keeps them in a balanced order statistic tree, so get, add and remove are all O(log n),
+     * which suits large lists with frequent inserts and deletes.
+     */
+    public enum Storage {
+        ARRAY,
+        TREE
+    }
+
+    /**
+     * How advance repairs the ordering.
+     *
+     * NEIGHBOURHOOD_RESORT re-sorts the elements around every expired certificate at the new time. It is cheap for small
+     * steps, but misses cascading swaps when several crossings happen between two calls to advance.
+     * EVENT_DRIVEN processes each expired certificate in order of expiry, swapping the two neighbours at the time they
+     * cross and rescheduling the three certificates around them, so the ordering is exact however large the step.
+     */
+    public enum AdvanceMode {
+        NEIGHBOURHOOD_RESORT,
+        EVENT_DRIVEN
+    }
 
     @Override
     public OneDimensionalKineticElement<E> get(final int index) {
-        return this.elements.get(index);
+        checkIndex(index);
+        return this.store.element(this.store.idAt(index));
     }
 
     /*
-    These two ArrayLists store elements and the relevant certificatesPriorityQueue. Eg, a cert with itself and i+1
+    Stores elements and the relevant certificates. Eg, a cert with itself and the next element
      */
-    private final ArrayList<OneDimensionalKineticElement<E>> elements;
-    private final ArrayList<Certificate<E>> elementCertificates;
+    private final SortedListStore<E> store;
 
     /*
-    Prioirity queue which stores certificatesPriorityQueue where priority is time of expriry
+    Indexed heap which stores certificates where priority is time of expiry.
+    Each certificate knows its slot in the heap and the id of its left element in the store, so neither has to be searched for
      */
-    private final PriorityQueue<Certificate<E>> certificatesPriorityQueue;
-    private Double time;
+    private final CertificateHeap<E> certificatesPriorityQueue;
 
-    private final OneDimensionalKDSSolver solver;
-
-    //TODO Make a single constructor
-    public KineticSortedList() {
-        this.time = 0.0;
+    /*
+    Where each element is in the store, by identity, for lookups without a linear scan.
+    Swaps keep it up to date, and when an insert or remove shifts the ids of an array store, the elements after it are
+    pointed at their new ids, in the same O(n) as the shift itself
+     */
+    private final IdentityHashMap<OneDimensionalKineticElement<E>, Position> positions = new IdentityHashMap<>();
+    private double time;
 
-        this.solver = new OneDimensionalKDSSolver();
+    private final OneDimensionalKDSSolver solver;
+    private final AdvanceMode advanceMode;
 
-        this.elements = new ArrayList<>();
+    private final KineticEventPublisher<E> events = new KineticEventPublisher<>();
 
-        this.elementCertificates = new ArrayList<>();
-        this.certificatesPriorityQueue = new PriorityQueue<>(getCertificateComparator());
+    /*
+    Running totals, only read to report the difference over each advance to the solver's metrics
+     */
+    private int certificatesCreated;
+    private int certificatesFailed;
+    private int reorderings;
 
+    public KineticSortedList() {
+        this(0.0);
     }
 
     public KineticSortedList(final Double startTime) {
-        this.time = startTime;
-
-        this.solver = new OneDimensionalKDSSolver();
-
-        this.elements = new ArrayList<>();
-        this.elementCertificates = new ArrayList<>();
+        this(startTime, Storage.ARRAY);
+    }
 
-        this.certificatesPriorityQueue = new PriorityQueue<>(getCertificateComparator());
+    public KineticSortedList(final Double startTime,
+                                final Storage storage) {
+        this(startTime, Collections.emptyList(), new OneDimensionalKDSSolver(), storage);
     }
 
+    public KineticSortedList(final Double startTime,
+                                final AdvanceMode advanceMode) {
+        this(startTime, Collections.emptyList(), new OneDimensionalKDSSolver(), Storage.ARRAY, advanceMode);
+    }
 
     public KineticSortedList(final Double startTime,
                                 final Collection<OneDimensionalKineticElement<E>> elements) {
-        this.time = startTime;
-
-        this.solver = new OneDimensionalKDSSolver();
-
-        this.elements = getTotalOrdering(elements, startTime);
-        this.elementCertificates = getElementCertificates(this.elements);
-
-        this.certificatesPriorityQueue = new PriorityQueue<>(getCertificateComparator());
-        this.certificatesPriorityQueue.addAll(this.elementCertificates);
-
+        this(startTime, elements, new OneDimensionalKDSSolver(), Storage.ARRAY);
     }
 
     public KineticSortedList(final Double startTime,
                                 final Collection<OneDimensionalKineticElement<E>> elements,
                                 final BracketingNthOrderBrentSolver solver) {
-        this.time = startTime;
-        this.solver = new OneDimensionalKDSSolver(solver);
-
-        this.elements = getTotalOrdering(elements, startTime);
-        this.elementCertificates = getElementCertificates(this.elements);
-
-        this.certificatesPriorityQueue = new PriorityQueue<>(getCertificateComparator());
-        this.certificatesPriorityQueue.addAll(this.elementCertificates);
+        this(startTime, elements, new OneDimensionalKDSSolver(solver), Storage.ARRAY);
     }
 
-
-
     public KineticSortedList(final Double startTime,
                                 final BracketingNthOrderBrentSolver solver) {
+        this(startTime, Collections.emptyList(), new OneDimensionalKDSSolver(solver), Storage.ARRAY);
+    }
 
-        this.time = startTime;
-
-        this.solver = new OneDimensionalKDSSolver(solver);
+    public KineticSortedList(final Double startTime,
+                                final Collection<OneDimensionalKineticElement<E>> elements,
+                                final OneDimensionalKDSSolver solver,
+                                final Storage storage) {
+        this(startTime, elements, solver, storage, AdvanceMode.NEIGHBOURHOOD_RESORT);
+    }
 
-        this.elements = new ArrayList<>();
-        this.elementCertificates = new ArrayList<>();
-        this.certificatesPriorityQueue = new PriorityQueue<>(getCertificateComparator());
+    public KineticSortedList(final Double startTime,
+                                final Collection<OneDimensionalKineticElement<E>> elements,
+                                final OneDimensionalKDSSolver solver,
+                                final Storage storage,
+                                final AdvanceMode advanceMode) {
+        this.time = startTime;
+        this.solver = solver;
+        this.advanceMode = advanceMode;
+        this.store = storage == Storage.TREE ? new TreeSortedListStore<>() : new ArraySortedListStore<>();
+        this.certificatesPriorityQueue = new CertificateHeap<>();
+
+        final ArrayList<OneDimensionalKineticElement<E>> ordered = getTotalOrdering(elements, startTime);
+        final List<Certificate<E>> certificates = getElementCertificates(ordered);
+        certificates.forEach(this.certificatesPriorityQueue::add);
+        this.store.load(ordered, certificates);
+        reindex();
     }
 
-    public Boolean advance(final Double t) {
+    @Override
+    public boolean advance(final double t) {
 
         if (t < time) {
             throw new RuntimeException("Cannot reverse time");
-        } else if (t.equals(time)) {
+        } else if (t == time) {
             return false;
         } else {
-            this.time = t;
+            final KineticMetrics metrics = solver.getMetrics();
+            final long start = metrics.isEnabled() ? System.nanoTime() : 0L;
+            final int createdBefore = certificatesCreated;
+            final int failedBefore = certificatesFailed;
+            final int reorderingsBefore = reorderings;
+
+            final boolean orderChanged;
+            if (advanceMode == AdvanceMode.EVENT_DRIVEN) {
+                orderChanged = processEvents(t);
+            } else {
+                this.time = t;
+                orderChanged = reCalculatePriorities();
+            }
 
-            return reCalculatePriorities();
+            if (metrics.isEnabled()) {
+                metrics.recordAdvance(certificatesCreated - createdBefore,
+                        certificatesFailed - failedBefore,
+                        reorderings - reorderingsBefore,
+                        certificatesPriorityQueue.size(),
+                        System.nanoTime() - start);
+            }
+            events.publish();
+            return orderChanged;
         }
     }
 
+    @Override
+    public double getTime() {
+        return time;
+    }
+
+    @Override
+    public double nextEventTime() {
+        return certificatesPriorityQueue.peekExpiry();
+    }
+
+    /**
+     * Listeners are told of each swap of neighbouring elements, as a SWAP event. In NEIGHBOURHOOD_RESORT mode the swaps
+     * are those that re-sort each neighbourhood, and all have the time passed to advance
+     */
+    @Override
+    public void addListener(final KineticEventListener<E> listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(final KineticEventListener<E> listener) {
+        events.removeListener(listener);
+    }
+
     /**
-     * @return An iterator on unmodifiable list snapshot of the ordered elements
+     * @return An unmodifiable iterator over the ordered elements
      */
     @Override
     public Iterator<OneDimensionalKineticElement<E>> iterator() {
-        return Collections.unmodifiableList(elements).iterator();
+        return new Iterator<OneDimensionalKineticElement<E>>() {
+
+            private int next = store.first();
+
+            @Override
+            public boolean hasNext() {
+                return next != -1;
+            }
+
+            @Override
+            public OneDimensionalKineticElement<E> next() {
+                if (next == -1) {
+                    throw new NoSuchElementException();
+                }
+                final OneDimensionalKineticElement<E> element = store.element(next);
+                next = store.next(next);
+                return element;
+            }
+        };
     }
 
     @Override
     public int size() {
-        return elements.size();
+        return store.size();
+    }
+
+    /**
+     * Same as get, the element at rank from 0, the highest priority
+     */
+    public OneDimensionalKineticElement<E> select(final int rank) {
+        return get(rank);
+    }
+
+    /**
+     * @return Priority of the element at rank, at the current time. It is only evaluated once between advances
+     */
+    public double valueAt(final int rank) {
+        return get(rank).cachedValueAt(this.time);
+    }
+
+    /**
+     * Rank of element, by identity, found through an index of the elements rather than indexOf's linear scan.
+     * O(1) for ARRAY storage and O(log n) for TREE. For an element added more than once, O(n) after one of its copies is removed
+     *
+     * @return Rank of element, -1 if it is not in the list
+     */
+    public int rank(final OneDimensionalKineticElement<E> element) {
+        final int id = locate(element);
+        return id == -1 ? -1 : store.rankOf(id);
+    }
+
+    /**
+     * Elements whose priority at the current time is between lo and hi inclusive, highest first.
+     *
+     * O(log n), only the elements at the boundaries of the range are evaluated. The result is a view of those ranks of
+     * this list rather than a copy, so it no longer holds the range once the list is advanced or changed.
+     */
+    public List<OneDimensionalKineticElement<E>> range(final double lo, final double hi) {
+        if (lo > hi) {
+            throw new IllegalArgumentException("lo must not be greater than hi");
+        }
+        return subList(firstRankAtMost(hi), firstRankBelow(lo));
+    }
+
+    /**
+     * @return Number of elements whose priority at the current time is between lo and hi inclusive, in O(log n)
+     */
+    public int countInRange(final double lo, final double hi) {
+        if (lo > hi) {
+            throw new IllegalArgumentException("lo must not be greater than hi");
+        }
+        return firstRankBelow(lo) - firstRankAtMost(hi);
+    }
+
+    private int firstRankAtMost(final double value) {
+        return store.firstRank(id -> store.element(id).cachedValueAt(this.time) <= value);
+    }
+
+    private int firstRankBelow(final double value) {
+        return store.firstRank(id -> store.element(id).cachedValueAt(this.time) < value);
     }
 
     @Override
     public boolean add(final OneDimensionalKineticElement<E> element) {
         /*
-        Do binary search on ArrayList to determine where to insert it.
+        Do binary search on the store to determine where to insert it.
         We then create a new cert for i-1 -> i and i -> i+1
-        We remove the cert between i-1 -> i+1 from ArrayList and also from priority queue
-        We insert this new cert into ArrayList and priority queue
-         */
-
-        /*
-        If we have a match its the index
-        If not its -(insertion point) -1
-        So if i >= 0 element was definitely found
+        The cert between i-1 -> i+1 is replaced in the priority queue
          */
-        final Integer binarySearchResult = Collections.binarySearch(elements,
-                element,
-                (x, y) -> {
-                    Double xValue = x.function.apply(this.time);
-                    Double yValue = y.function.apply(this.time);
-                    if (xValue >yValue){
-                        return -1;
-                    }
-                    else if (yValue > xValue){
-                        return 1;
-                    }
-                    else return 0;
-                });
-        final Integer indexProper = binarySearchResult>=0? binarySearchResult: (binarySearchResult+1)*-1;
-
-        elements.add(indexProper, element);
+        final int rank = firstRankBelow(element.cachedValueAt(this.time));
+        final int id = store.insert(rank, element);
+        index(element, id);
+        reposition(rank + 1);
 
         //If its the highest priority element, it is not the right (lower) element in any certficate
-        if(indexProper > 0){
-            final OneDimensionalKineticElement<E> higher = elements.get(indexProper -1);
-            final Certificate<E> higherCertificate = solver.calculateIntersection(higher.function, element.function, this.time)
-                    .map(value ->  new Certificate<E>(higher.element, element.element, value))
-                    .orElse(new Certificate<E>(higher.element, element.element));
-
-            certificatesPriorityQueue.add(higherCertificate);
-            if(elementCertificates.size() < indexProper){
-                elementCertificates.add(higherCertificate);
-            }
-            else{
-                elementCertificates.set(indexProper -1, higherCertificate);
-            }
+        final int higher = store.previous(id);
+        if(higher != -1){
+            //The certificate between higher and the element that is now below this one is redundant
+            putCertificate(higher, getCertificate(store.element(higher), element));
         }
 
-        //Element certificates is always of size one less than elements
-        if(elements.size()-1 > indexProper){
-            final OneDimensionalKineticElement<E> lower = elements.get(indexProper  + 1);
-            final Certificate<E> lowerCertificate = solver.calculateIntersection(element.function, lower.function, this.time)
-                    .map(value ->  new Certificate<E>(element.element, lower.element, value))
-                    .orElse(new Certificate<E>(element.element, lower.element));
-            certificatesPriorityQueue.add(lowerCertificate);
-            elementCertificates.add(indexProper, lowerCertificate);
+        final int lower = store.next(id);
+        if(lower != -1){
+            putCertificate(id, getCertificate(element, store.element(lower)));
         }
-
         return true;
     }
 
     @Override
     public OneDimensionalKineticElement<E> remove(final int index) {
+        checkIndex(index);
+
+        //Deletes the element and its certificate with the next element
+        final int id = store.idAt(index);
+        final int higher = store.previous(id);
+        final OneDimensionalKineticElement<E> element = store.element(id);
+        putCertificate(id, null);
+        store.remove(id);
+        unindex(element);
+        reposition(index);
+
+        if(higher != -1){
+            //we need to create a new cert for i-1 pointing to what was i+1, if there is one
+            final int lower = store.next(higher);
+            putCertificate(higher, lower == -1 ? null : getCertificate(store.element(higher), store.element(lower)));
+        }
+        return element;
+    }
 
-        //Returns and deletes the first element in the ArrayList.
-        //also deletes from certs ArrayList
-        final OneDimensionalKineticElement<E> element = elements.remove(index);
-        if(elementCertificates.size() > 0){
-            final Certificate<E> cert = elementCertificates.remove(index);
-            elementCertificates.remove(cert);
-            certificatesPriorityQueue.remove(cert);
+    /**
+     * Removes element, by identity, found through the index of the elements rather than a linear scan
+     *
+     * @return false if element is not in the list
+     */
+    @Override
+    public boolean remove(final Object element) {
+        final int id = element instanceof OneDimensionalKineticElement ? locate((OneDimensionalKineticElement<?>) element) : -1;
+        if (id == -1) {
+            return false;
         }
+        remove(store.rankOf(id));
+        return true;
+    }
 
-        if(index>0){
-            //we need to create a new cert for i-1 pointing to index
+    @Override
+    public boolean contains(final Object element) {
+        return element instanceof OneDimensionalKineticElement && locate((OneDimensionalKineticElement<?>) element) != -1;
+    }
 
-            final OneDimensionalKineticElement<E> left = elements.get(index -1);
-            final OneDimensionalKineticElement<E> right = elements.get(index);
-            final Certificate<E> newCertificate =
-                    solver.calculateIntersection(left.function, right.function, this.time)
-                            .map(value ->  new Certificate<E>(left.element, right.element, value))
-                            .orElse(new Certificate<E>(left.element, right.element));
-            final Certificate<E> redundantCertificate = elementCertificates.set(index - 1, newCertificate);
+    /**
+     * Changes the motion of an element from the current time, eg when a mover changes course.
+     *
+     * Elements are immutable, so the new motion is passed as a new element, usually with the same payload, that takes the
+     * place of the old one. If its priority now is still between its neighbours', which it is for a continuous change of
+     * course, only the certificates with its two neighbours are solved again. Otherwise it is removed and added again.
+     * Passing the element itself as the trajectory re-solves its certificates, eg after samples were appended to a
+     * PiecewiseLinearKineticElement.
+     *
+     * @param element Element to replace, by identity
+     * @param trajectory Element with the new motion
+     *
+     * @return false if element is not in the list
+     */
+    public boolean updateTrajectory(final OneDimensionalKineticElement<E> element,
+                                    final OneDimensionalKineticElement<E> trajectory) {
+        final int id = locate(element);
+        if (id == -1) {
+            return false;
+        }
+        final double value = trajectory.cachedValueAt(this.time);
+        final int higher = store.previous(id);
+        final int lower = store.next(id);
+        if ((higher != -1 && store.element(higher).cachedValueAt(this.time) < value)
+                || (lower != -1 && store.element(lower).cachedValueAt(this.time) > value)) {
+            remove(store.rankOf(id));
+            add(trajectory);
+            return true;
+        }
 
-            certificatesPriorityQueue.remove(redundantCertificate);
-            certificatesPriorityQueue.add(newCertificate);
+        store.setElement(id, trajectory);
+        unindex(element);
+        index(trajectory, id);
+        if (higher != -1) {
+            putCertificate(higher, getCertificate(store.element(higher), trajectory));
         }
+        if (lower != -1) {
+            putCertificate(id, getCertificate(trajectory, store.element(lower)));
+        }
+        return true;
+    }
 
-        return element;
+    /**
+     * Adds all elements in one sort and merge pass.
+     *
+     * The batch is sorted, the insertion point of each element is found by binary search from the previous one,
+     * and the list is rebuilt once. Certificates are only computed for adjacencies that did not exist before.
+     *
+     * @param elements Elements to add
+     *
+     * @return true if the list changed
+     */
+    @Override
+    public boolean addAll(final Collection<? extends OneDimensionalKineticElement<E>> elements) {
+        if(elements.isEmpty()){
+            return false;
+        }
+
+        final List<OneDimensionalKineticElement<E>> batch = getTotalOrdering(elements, this.time);
+        final List<OneDimensionalKineticElement<E>> existing = orderedElements();
+        final int existingSize = existing.size();
+        final List<OneDimensionalKineticElement<E>> merged = new ArrayList<>(existingSize + batch.size());
+        final int[] previousIndices = new int[existingSize + batch.size()];
+
+        int existingIndex = 0;
+        for(final OneDimensionalKineticElement<E> element : batch){
+            final double value = element.cachedValueAt(this.time);
+
+            //First existing element from existingIndex with a lower value, the batch is sorted so this only moves forward
+            int low = existingIndex;
+            int high = existingSize;
+            while(low < high){
+                final int mid = (low + high) >>> 1;
+                if(existing.get(mid).cachedValueAt(this.time) >= value){
+                    low = mid + 1;
+                }
+                else{
+                    high = mid;
+                }
+            }
+
+            for(; existingIndex < low; existingIndex++){
+                previousIndices[merged.size()] = existingIndex;
+                merged.add(existing.get(existingIndex));
+            }
+            previousIndices[merged.size()] = -1;
+            merged.add(element);
+        }
+        for(; existingIndex < existingSize; existingIndex++){
+            previousIndices[merged.size()] = existingIndex;
+            merged.add(existing.get(existingIndex));
+        }
+
+        replaceContents(merged, previousIndices);
+        return true;
     }
 
-    protected ArrayList<OneDimensionalKineticElement<E>> getTotalOrdering(final Collection<OneDimensionalKineticElement<E>> elements, final Double time) {
-        return elements.stream().sorted((x, y) -> {
-            final Double xValue = x.function.apply(time);
-            final Double yValue = y.function.apply(time);
-            if (xValue >yValue){
+    /**
+     * Removes all matching elements in one pass, certificates are only computed for the new adjacencies this creates.
+     *
+     * @param filter Predicate for elements to remove
+     *
+     * @return true if any elements were removed
+     */
+    @Override
+    public boolean removeIf(final Predicate<? super OneDimensionalKineticElement<E>> filter) {
+        final List<OneDimensionalKineticElement<E>> existing = orderedElements();
+        final List<OneDimensionalKineticElement<E>> kept = new ArrayList<>(existing.size());
+        final int[] previousIndices = new int[existing.size()];
+        for(int i = 0; i < existing.size(); i++){
+            final OneDimensionalKineticElement<E> element = existing.get(i);
+            if(!filter.test(element)){
+                previousIndices[kept.size()] = i;
+                kept.add(element);
+            }
+        }
+
+        if(kept.size() == existing.size()){
+            return false;
+        }
+        replaceContents(kept, previousIndices);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> elements) {
+        final Collection<?> lookup = elements instanceof Set ? elements : new HashSet<>(elements);
+        return removeIf(lookup::contains);
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> elements) {
+        final Collection<?> lookup = elements instanceof Set ? elements : new HashSet<>(elements);
+        return removeIf(element -> !lookup.contains(element));
+    }
+
+    @Override
+    public void clear() {
+        for(int id = store.first(); id != -1; id = store.next(id)){
+            final Certificate<E> certificate = store.certificate(id);
+            if(certificate != null){
+                certificate.index = -1;
+            }
+        }
+        certificatesPriorityQueue.clear();
+        store.load(Collections.emptyList(), Collections.emptyList());
+        positions.clear();
+    }
+
+    /*
+    Elements ordered by priority at time, highest first. Each element is evaluated once and the sort compares the extracted keys
+     */
+    protected ArrayList<OneDimensionalKineticElement<E>> getTotalOrdering(final Collection<? extends OneDimensionalKineticElement<E>> elements, final double time) {
+        final List<Keyed<E>> keyed = new ArrayList<>(elements.size());
+        for(final OneDimensionalKineticElement<E> element : elements){
+            keyed.add(new Keyed<>(element, element.cachedValueAt(time)));
+        }
+        keyed.sort((x, y) -> {
+            if (x.key > y.key){
                 return -1;
             }
-            else if (yValue > xValue){
+            else if (y.key > x.key){
                 return 1;
             }
             else return 0;
-        }).collect(Collectors.toCollection(ArrayList::new));
+        });
+        final ArrayList<OneDimensionalKineticElement<E>> ordered = new ArrayList<>(keyed.size());
+        for(final Keyed<E> element : keyed){
+            ordered.add(element.element);
+        }
+        return ordered;
     }
 
 
 
-    private Comparator<Certificate<E>> getCertificateComparator() {
-        return (left, right) -> {
-            if (left.expiryTime.isPresent() && right.expiryTime.isPresent()) {
-                return left.expiryTime.get().compareTo(right.expiryTime.get());
-            } else if (left.expiryTime.isPresent()) {
-                return -1;
-            } else if (right.expiryTime.isPresent()) {
-                return 1;
-            } else {
-                return 0;
+    /*
+    Replaces the whole list with newElements, which must already be ordered.
+    previousIndices holds the current index of each new element, or -1 if it is not currently in the list.
+    Certificates between elements that stay adjacent are kept, all others are dropped and new ones computed
+     */
+    private void replaceContents(final List<OneDimensionalKineticElement<E>> newElements, final int[] previousIndices) {
+        final List<Certificate<E>> existingCertificates = new ArrayList<>(store.size());
+        for(int id = store.first(); id != -1 && store.next(id) != -1; id = store.next(id)){
+            existingCertificates.add(store.certificate(id));
+        }
+
+        final ArrayList<Certificate<E>> newCertificates = new ArrayList<>(Math.max(newElements.size() -1, 0));
+        final boolean[] kept = new boolean[existingCertificates.size()];
+
+        //Adjacencies that are new, their certificates are computed together so a large batch can be done in parallel
+        final int[] uncertified = IntStream.range(0, Math.max(newElements.size() -1, 0))
+                .filter(i -> previousIndices[i] < 0 || previousIndices[i +1] != previousIndices[i] +1)
+                .toArray();
+        final List<Certificate<E>> computed = solver.computeAll(uncertified.length,
+                j -> getCertificate(newElements.get(uncertified[j]), newElements.get(uncertified[j] +1)));
+        certificatesCreated += computed.size();
+
+        int next = 0;
+        for(int i = 0; i < newElements.size() -1; i++){
+            if(next < uncertified.length && uncertified[next] == i){
+                final Certificate<E> certificate = computed.get(next++);
+                certificatesPriorityQueue.add(certificate);
+                newCertificates.add(certificate);
             }
-        };
+            else{
+                kept[previousIndices[i]] = true;
+                newCertificates.add(existingCertificates.get(previousIndices[i]));
+            }
+        }
+
+        for(int i = 0; i < kept.length; i++){
+            if(!kept[i]){
+                final Certificate<E> redundantCertificate = existingCertificates.get(i);
+                redundantCertificate.index = -1;
+                certificatesPriorityQueue.remove(redundantCertificate);
+            }
+        }
+
+        store.load(newElements, newCertificates);
+        reindex();
+    }
+
+    /*
+    Elements in order, copied out of the store
+     */
+    private List<OneDimensionalKineticElement<E>> orderedElements() {
+        final List<OneDimensionalKineticElement<E>> ordered = new ArrayList<>(store.size());
+        for(int id = store.first(); id != -1; id = store.next(id)){
+            ordered.add(store.element(id));
+        }
+        return ordered;
+    }
+
+    /*
+    Id of element in the store, -1 if it is not in the list. The index is exact, except that removing one copy of an
+    element that was added more than once can leave it at the removed copy's id, and then the others are scanned for
+     */
+    private int locate(final OneDimensionalKineticElement<?> element) {
+        final Position position = positions.get(element);
+        if (position == null) {
+            return -1;
+        }
+        @SuppressWarnings("unchecked")
+        final OneDimensionalKineticElement<E> typed = (OneDimensionalKineticElement<E>) element;
+        if (store.holds(position.id, typed)) {
+            return position.id;
+        }
+        for (int id = store.first(); id != -1; id = store.next(id)) {
+            if (store.element(id) == typed) {
+                position.id = id;
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private void index(final OneDimensionalKineticElement<E> element, final int id) {
+        final Position position = positions.computeIfAbsent(element, e -> new Position());
+        position.id = id;
+        position.copies++;
+    }
+
+    private void unindex(final OneDimensionalKineticElement<E> element) {
+        final Position position = positions.get(element);
+        if (position != null && --position.copies == 0) {
+            positions.remove(element);
+        }
+    }
+
+    private void move(final OneDimensionalKineticElement<E> element, final int id) {
+        final Position position = positions.get(element);
+        if (position != null) {
+            position.id = id;
+        }
+    }
+
+    /*
+    Points the elements from rank on at their ids, after an insert or remove shifted them
+     */
+    private void reposition(final int rank) {
+        if (!store.shiftsIds() || rank >= store.size()) {
+            return;
+        }
+        for (int id = store.idAt(rank); id != -1; id = store.next(id)) {
+            move(store.element(id), id);
+        }
+    }
+
+    private void reindex() {
+        positions.clear();
+        for (int id = store.first(); id != -1; id = store.next(id)) {
+            index(store.element(id), id);
+        }
+    }
+
+    /*
+    Sets the certificate between the element at id and the next one, replacing the existing one in the priority queue.
+    A null certificate just removes the existing one
+     */
+    private void putCertificate(final int id, final Certificate<E> certificate) {
+        final Certificate<E> redundantCertificate = store.certificate(id);
+        if(redundantCertificate != null){
+            redundantCertificate.index = -1;
+        }
+        if(certificate == null){
+            certificatesPriorityQueue.remove(redundantCertificate);
+        }
+        else{
+            certificatesCreated++;
+            certificatesPriorityQueue.replace(redundantCertificate, certificate);
+        }
+        store.setCertificate(id, certificate);
+    }
+
+    private void checkIndex(final int index) {
+        if(index < 0 || index >= store.size()){
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + store.size());
+        }
     }
 
     /*
     Returns a ArrayList of certificatesPriorityQueue with the same ordering as list passed.
     It does not give the last element a certificate
      */
-    private ArrayList<Certificate<E>> getElementCertificates(ArrayList<OneDimensionalKineticElement<E>> elements) {
-        return IntStream.range(0, elements.size() -1)
-                .mapToObj(i -> {
-                    final OneDimensionalKineticElement<E> left = elements.get(i);
-                    final OneDimensionalKineticElement<E> right = elements.get(i +1);
-                    return solver.calculateIntersection(left.function, right.function, this.time)
-                            .map(value ->  new Certificate<E>(left.element, right.element, value))
-                            .orElse(new Certificate<E>(left.element, right.element));
-                })
-                .collect(Collectors.toCollection(ArrayList::new));
+    private List<Certificate<E>> getElementCertificates(final List<OneDimensionalKineticElement<E>> elements) {
+        return solver.computeAll(Math.max(elements.size() -1, 0), i -> getCertificate(elements.get(i), elements.get(i +1)));
+    }
+
+    /*
+    Certificate that left has priority over right, from the current time
+     */
+    private Certificate<E> getCertificate(final OneDimensionalKineticElement<E> left,
+                                          final OneDimensionalKineticElement<E> right) {
+        return getCertificate(left, right, this.time);
+    }
+
+    /*
+    From is the expiry of a certificate marked recheck, when its window ended before the current time
+     */
+    private Certificate<E> getCertificate(final OneDimensionalKineticElement<E> left,
+                                          final OneDimensionalKineticElement<E> right,
+                                          final double from) {
+        return solver.getCertificate(left.element, right.element, left, right, from);
     }
 
     /*
@@ -270,107 +700,75 @@ public class KineticSortedList<E> extends AbstractList<OneDimensionalKineticElem
      */
     private boolean reCalculatePriorities() {
 
-        final List<Certificate> invalidatedCertificates = new ArrayList<>();
-        //noinspection ConstantConditions
-        while(this.certificatesPriorityQueue.size() > 0 &&
-                Objects.requireNonNull(this.certificatesPriorityQueue.peek()).expiryTime.isPresent() &&
-                Objects.requireNonNull(this.certificatesPriorityQueue.peek()).expiryTime.get() < this.time){
-            invalidatedCertificates.add(this.certificatesPriorityQueue.poll());
+        final List<Certificate<E>> invalidatedCertificates = new ArrayList<>();
+        while(this.certificatesPriorityQueue.peekExpiry() < this.time){
+            final Certificate<E> certificate = this.certificatesPriorityQueue.poll();
+            if(!certificate.recheck){
+                invalidatedCertificates.add(certificate);
+            }
+            else if(certificate.index >= 0){
+                //No crossing was found up to the end of its window, so the next window is searched. It may expire before now as well
+                final int id = certificate.index;
+                putCertificate(id, getCertificate(store.element(id), store.element(store.next(id)), certificate.expiry));
+            }
         }
 
+        certificatesFailed += invalidatedCertificates.size();
         if(invalidatedCertificates.size() > 0) {
 
-            final SortedSet<Integer> elementIndices =
-                    invalidatedCertificates.stream()
-                            .map(elementCertificates::indexOf)
-                            //Filter out certficates of non-contiguous elements that have been removed already from the elementsCertificates list
-                            .filter(index -> index >=0)
-                            .collect(Collectors.toCollection(TreeSet::new));
-
-            final SortedSet<Integer> elementIndicesPlusOneTreeSet = new TreeSet<>();
-            for(Integer index : elementIndices){
-                if(index > 0) {
-                    elementIndicesPlusOneTreeSet.add(index -1);
+            //Ranks of the elements either side of each expired certificate, and the element above them
+            final SortedSet<Integer> ranks = new TreeSet<>();
+            for(final Certificate<E> certificate : invalidatedCertificates){
+                //Filter out certficates of non-contiguous elements that have been removed already
+                if(certificate.index < 0){
+                    continue;
+                }
+                final int rank = store.rankOf(certificate.index);
+                if(rank > 0) {
+                    ranks.add(rank -1);
                 }
-                elementIndicesPlusOneTreeSet.add(index);
-                elementIndicesPlusOneTreeSet.add(index +1);
+                ranks.add(rank);
+                ranks.add(rank +1);
             }
 
-            final List<Integer> elementIndicesPlusOne = new ArrayList<>(elementIndicesPlusOneTreeSet);
+            final int[] ids = ranks.stream().mapToInt(store::idAt).toArray();
+            final List<OneDimensionalKineticElement<E>> invalidatedElements =
+                    Arrays.stream(ids).mapToObj(store::element).collect(Collectors.toList());
 
-            final List<OneDimensionalKineticElement<E>> invalidatedElements = elementIndicesPlusOne.stream().map(elements::get).collect(Collectors.toList());
+            if(events.isListening()){
+                recordSwaps(invalidatedElements);
+            }
 
+            //Zip the sorted elements back into the same positions
             final List<OneDimensionalKineticElement<E>> sortedElements = getTotalOrdering(invalidatedElements, this.time);
+            for(int i = 0; i < ids.length; i++){
+                if(invalidatedElements.get(i) != sortedElements.get(i)){
+                    reorderings++;
+                }
+                store.setElement(ids[i], sortedElements.get(i));
+                move(sortedElements.get(i), ids[i]);
+            }
 
-            //Zip indices and the sorted elements into the elements and certificates lists
-            final List<Certificate<E>> newCertificates =
-                    IntStream.range(0, sortedElements.size())
-                            //This is a way to reverse the order of the intstream
-                            .boxed()
-                            .collect(Collector.of(
-                                    ArrayDeque<Integer>::new,
-                                    ArrayDeque::addFirst,
-                                    (ArrayDeque<Integer> d1, ArrayDeque<Integer> d2) -> { d2.addAll(d1); return d2; }))
-                            .stream()
-                            .map(i -> {
-                                //Im not sure how this could happen though its the last element, it wont have a certificate
-                                if(elementIndicesPlusOne.get(i) > elements.size() -1){
-                                    elements.add(sortedElements.get(i));
-                                    return Optional.<Certificate<E>>empty();
-                                }
-                                else{
-
-                                    final OneDimensionalKineticElement<E> left = sortedElements.get(i);
-                                    final Integer indexOfLeft = elementIndicesPlusOne.get(i);
-                                    final OneDimensionalKineticElement<E> potentialRight = elements.set(indexOfLeft, left);
-
-                                    //Its the last element now, it has no certificate
-                                    if (indexOfLeft +1 >= elements.size()) {
-                                        return Optional.<Certificate<E>>empty();
-                                    }
-
-                                    final Certificate<E> newCertificate;
-                                    //Its the last of the sorted elements no need to swap
-                                    if(i.equals(sortedElements.size()-1)){
-                                        final OneDimensionalKineticElement<E> right = elements.get(indexOfLeft +1);
-                                        newCertificate =
-                                                solver.calculateIntersection(left.function, right.function, this.time)
-                                                        .map(value ->  new Certificate<E>(left.element, right.element, value))
-                                                        .orElse(new Certificate<E>(left.element, right.element));
-                                    }
-                                    else{
-                                        final OneDimensionalKineticElement<E> actualRight;
-
-                                        //If there was no change we do not need to reorder
-                                        if(!potentialRight.equals(left)){
-                                            elements.set(indexOfLeft +1 , potentialRight);
-                                            actualRight= potentialRight;
-                                        }
-                                        else {
-                                            actualRight = elements.get(indexOfLeft +1);
-                                        }
-
-                                        newCertificate =
-                                                solver.calculateIntersection(left.function, actualRight.function, this.time)
-                                                        .map(value ->  new Certificate<E>(left.element, actualRight.element, value))
-                                                        .orElse(new Certificate<E>(left.element, actualRight.element));
-                                    }
-
-                                    if(elementCertificates.size() < elementIndicesPlusOne.get(i)){
-                                        elementCertificates.add(newCertificate);
-                                    }
-                                    else{
-                                        elementCertificates.set(elementIndicesPlusOne.get(i), newCertificate);
-                                    }
-
-                                    return Optional.of(newCertificate);
-                                }
-                            })
-                            .filter(Optional::isPresent)
-                            .map(Optional::get)
-                            .collect(Collectors.toList());
-
-            certificatesPriorityQueue.addAll(newCertificates);
+            //Every element that moved has new neighbours on both sides
+            final Set<Integer> recertified = new LinkedHashSet<>();
+            for(final int id : ids){
+                final int higher = store.previous(id);
+                if(higher != -1){
+                    recertified.add(higher);
+                }
+                if(store.next(id) != -1){
+                    recertified.add(id);
+                }
+                else{
+                    putCertificate(id, null);
+                }
+            }
+            final int[] recertifiedIds = recertified.stream().mapToInt(Integer::intValue).toArray();
+            final List<Certificate<E>> certificates = solver.computeAll(recertifiedIds.length,
+                    i -> getCertificate(store.element(recertifiedIds[i]), store.element(store.next(recertifiedIds[i]))));
+            for(int i = 0; i < recertifiedIds.length; i++){
+                putCertificate(recertifiedIds[i], certificates.get(i));
+            }
             return true;
         }
         else{
@@ -379,4 +777,86 @@ public class KineticSortedList<E> extends AbstractList<OneDimensionalKineticElem
         }
     }
 
+    /*
+    Processes expired certificates one at a time in order of expiry, up to t.
+    Each one means its two elements have just crossed, so they are swapped at that time
+    and only the certificates above, between and below them are recomputed
+     */
+    private boolean processEvents(final double t) {
+        boolean orderChanged = false;
+        while(this.certificatesPriorityQueue.peekExpiry() < t){
+            final Certificate<E> certificate = this.certificatesPriorityQueue.poll();
+            final int id = certificate.index;
+            if(id < 0){
+                continue;
+            }
+            this.time = Math.max(this.time, certificate.expiry);
+            if(certificate.recheck){
+                //No crossing was found up to now, so search the next window
+                recertify(id);
+                continue;
+            }
+            certificatesFailed++;
+
+            final int lower = store.next(id);
+            final OneDimensionalKineticElement<E> left = store.element(id);
+            final OneDimensionalKineticElement<E> right = store.element(lower);
+            store.setElement(id, right);
+            store.setElement(lower, left);
+            move(right, id);
+            move(left, lower);
+            events.record(KineticEvent.Type.SWAP, right.element, left.element, this.time);
+            reorderings++;
+
+            final int higher = store.previous(id);
+            if(higher != -1){
+                recertify(higher);
+            }
+            recertify(id);
+            recertify(lower);
+            orderChanged = true;
+        }
+        this.time = t;
+        return orderChanged;
+    }
+
+    /*
+    Records the swaps of neighbours that an insertion sort would make to order elements at the current time
+     */
+    private void recordSwaps(final List<OneDimensionalKineticElement<E>> elements) {
+        final List<OneDimensionalKineticElement<E>> sorting = new ArrayList<>(elements);
+        for(int i = 1; i < sorting.size(); i++){
+            for(int j = i; j > 0 && sorting.get(j -1).cachedValueAt(this.time) < sorting.get(j).cachedValueAt(this.time); j--){
+                final OneDimensionalKineticElement<E> overtaken = sorting.set(j -1, sorting.get(j));
+                sorting.set(j, overtaken);
+                events.record(KineticEvent.Type.SWAP, sorting.get(j -1).element, overtaken.element, this.time);
+            }
+        }
+    }
+
+    /*
+    Recomputes the certificate between the element at id and the next one
+     */
+    private void recertify(final int id) {
+        final int lower = store.next(id);
+        putCertificate(id, lower == -1 ? null : getCertificate(store.element(id), store.element(lower)));
+    }
+
+    private static final class Keyed<E> {
+        private final OneDimensionalKineticElement<E> element;
+        private final double key;
+
+        private Keyed(final OneDimensionalKineticElement<E> element, final double key) {
+            this.element = element;
+            this.key = key;
+        }
+    }
+
+    /*
+    Last known id of an element, and the number of times it is in the list
+     */
+    private static final class Position {
+        private int id;
+        private int copies;
+    }
 }
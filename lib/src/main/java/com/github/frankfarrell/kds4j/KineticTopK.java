@@ -0,0 +1,244 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Maintains the k highest priority elements, in order, eg a leaderboard of the top 100 out of millions.
+ *
+ * The top k are kept in an event driven kinetic sorted list and every other element in a maximum kinetic tournament,
+ * with one boundary certificate between the last of the top k and the winner of the tournament. Swaps within the top k
+ * cost O(log k) and only need k - 1 certificates, rather than the n - 1 a sorted list of every element would.
+ * Elements outside the top k are only ever compared in the tournament.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class KineticTopK<E> implements KineticDataStructure<E>, Iterable<OneDimensionalKineticElement<E>> {
+
+    private final int k;
+    private final OneDimensionalKDSSolver solver;
+    private final KineticSortedList<E> top;
+    private final KineticTournament<E> outsiders;
+    private final KineticEventPublisher<E> events = new KineticEventPublisher<>();
+
+    //Swaps within the top k are forwarded, only attached while someone listens
+    private final KineticEventListener<E> topListener =
+            batch -> batch.forEach(event -> events.record(event.type, event.left, event.right, event.time));
+
+    private double time;
+
+    //Last of the top k has priority over the best outsider until this expires, null if either is missing
+    private Certificate<OneDimensionalKineticElement<E>> boundary;
+
+    public KineticTopK(final int k, final Double startTime) {
+        this(k, startTime, Collections.emptyList());
+    }
+
+    public KineticTopK(final int k,
+                       final Double startTime,
+                       final Collection<OneDimensionalKineticElement<E>> elements) {
+        this(k, startTime, elements, new OneDimensionalKDSSolver());
+    }
+
+    public KineticTopK(final int k,
+                       final Double startTime,
+                       final Collection<OneDimensionalKineticElement<E>> elements,
+                       final OneDimensionalKDSSolver solver) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        this.k = k;
+        this.time = startTime;
+        this.solver = solver;
+
+        final List<OneDimensionalKineticElement<E>> sorted = new ArrayList<>(elements);
+        final double[] values = new double[sorted.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = sorted.get(i).cachedValueAt(startTime);
+        }
+        final List<Integer> order = new ArrayList<>(sorted.size());
+        for (int i = 0; i < values.length; i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> Double.compare(values[b], values[a]));
+
+        final List<OneDimensionalKineticElement<E>> best = new ArrayList<>();
+        final List<OneDimensionalKineticElement<E>> rest = new ArrayList<>();
+        for (final int index : order) {
+            (best.size() < k ? best : rest).add(sorted.get(index));
+        }
+        this.top = new KineticSortedList<>(startTime, best, solver, KineticSortedList.Storage.ARRAY, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+        this.outsiders = new KineticTournament<>(startTime, KineticTournament.Order.MAXIMUM, rest, solver);
+        certifyBoundary();
+    }
+
+    /**
+     * @return Boolean indicating if the top k, or their order, changed
+     */
+    @Override
+    public boolean advance(final double t) {
+        if (t < time) {
+            throw new RuntimeException("Cannot reverse time");
+        } else if (t == time) {
+            return false;
+        }
+
+        boolean changed = false;
+        while (true) {
+            final double boundaryExpiry = boundary == null ? Double.POSITIVE_INFINITY : boundary.expiry;
+            final double next = Math.min(boundaryExpiry, Math.min(top.nextEventTime(), outsiders.nextEventTime()));
+            if (next >= t) {
+                break;
+            }
+            if (next == boundaryExpiry) {
+                //Both parts are brought up to the crossing, then the outsider and the last of the top k change places
+                changed |= top.advance(next);
+                outsiders.advance(next);
+                this.time = Math.max(this.time, next);
+                if (boundary.recheck) {
+                    certifyBoundary();
+                    continue;
+                }
+                final OneDimensionalKineticElement<E> last = top.remove(top.size() - 1);
+                final OneDimensionalKineticElement<E> entering = outsiders.poll();
+                top.add(entering);
+                outsiders.add(last);
+                events.record(KineticEvent.Type.SWAP, entering.element, last.element, this.time);
+                changed = true;
+                certifyBoundary();
+            } else {
+                //Steps just past an event in either part, since it may change either side of the boundary
+                final OneDimensionalKineticElement<E> lastBefore = last();
+                final OneDimensionalKineticElement<E> bestBefore = outsiders.peek();
+                final double step = Math.min(t, Math.nextUp(next));
+                changed |= top.advance(step);
+                outsiders.advance(step);
+                this.time = step;
+                if (last() != lastBefore || outsiders.peek() != bestBefore) {
+                    certifyBoundary();
+                }
+            }
+        }
+        changed |= top.advance(t);
+        outsiders.advance(t);
+        this.time = t;
+        events.publish();
+        return changed;
+    }
+
+    @Override
+    public double getTime() {
+        return time;
+    }
+
+    @Override
+    public double nextEventTime() {
+        final double boundaryExpiry = boundary == null ? Double.POSITIVE_INFINITY : boundary.expiry;
+        return Math.min(boundaryExpiry, Math.min(top.nextEventTime(), outsiders.nextEventTime()));
+    }
+
+    /**
+     * Listeners are told of each swap within the top k, and each time an outsider overtakes the last of the top k,
+     * as SWAP events
+     */
+    @Override
+    public void addListener(final KineticEventListener<E> listener) {
+        if (!events.isListening()) {
+            top.addListener(topListener);
+        }
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(final KineticEventListener<E> listener) {
+        events.removeListener(listener);
+        if (!events.isListening()) {
+            top.removeListener(topListener);
+        }
+    }
+
+    public boolean add(final OneDimensionalKineticElement<E> element) {
+        if (contains(element)) {
+            return false;
+        }
+        if (top.size() < k) {
+            top.add(element);
+        } else if (element.cachedValueAt(time) > last().cachedValueAt(time)) {
+            outsiders.add(top.remove(top.size() - 1));
+            top.add(element);
+        } else {
+            outsiders.add(element);
+        }
+        certifyBoundary();
+        return true;
+    }
+
+    public boolean remove(final OneDimensionalKineticElement<E> element) {
+        if (top.remove(element)) {
+            if (!outsiders.isEmpty()) {
+                top.add(outsiders.poll());
+            }
+        } else if (!outsiders.remove(element)) {
+            return false;
+        }
+        certifyBoundary();
+        return true;
+    }
+
+    public boolean contains(final OneDimensionalKineticElement<E> element) {
+        return top.contains(element) || outsiders.contains(element);
+    }
+
+    /**
+     * @param rank Rank from 0, the highest priority, to k - 1
+     *
+     * @return Element at rank among the top k
+     */
+    public OneDimensionalKineticElement<E> get(final int rank) {
+        return top.get(rank);
+    }
+
+    /**
+     * @return Read only view of the top k in order of priority, fewer if there are fewer elements
+     */
+    public List<OneDimensionalKineticElement<E>> getTop() {
+        return Collections.unmodifiableList(top);
+    }
+
+    /**
+     * @return Iterator over the top k in order of priority
+     */
+    @Override
+    public Iterator<OneDimensionalKineticElement<E>> iterator() {
+        return getTop().iterator();
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * @return Number of elements, in and out of the top k
+     */
+    public int size() {
+        return top.size() + outsiders.size();
+    }
+
+    public boolean isEmpty() {
+        return top.isEmpty();
+    }
+
+    private OneDimensionalKineticElement<E> last() {
+        return top.isEmpty() ? null : top.get(top.size() - 1);
+    }
+
+    private void certifyBoundary() {
+        final OneDimensionalKineticElement<E> last = last();
+        final OneDimensionalKineticElement<E> best = outsiders.peek();
+        boundary = last == null || best == null ? null : solver.getCertificate(last, best, last, best, time);
+    }
+}
@@ -0,0 +1,443 @@
+package com.github.frankfarrell.kds4j;
+
+import org.apache.commons.math3.analysis.solvers.BracketingNthOrderBrentSolver;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Implementation of a kinetic tournament tree.
+ *
+ * Maintains only the maximum (or minimum) element over time. Leaves hold the elements and each internal node holds
+ * the winner of its two children, with a certificate that the winner beats the winner of the other child.
+ * There are n - 1 certificates, and each event, insertion or deletion only repairs the certificates on one path to the root,
+ * so costs O(log n).
+ *
+ * @see <a href="http://graphics.stanford.edu/courses/cs268-11-spring/notes/kinetic.pdf">Lecture notes from stanford</a>
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class KineticTournament<E> implements KineticDataStructure<E>, Iterable<OneDimensionalKineticElement<E>> {
+
+    /**
+     * Whether the tournament is won by the element with the highest or the lowest value
+     */
+    public enum Order {
+        MAXIMUM,
+        MINIMUM
+    }
+
+    private static final int MINIMUM_CAPACITY = 2;
+
+    private final Order order;
+    private final OneDimensionalKDSSolver solver;
+
+    /*
+    Tree laid out in arrays. Internal nodes are 1 to capacity - 1, children of node v are 2v and 2v + 1.
+    Leaf slot s is node capacity + s. Occupied leaf slots are always 0 to size - 1.
+    winners holds the element that wins at each internal node, null if there are no elements below it
+     */
+    private OneDimensionalKineticElement<E>[] leaves;
+    private OneDimensionalKineticElement<E>[] winners;
+    private Certificate<E>[] nodeCertificates;
+    private int capacity;
+    private int size;
+
+    /*
+    Leaf slot of each element, so they can be removed without a search
+     */
+    private final Map<OneDimensionalKineticElement<E>, Integer> slots;
+
+    private final CertificateHeap<E> certificatesPriorityQueue;
+    private double time;
+
+    private final KineticEventPublisher<E> events = new KineticEventPublisher<>();
+
+    //Running total, only read to report the difference over each advance to the solver's metrics
+    private int certificatesCreated;
+
+    public KineticTournament(final Double startTime, final Order order) {
+        this(startTime, order, Collections.emptyList(), new OneDimensionalKDSSolver());
+    }
+
+    public KineticTournament(final Double startTime,
+                             final Order order,
+                             final Collection<OneDimensionalKineticElement<E>> elements) {
+        this(startTime, order, elements, new OneDimensionalKDSSolver());
+    }
+
+    public KineticTournament(final Double startTime,
+                             final Order order,
+                             final Collection<OneDimensionalKineticElement<E>> elements,
+                             final BracketingNthOrderBrentSolver solver) {
+        this(startTime, order, elements, new OneDimensionalKDSSolver(solver));
+    }
+
+    public KineticTournament(final Double startTime,
+                             final Order order,
+                             final Collection<OneDimensionalKineticElement<E>> elements,
+                             final OneDimensionalKDSSolver solver) {
+        this.time = startTime;
+        this.order = order;
+        this.solver = solver;
+        this.slots = new IdentityHashMap<>();
+        this.certificatesPriorityQueue = new CertificateHeap<>();
+
+        allocate(Math.max(MINIMUM_CAPACITY, Integer.highestOneBit(Math.max(elements.size(), 1) * 2 - 1)));
+        for (final OneDimensionalKineticElement<E> element : elements) {
+            if (!slots.containsKey(element)) {
+                leaves[size] = element;
+                slots.put(element, size);
+                size++;
+            }
+        }
+        rebuild();
+    }
+
+    /**
+     * @return Boolean indicating if the winner changed
+     */
+    @Override
+    public boolean advance(final double t) {
+        if (t < time) {
+            throw new RuntimeException("Cannot reverse time");
+        } else if (t == time) {
+            return false;
+        }
+
+        final KineticMetrics metrics = solver.getMetrics();
+        final long start = metrics.isEnabled() ? System.nanoTime() : 0L;
+        final int createdBefore = certificatesCreated;
+        int certificatesFailed = 0;
+        int winnerChanges = 0;
+
+        boolean winnerChanged = false;
+        OneDimensionalKineticElement<E> top = peek();
+        while (certificatesPriorityQueue.peekExpiry() < t) {
+            final Certificate<E> certificate = certificatesPriorityQueue.poll();
+            this.time = Math.max(this.time, certificate.expiry);
+            if (certificate.recheck) {
+                //No crossing was found up to now, so the same two elements are solved for the next window
+                certify(certificate.index);
+                continue;
+            }
+            certificatesFailed++;
+
+            //The loser has overtaken the winner at this node, so they are swapped rather than re-evaluated
+            final int node = certificate.index;
+            certificate.index = -1;
+            nodeCertificates[node] = null;
+            final OneDimensionalKineticElement<E> left = winnerOf(2 * node);
+            winners[node] = left == winners[node] ? winnerOf(2 * node + 1) : left;
+            certify(node);
+            if (node == 1 || updatePath(node / 2)) {
+                final OneDimensionalKineticElement<E> newTop = peek();
+                events.record(KineticEvent.Type.NEW_TOP, newTop.element, top == null ? null : top.element, this.time);
+                top = newTop;
+                winnerChanged = true;
+                winnerChanges++;
+            }
+        }
+        this.time = t;
+        if (metrics.isEnabled()) {
+            metrics.recordAdvance(certificatesCreated - createdBefore, certificatesFailed, winnerChanges,
+                    certificatesPriorityQueue.size(), System.nanoTime() - start);
+        }
+        events.publish();
+        return winnerChanged;
+    }
+
+    @Override
+    public double getTime() {
+        return time;
+    }
+
+    @Override
+    public double nextEventTime() {
+        return certificatesPriorityQueue.peekExpiry();
+    }
+
+    /**
+     * Listeners are told of each change of winner, as a NEW_TOP event
+     */
+    @Override
+    public void addListener(final KineticEventListener<E> listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(final KineticEventListener<E> listener) {
+        events.removeListener(listener);
+    }
+
+    /**
+     * @param element Element to add
+     *
+     * @return false if the element, by identity, is already in the tournament
+     */
+    public boolean add(final OneDimensionalKineticElement<E> element) {
+        if (slots.containsKey(element)) {
+            return false;
+        }
+        if (size == capacity) {
+            final OneDimensionalKineticElement<E>[] existing = leaves;
+            allocate(capacity * 2);
+            System.arraycopy(existing, 0, leaves, 0, size);
+            leaves[size] = element;
+            slots.put(element, size);
+            size++;
+            rebuild();
+            return true;
+        }
+        leaves[size] = element;
+        slots.put(element, size);
+        size++;
+        updatePath((capacity + size - 1) / 2);
+        return true;
+    }
+
+    /**
+     * @param element Element to remove, by identity
+     *
+     * @return false if the element is not in the tournament
+     */
+    public boolean remove(final OneDimensionalKineticElement<E> element) {
+        final Integer slot = slots.remove(element);
+        if (slot == null) {
+            return false;
+        }
+
+        final int last = size - 1;
+        size--;
+        if (slot != last) {
+            final OneDimensionalKineticElement<E> moved = leaves[last];
+            leaves[slot] = moved;
+            slots.put(moved, slot);
+        }
+        leaves[last] = null;
+
+        if (capacity > MINIMUM_CAPACITY && size <= capacity / 4) {
+            final OneDimensionalKineticElement<E>[] remaining = Arrays.copyOf(leaves, size);
+            allocate(capacity / 2);
+            System.arraycopy(remaining, 0, leaves, 0, size);
+            rebuild();
+        } else {
+            updatePath((capacity + last) / 2);
+            if (slot != last) {
+                updatePath((capacity + slot) / 2);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Puts replacement in the place of element, eg when an element changes its motion.
+     * Only the matches on the path from its leaf to the root are played again, O(log n)
+     *
+     * Replacing an element with itself plays its matches again, eg after samples were appended to a PiecewiseLinearKineticElement
+     *
+     * @param element Element to replace, by identity
+     * @param replacement Element to take its place
+     *
+     * @return false if element is not in the tournament, or replacement already is
+     */
+    public boolean replace(final OneDimensionalKineticElement<E> element, final OneDimensionalKineticElement<E> replacement) {
+        if (replacement != element && slots.containsKey(replacement)) {
+            return false;
+        }
+        final Integer slot = slots.remove(element);
+        if (slot == null) {
+            return false;
+        }
+        leaves[slot] = replacement;
+        slots.put(replacement, slot);
+        updatePath((capacity + slot) / 2);
+        return true;
+    }
+
+    /**
+     * @return Element that currently wins the tournament, null if it is empty
+     */
+    public OneDimensionalKineticElement<E> peek() {
+        return winnerOf(1);
+    }
+
+    /**
+     * @return Removes and returns the element that currently wins the tournament, null if it is empty
+     */
+    public OneDimensionalKineticElement<E> poll() {
+        final OneDimensionalKineticElement<E> winner = peek();
+        if (winner != null) {
+            remove(winner);
+        }
+        return winner;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(final OneDimensionalKineticElement<E> element) {
+        return slots.containsKey(element);
+    }
+
+    /**
+     * @return Iterator over the elements in no particular order. Removing through the iterator removes from the tournament
+     */
+    @Override
+    public Iterator<OneDimensionalKineticElement<E>> iterator() {
+        return new Iterator<OneDimensionalKineticElement<E>>() {
+
+            private int next = 0;
+            private OneDimensionalKineticElement<E> last = null;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public OneDimensionalKineticElement<E> next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                last = leaves[next++];
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                KineticTournament.this.remove(last);
+                //The last leaf has been moved into the removed slot, so it has to be visited again
+                next--;
+                last = null;
+            }
+        };
+    }
+
+    private OneDimensionalKineticElement<E> winnerOf(final int node) {
+        return node >= capacity ? leaves[node - capacity] : winners[node];
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(final int newCapacity) {
+        this.capacity = newCapacity;
+        this.leaves = (OneDimensionalKineticElement<E>[]) new OneDimensionalKineticElement[newCapacity];
+        this.winners = (OneDimensionalKineticElement<E>[]) new OneDimensionalKineticElement[newCapacity];
+        this.nodeCertificates = (Certificate<E>[]) new Certificate[newCapacity];
+    }
+
+    /*
+    Recomputes every internal node and certificate bottom up
+     */
+    private void rebuild() {
+        certificatesPriorityQueue.clear();
+        for (int node = capacity - 1; node >= 1; node--) {
+            nodeCertificates[node] = null;
+            winners[node] = compete(winnerOf(2 * node), winnerOf(2 * node + 1));
+        }
+
+        //Once the winners are known the certificates are independent, so a large tournament can compute them in parallel
+        final int[] contested = IntStream.range(1, capacity).filter(node -> loserOf(node) != null).toArray();
+        final List<Certificate<E>> certificates =
+                solver.computeAll(contested.length, i -> getCertificate(winners[contested[i]], loserOf(contested[i])));
+        for (int i = 0; i < contested.length; i++) {
+            final Certificate<E> certificate = certificates.get(i);
+            certificate.index = contested[i];
+            nodeCertificates[contested[i]] = certificate;
+            certificatesPriorityQueue.add(certificate);
+        }
+    }
+
+    /*
+    Winner of the child of node that did not win at node, null if either child is empty
+     */
+    private OneDimensionalKineticElement<E> loserOf(final int node) {
+        final OneDimensionalKineticElement<E> winner = winners[node];
+        final OneDimensionalKineticElement<E> left = winnerOf(2 * node);
+        return winner == null ? null : winner == left ? winnerOf(2 * node + 1) : left;
+    }
+
+    /*
+    Recomputes the winners from node up to the root, after a child of node has changed.
+    Stops as soon as the winner at a node is unchanged, since nothing above it can change either.
+    Returns true if the winner at the root changed
+     */
+    private boolean updatePath(int node) {
+        while (node >= 1) {
+            final OneDimensionalKineticElement<E> previousWinner = winners[node];
+            winners[node] = compete(winnerOf(2 * node), winnerOf(2 * node + 1));
+            certify(node);
+            if (winners[node] == previousWinner) {
+                return false;
+            }
+            node /= 2;
+        }
+        return true;
+    }
+
+    /*
+    Element that wins between two at the current time, ties go to whichever is ahead straight after
+     */
+    private OneDimensionalKineticElement<E> compete(final OneDimensionalKineticElement<E> left,
+                                                    final OneDimensionalKineticElement<E> right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        }
+        final double leftValue = left.cachedValueAt(time);
+        final double rightValue = right.cachedValueAt(time);
+        if (leftValue != rightValue) {
+            return beats(leftValue, rightValue) ? left : right;
+        }
+        final double after = time + solver.resolution(time);
+        return beats(right.valueAt(after), left.valueAt(after)) ? right : left;
+    }
+
+    private boolean beats(final double value, final double other) {
+        return order == Order.MAXIMUM ? value > other : value < other;
+    }
+
+    /*
+    Replaces the certificate at node with one between its current winner and the winner of its other child
+     */
+    private void certify(final int node) {
+        final Certificate<E> existing = nodeCertificates[node];
+        if (existing != null) {
+            existing.index = -1;
+        }
+
+        final OneDimensionalKineticElement<E> winner = winners[node];
+        final OneDimensionalKineticElement<E> loser = loserOf(node);
+        if (loser == null) {
+            nodeCertificates[node] = null;
+            certificatesPriorityQueue.remove(existing);
+            return;
+        }
+
+        certificatesCreated++;
+        final Certificate<E> certificate = getCertificate(winner, loser);
+        certificate.index = node;
+        nodeCertificates[node] = certificate;
+        certificatesPriorityQueue.replace(existing, certificate);
+    }
+
+    /*
+    Certificate that winner beats loser, from the current time
+     */
+    private Certificate<E> getCertificate(final OneDimensionalKineticElement<E> winner,
+                                          final OneDimensionalKineticElement<E> loser) {
+        return order == Order.MAXIMUM
+                ? solver.getCertificate(winner.element, loser.element, winner, loser, this.time)
+                : solver.getCertificate(winner.element, loser.element, loser, winner, this.time);
+    }
+}
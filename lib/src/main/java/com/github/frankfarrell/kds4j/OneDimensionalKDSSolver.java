@@ -5,8 +5,16 @@ import org.apache.commons.math3.analysis.solvers.AllowedSolution;
 import org.apache.commons.math3.analysis.solvers.BracketingNthOrderBrentSolver;
 import org.apache.commons.math3.exception.NoBracketingException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Created by frankfarrell on 30/03/2018.
@@ -22,15 +30,152 @@ public class OneDimensionalKDSSolver {
     //If the upper and lower brackets have the same sign, we add exponents of the this value to the upper until they aren't, for SOLVER_BRACKETING_ITERATIONS
     public static final int BRACKETING_EXPONANT_BASE = 2;
     public static final int SOLVER_MAX_EVAL = 1000;
+    //Fewer certificates than this are always computed on the calling thread, as forking would cost more than it saves
+    public static final int PARALLEL_THRESHOLD = 1024;
+    //How far ahead of time a certificate is solved for, by default the same window the bracketing iterations used to reach
+    public static final double DEFAULT_HORIZON = Math.pow(BRACKETING_EXPONANT_BASE, MAX_SOLVER_BRACKETING_ITERATIONS - 1);
+    //Rate bounds that only rule out a crossing for less than the first bracketing window are not worth a recheck, the pair is solved instead
+    public static final double MIN_PREFILTER_WINDOW = 1.0;
+    //With a root cache, each pair is scanned for every sign change in steps of the first bracketing window, up to this far ahead
+    public static final double ROOT_CACHE_WINDOW = 64.0;
 
     private final BracketingNthOrderBrentSolver solver;
+    private final KineticMetrics metrics;
+    private final ForkJoinPool pool;
+    private final double horizon;
+    private final RootCache rootCache;
+
+    /*
+    BracketingNthOrderBrentSolver keeps its evaluation count in the instance, so it is not thread safe.
+    Each thread solves with its own copy, configured the same as solver
+     */
+    private final ThreadLocal<BracketingNthOrderBrentSolver> threadSolvers;
 
     public OneDimensionalKDSSolver() {
-        this.solver = getDefaultSolver();
+        this(getDefaultSolver(), KineticMetrics.NO_OP);
     }
 
     public OneDimensionalKDSSolver(final BracketingNthOrderBrentSolver solver) {
+        this(solver, KineticMetrics.NO_OP);
+    }
+
+    public OneDimensionalKDSSolver(final KineticMetrics metrics) {
+        this(getDefaultSolver(), metrics);
+    }
+
+    public OneDimensionalKDSSolver(final KineticMetrics metrics,
+                                   final ForkJoinPool pool) {
+        this(getDefaultSolver(), metrics, pool);
+    }
+
+    /**
+     * @param solver Root finder for elements that are not both polynomials
+     * @param metrics Receives a measurement for every certificate computed, and for every advance of a structure using this solver
+     */
+    public OneDimensionalKDSSolver(final BracketingNthOrderBrentSolver solver,
+                                   final KineticMetrics metrics) {
+        this(solver, metrics, null);
+    }
+
+    /**
+     * Large batches of certificates, such as when a structure is built or bulk loaded, are computed in parallel on pool.
+     * The functions of the elements must then be safe to call from several threads.
+     *
+     * @param solver Root finder for elements that are not both polynomials
+     * @param metrics Receives a measurement for every certificate computed, and for every advance of a structure using this solver
+     * @param pool Pool to compute batches of at least PARALLEL_THRESHOLD certificates on, null to compute everything on the calling thread
+     */
+    public OneDimensionalKDSSolver(final BracketingNthOrderBrentSolver solver,
+                                   final KineticMetrics metrics,
+                                   final ForkJoinPool pool) {
+        this(solver, metrics, pool, DEFAULT_HORIZON);
+    }
+
+    /**
+     * When no crossing is found within horizon of the time a certificate is solved at, the certificate is not given
+     * an infinite expiry. It is re-solved from the end of the window instead, once time reaches it.
+     * A short horizon makes each certificate cheaper to solve, at the cost of re-solving those that outlive it.
+     *
+     * @param solver Root finder for elements that are not both polynomials
+     * @param metrics Receives a measurement for every certificate computed, and for every advance of a structure using this solver
+     * @param pool Pool to compute batches of at least PARALLEL_THRESHOLD certificates on, null to compute everything on the calling thread
+     * @param horizon How far ahead to search for a crossing. Positive infinity searches MAX_SOLVER_BRACKETING_ITERATIONS windows
+     *                and then treats the elements as never crossing
+     */
+    public OneDimensionalKDSSolver(final BracketingNthOrderBrentSolver solver,
+                                   final KineticMetrics metrics,
+                                   final ForkJoinPool pool,
+                                   final double horizon) {
+        this(solver, metrics, pool, horizon, 0);
+    }
+
+    /**
+     * Elements that oscillate swap back and forth, and the certificate between the same two elements is solved again each
+     * time they become neighbours. With a root cache, a pair that is not solved in closed form is scanned once for every
+     * crossing up to ROOT_CACHE_WINDOW, or the horizon if it is shorter, and later certificates for the pair in that
+     * window are looked up in O(log r). The scan costs more than a single solve, so this only pays off for pairs that
+     * are solved repeatedly. Pairs with a PiecewiseLinearKineticElement are never cached, as appending samples changes
+     * their roots.
+     *
+     * @param solver Root finder for elements that are not both polynomials
+     * @param metrics Receives a measurement for every certificate computed, and for every advance of a structure using this solver
+     * @param pool Pool to compute batches of at least PARALLEL_THRESHOLD certificates on, null to compute everything on the calling thread
+     * @param horizon How far ahead to search for a crossing
+     * @param rootCacheSize Number of pairs whose roots are kept, the least recently used are evicted. 0 for no cache
+     */
+    public OneDimensionalKDSSolver(final BracketingNthOrderBrentSolver solver,
+                                   final KineticMetrics metrics,
+                                   final ForkJoinPool pool,
+                                   final double horizon,
+                                   final int rootCacheSize) {
+        if (!(horizon > 0)) {
+            throw new IllegalArgumentException("Horizon must be positive");
+        }
+        if (rootCacheSize < 0) {
+            throw new IllegalArgumentException("Root cache size must not be negative");
+        }
         this.solver = solver;
+        this.metrics = metrics;
+        this.pool = pool;
+        this.horizon = horizon;
+        this.rootCache = rootCacheSize == 0 ? null : new RootCache(rootCacheSize);
+        this.threadSolvers = ThreadLocal.withInitial(() -> new BracketingNthOrderBrentSolver(
+                solver.getRelativeAccuracy(),
+                solver.getAbsoluteAccuracy(),
+                solver.getFunctionValueAccuracy(),
+                solver.getMaximalOrder()));
+    }
+
+    /**
+     * @return Where measurements of this solver, and the structures using it, are recorded
+     */
+    public KineticMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Runs task for each index from 0 to count - 1, in parallel on the pool if there is one and count is large enough
+     *
+     * @return Results in order of index
+     */
+    protected <T> List<T> computeAll(final int count, final IntFunction<T> task){
+        if(pool == null || count < PARALLEL_THRESHOLD){
+            final List<T> results = new ArrayList<>(count);
+            for(int i = 0; i < count; i++){
+                results.add(task.apply(i));
+            }
+            return results;
+        }
+        try{
+            return pool.submit(() -> IntStream.range(0, count).parallel().mapToObj(task).collect(Collectors.toList())).get();
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e){
+            throw new RuntimeException(e.getCause());
+        }
     }
 
     private static BracketingNthOrderBrentSolver getDefaultSolver(){
@@ -40,7 +185,311 @@ public class OneDimensionalKDSSolver {
     protected Optional<Double> calculateIntersection(final Function<Double, Double> f,
                                                   final Function<Double, Double> g,
                                                   final Double time){
-        return calculateIntersectionInner(f,g,time, time+1, 0);
+        final DoubleUnaryOperator primitiveF = f::apply;
+        final DoubleUnaryOperator primitiveG = g::apply;
+        return calculateIntersection(primitiveF, primitiveG, time.doubleValue());
+    }
+
+    /**
+     * Calculates when f stops having priority over g, after time.
+     *
+     * If both elements are polynomials the crossing is computed in closed form, and an empty result means they never cross.
+     * If one is piecewise linear and the other is piecewise linear or a polynomial, the crossing is computed segment by
+     * segment up to the end of the earliest track that ends after time, and an empty result means they do not cross before it.
+     * Otherwise the numerical solver is used as a fallback, and an empty result means no crossing was found within the bracketing bound,
+     * or before the end of the earliest track to end after time if either element is a PiecewiseLinearKineticElement.
+     *
+     * Only a crossing where f falls below g expires the certificate. If f is already below g at time, time is returned.
+     *
+     * @param f Element that has priority at time
+     * @param g Element that does not have priority at time
+     * @param time Time to search from
+     *
+     * @return Time of the crossing if there is one
+     */
+    protected Optional<Double> calculateIntersection(final OneDimensionalKineticElement<?> f,
+                                                  final OneDimensionalKineticElement<?> g,
+                                                  final double time){
+        if(f instanceof PolynomialKineticElement && g instanceof PolynomialKineticElement){
+            final double crossing = Polynomials.firstNegativeCrossing(
+                    Polynomials.subtract(((PolynomialKineticElement<?>) f).coefficients, ((PolynomialKineticElement<?>) g).coefficients),
+                    time);
+            recordSolve(0, 0, false);
+            return Double.isNaN(crossing) ? Optional.empty() : Optional.of(crossing);
+        }
+        if(PiecewiseLinearKineticElement.isSegmented(f) && PiecewiseLinearKineticElement.isSegmented(g)){
+            final double crossing = PiecewiseLinearKineticElement.firstNegativeCrossing(f, g, time,
+                    PiecewiseLinearKineticElement.nextEnd(f, g, time));
+            recordSolve(0, 0, false);
+            return Double.isNaN(crossing) ? Optional.empty() : Optional.of(crossing);
+        }
+        //A track may be appended to, so a crossing is only searched for up to its end
+        final double trackEnd = PiecewiseLinearKineticElement.nextEnd(f, g, time);
+        final double searchHorizon = trackEnd == Double.POSITIVE_INFINITY
+                ? horizon
+                : Math.min(horizon, Math.max(trackEnd - time - resolution(time), resolution(time)));
+        return calculateCrossing(f.primitiveFunction, g.primitiveFunction, time, searchHorizon);
+    }
+
+    /*
+    Numerical fallback for certificates, the first time after which f - g becomes negative.
+    The search starts one solver tolerance after time. A certificate created at the time of an event would otherwise
+    fail straight away on the root that caused the event, and the two elements would be swapped back and forth.
+    The root is taken on the right side, so that at the expiry time g is already ahead of f.
+     */
+    private Optional<Double> calculateCrossing(final DoubleUnaryOperator f,
+                                               final DoubleUnaryOperator g,
+                                               final double time,
+                                               final double searchHorizon){
+        final UnivariateFunction h = x -> f.applyAsDouble(x) - g.applyAsDouble(x);
+        final double lowerBound = time + resolution(time);
+        if(h.value(lowerBound) < 0){
+            recordSolve(0, 1, false);
+            return Optional.of(time);
+        }
+
+        //Windows widen from a short one up to the horizon, so nearby crossings are bracketed tightly
+        final boolean bounded = searchHorizon != Double.POSITIVE_INFINITY;
+        int iteration = 0;
+        for(; bounded || iteration < MAX_SOLVER_BRACKETING_ITERATIONS; iteration++){
+            final double window = Math.min(Math.pow(BRACKETING_EXPONANT_BASE, iteration), searchHorizon);
+            final double upperBound = lowerBound + window;
+            if(h.value(upperBound) < 0){
+                //One evaluation at the lower bound, and one per upper bound tried
+                final int bracketingEvaluations = iteration + 2;
+                final BracketingNthOrderBrentSolver solver = threadSolvers.get();
+                try{
+                    final double root = solver.solve(SOLVER_MAX_EVAL, h, lowerBound, upperBound, AllowedSolution.RIGHT_SIDE);
+                    recordSolve(iteration + 1, bracketingEvaluations + solver.getEvaluations(), false);
+                    return Optional.of(root);
+                }
+                catch (Exception e){
+                    recordSolve(iteration + 1, bracketingEvaluations + solver.getEvaluations(), true);
+                    return Optional.empty();
+                }
+            }
+            if(window >= searchHorizon){
+                iteration++;
+                break;
+            }
+        }
+        recordSolve(iteration, iteration + 1, true);
+        return Optional.empty();
+    }
+
+    /**
+     * Certificate that f has priority over g from time. If no crossing is found, it is marked recheck at the end of the horizon.
+     *
+     * If the elements declare bounds on their rates of change, and the gap between them now shows they cannot meet
+     * for at least MIN_PREFILTER_WINDOW, no crossing is searched for. The certificate is marked recheck at the earliest
+     * time they could meet instead, or is valid forever if they can never close the gap.
+     *
+     * @param left Left of the certificate
+     * @param right Right of the certificate
+     * @param f Element that has priority at time
+     * @param g Element that does not have priority at time
+     * @param time Time to search from
+     */
+    protected <E> Certificate<E> getCertificate(final E left,
+                                                final E right,
+                                                final OneDimensionalKineticElement<?> f,
+                                                final OneDimensionalKineticElement<?> g,
+                                                final double time){
+        return getCertificate(left, right, f, g, time, true);
+    }
+
+    /*
+    As getCertificate, without the root cache if useRootCache is false.
+    For elements built for a single certificate, whose roots would never be looked up again
+     */
+    <E> Certificate<E> getCertificate(final E left,
+                                      final E right,
+                                      final OneDimensionalKineticElement<?> f,
+                                      final OneDimensionalKineticElement<?> g,
+                                      final double time,
+                                      final boolean useRootCache){
+        final double safeUntil = safeUntil(f, g, time);
+        if(safeUntil - time >= Math.min(MIN_PREFILTER_WINDOW, horizon)){
+            recordSolve(0, 2, false);
+            return safeUntil == Double.POSITIVE_INFINITY
+                    ? new Certificate<>(left, right)
+                    : new Certificate<>(left, right, safeUntil, true);
+        }
+        if(useRootCache && rootCache != null && isCacheable(f, g)){
+            return getCachedCertificate(left, right, f, g, time);
+        }
+        final Optional<Double> crossing = calculateIntersection(f, g, time);
+        if(crossing.isPresent()){
+            return new Certificate<>(left, right, crossing.get());
+        }
+        final double recheck = recheckTime(f, g, time);
+        return recheck == Double.POSITIVE_INFINITY
+                ? new Certificate<>(left, right)
+                : new Certificate<>(left, right, recheck, true);
+    }
+
+    /*
+    Time before which f cannot fall below g, given the gap between them at time and the bounds on their rates of change.
+    f - g shrinks no faster than g.maxRate - f.minRate. Time itself if nothing can be ruled out, as for elements solved in closed form
+     */
+    private double safeUntil(final OneDimensionalKineticElement<?> f,
+                             final OneDimensionalKineticElement<?> g,
+                             final double time){
+        final double closingRate = g.maxRate - f.minRate;
+        if(closingRate == Double.POSITIVE_INFINITY || isClosedForm(f, g)){
+            return time;
+        }
+        final double gap = f.cachedValueAt(time) - g.cachedValueAt(time);
+        if(!(gap > 0)){
+            return time;
+        }
+        return closingRate <= 0 ? Double.POSITIVE_INFINITY : time + gap / closingRate;
+    }
+
+    private static boolean isClosedForm(final OneDimensionalKineticElement<?> f, final OneDimensionalKineticElement<?> g){
+        //Polynomials are a single segment
+        return PiecewiseLinearKineticElement.isSegmented(f) && PiecewiseLinearKineticElement.isSegmented(g);
+    }
+
+    /*
+    Number of pairs whose roots are cached
+     */
+    int cachedPairs(){
+        return rootCache == null ? 0 : rootCache.size();
+    }
+
+    /*
+    Samples appended to a track change its roots, so pairs with a track are not cached
+     */
+    private static boolean isCacheable(final OneDimensionalKineticElement<?> f, final OneDimensionalKineticElement<?> g){
+        return !isClosedForm(f, g)
+                && !(f instanceof PiecewiseLinearKineticElement)
+                && !(g instanceof PiecewiseLinearKineticElement);
+    }
+
+    /*
+    Certificate from the cached roots of f and g, scanning the window from time if it is not cached.
+    If there is no crossing in the window the certificate is rechecked at its end, when the next window is scanned
+     */
+    private <E> Certificate<E> getCachedCertificate(final E left,
+                                                    final E right,
+                                                    final OneDimensionalKineticElement<?> f,
+                                                    final OneDimensionalKineticElement<?> g,
+                                                    final double time){
+        final double lowerBound = time + resolution(time);
+        RootCache.Roots roots = rootCache.get(f, g);
+        if(roots != null && roots.covers(lowerBound)){
+            recordSolve(0, 0, false);
+        }
+        else{
+            roots = scanRoots(f, g, lowerBound);
+            rootCache.put(f, g, roots);
+        }
+        final double crossing = roots.firstNegativeCrossing(f, lowerBound);
+        if(crossing == lowerBound){
+            return new Certificate<>(left, right, time);
+        }
+        return Double.isNaN(crossing)
+                ? new Certificate<>(left, right, roots.to, true)
+                : new Certificate<>(left, right, crossing);
+    }
+
+    /*
+    Every sign change of f - g from lowerBound to the end of the window, found in steps of the first bracketing window.
+    As with calculateCrossing, a dip and recovery within one step is not seen
+     */
+    private RootCache.Roots scanRoots(final OneDimensionalKineticElement<?> f,
+                                      final OneDimensionalKineticElement<?> g,
+                                      final double lowerBound){
+        final UnivariateFunction h = x -> f.valueAt(x) - g.valueAt(x);
+        final double window = Math.min(ROOT_CACHE_WINDOW, horizon);
+        final double step = Math.min(Math.pow(BRACKETING_EXPONANT_BASE, 0), window);
+        final int steps = (int) Math.ceil(window / step);
+        final BracketingNthOrderBrentSolver solver = threadSolvers.get();
+
+        final List<Double> roots = new ArrayList<>();
+        final List<Boolean> falling = new ArrayList<>();
+        int evaluations = 1;
+        double a = lowerBound;
+        double ha = h.value(a);
+        final boolean negativeAtFrom = ha < 0;
+        for(int i = 1; i <= steps; i++){
+            final double b = i == steps ? lowerBound + window : lowerBound + i * step;
+            final double hb = h.value(b);
+            evaluations++;
+            if((ha < 0) != (hb < 0)){
+                try{
+                    roots.add(solver.solve(SOLVER_MAX_EVAL, h, a, b, AllowedSolution.RIGHT_SIDE));
+                    falling.add(hb < 0);
+                    evaluations += solver.getEvaluations();
+                }
+                catch (Exception e){
+                    //The sign change is still known to be in [a, b], b is on the far side of it
+                    roots.add(b);
+                    falling.add(hb < 0);
+                }
+            }
+            a = b;
+            ha = hb;
+        }
+        recordSolve(steps, evaluations, false);
+
+        final double[] rootTimes = new double[roots.size()];
+        final boolean[] rootFalling = new boolean[roots.size()];
+        for(int i = 0; i < rootTimes.length; i++){
+            rootTimes[i] = roots.get(i);
+            rootFalling[i] = falling.get(i);
+        }
+        return new RootCache.Roots(f, lowerBound, lowerBound + window, negativeAtFrom, rootTimes, rootFalling);
+    }
+
+    /**
+     * When calculateIntersection finds no crossing of f below g, the certificate between them has to be re-solved from this time
+     *
+     * @param f Element that has priority at time
+     * @param g Element that does not have priority at time
+     * @param time Time the crossing was searched from
+     *
+     * @return End of the window that was searched, or of the earliest track to end, positive infinity if f and g are known
+     *         never to cross or there is no horizon
+     */
+    protected double recheckTime(final OneDimensionalKineticElement<?> f,
+                                 final OneDimensionalKineticElement<?> g,
+                                 final double time){
+        if(f instanceof PolynomialKineticElement && g instanceof PolynomialKineticElement){
+            return Double.POSITIVE_INFINITY;
+        }
+        //Samples may be appended after the end of a track, so the certificate is re-solved there
+        final double trackEnd = PiecewiseLinearKineticElement.nextEnd(f, g, time);
+        if(horizon == Double.POSITIVE_INFINITY || PiecewiseLinearKineticElement.isSegmented(f) && PiecewiseLinearKineticElement.isSegmented(g)){
+            return trackEnd;
+        }
+        return Math.min(trackEnd, time + resolution(time) + horizon);
+    }
+
+    private void recordSolve(final int bracketingIterations, final int evaluations, final boolean gaveUp){
+        if(metrics.isEnabled()){
+            metrics.recordSolve(bracketingIterations, evaluations, gaveUp);
+        }
+    }
+
+    /**
+     * @param time Time at which a root is found
+     *
+     * @return Smallest interval around time that the solver can resolve
+     */
+    protected double resolution(final double time){
+        return Math.max(solver.getAbsoluteAccuracy(), solver.getRelativeAccuracy() * Math.abs(time));
+    }
+
+    /*
+    Primitive path, none of the function evaluations made by the solver are boxed
+     */
+    protected Optional<Double> calculateIntersection(final DoubleUnaryOperator f,
+                                                  final DoubleUnaryOperator g,
+                                                  final double time){
+        final UnivariateFunction h = x -> f.applyAsDouble(x) - g.applyAsDouble(x);
+        return calculateIntersectionInner(h, time, time+1, 0);
     }
 
     protected Optional<Double> calculateIntersectionInner(final Function<Double, Double> f,
@@ -48,17 +497,23 @@ public class OneDimensionalKDSSolver {
                                                        final Double time,
                                                        final Double upperBound,
                                                        final Integer iteration){
+        final UnivariateFunction h = x -> f.apply(x) - g.apply(x);
+        return calculateIntersectionInner(h, time, upperBound, iteration);
+    }
+
+    protected Optional<Double> calculateIntersectionInner(final UnivariateFunction h,
+                                                       final double time,
+                                                       final double upperBound,
+                                                       final int iteration){
         if(iteration >= MAX_SOLVER_BRACKETING_ITERATIONS){
             return Optional.empty();
         }
 
-        final UnivariateFunction h = x -> f.apply(x) - g.apply(x);
-
         try{
-            return Optional.of(solver.solve(SOLVER_MAX_EVAL, h, time, upperBound, AllowedSolution.LEFT_SIDE));
+            return Optional.of(threadSolvers.get().solve(SOLVER_MAX_EVAL, h, time, upperBound, AllowedSolution.LEFT_SIDE));
         }
         catch (NoBracketingException ex){
-            return calculateIntersectionInner(f,g, time, time + Math.pow(BRACKETING_EXPONANT_BASE, iteration), iteration+1);
+            return calculateIntersectionInner(h, time, time + Math.pow(BRACKETING_EXPONANT_BASE, iteration), iteration+1);
         }
         catch (Exception e){
             return Optional.empty();
@@ -0,0 +1,284 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Maintains the closest pair of elements moving in one dimension.
+ *
+ * The closest pair is always adjacent in sorted order, so the elements are kept in an event driven kinetic sorted list
+ * and the gap between each pair of neighbours in a minimum kinetic tournament. Each swap in the list replaces the three
+ * gaps around it, at O(log n), and the tournament's winner is the closest pair. Gaps between polynomial elements are
+ * themselves polynomials, so their certificates are solved exactly.
+ *
+ * @see KineticClosestPair for elements moving in two dimensions
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class OneDimensionalKineticClosestPair<E> implements KineticDataStructure<E> {
+
+    private final KineticSortedList<Node> list;
+    private final KineticTournament<Gap> gaps;
+    private final IdentityHashMap<OneDimensionalKineticElement<E>, Node> nodes = new IdentityHashMap<>();
+    private final KineticEventPublisher<E> events = new KineticEventPublisher<>();
+
+    //Swaps of the last step, always collected as every swap changes the gaps
+    private final List<KineticEvent<Node>> swaps = new ArrayList<>();
+
+    private double time;
+
+    public OneDimensionalKineticClosestPair(final Double startTime) {
+        this(startTime, Collections.emptyList());
+    }
+
+    public OneDimensionalKineticClosestPair(final Double startTime,
+                                            final Collection<OneDimensionalKineticElement<E>> elements) {
+        this(startTime, elements, new OneDimensionalKDSSolver());
+    }
+
+    public OneDimensionalKineticClosestPair(final Double startTime,
+                                            final Collection<OneDimensionalKineticElement<E>> elements,
+                                            final OneDimensionalKDSSolver solver) {
+        this.time = startTime;
+        final List<OneDimensionalKineticElement<Node>> listElements = new ArrayList<>(elements.size());
+        for (final OneDimensionalKineticElement<E> element : elements) {
+            if (!nodes.containsKey(element)) {
+                final Node node = new Node(element);
+                nodes.put(element, node);
+                listElements.add(node.listElement);
+            }
+        }
+        this.list = new KineticSortedList<>(startTime, listElements, solver, KineticSortedList.Storage.ARRAY, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+        this.list.addListener(swaps::addAll);
+
+        final List<OneDimensionalKineticElement<Gap>> initialGaps = new ArrayList<>();
+        for (int i = 0; i < list.size(); i++) {
+            final Node node = list.get(i).element;
+            node.above = i == 0 ? null : list.get(i - 1).element;
+            node.below = i == list.size() - 1 ? null : list.get(i + 1).element;
+            if (node.below != null) {
+                node.gapBelow = new Gap(node, node.below);
+                initialGaps.add(node.gapBelow.element);
+            }
+        }
+        this.gaps = new KineticTournament<>(startTime, KineticTournament.Order.MINIMUM, initialGaps, solver);
+    }
+
+    /**
+     * @return Boolean indicating if the closest pair changed
+     */
+    @Override
+    public boolean advance(final double t) {
+        if (t < time) {
+            throw new RuntimeException("Cannot reverse time");
+        } else if (t == time) {
+            return false;
+        }
+
+        final KineticPair<OneDimensionalKineticElement<E>> before = getClosestPair();
+        KineticPair<OneDimensionalKineticElement<E>> current = before;
+        while (true) {
+            final double next = nextEventTime();
+            if (next >= t) {
+                break;
+            }
+            //Steps just past the next event, so each swap is applied to the gaps when it happens
+            final double step = Math.min(t, Math.nextUp(next));
+            gaps.advance(step);
+            list.advance(step);
+            this.time = step;
+            for (final KineticEvent<Node> swap : swaps) {
+                swap(swap.right, swap.left);
+            }
+            swaps.clear();
+            current = recordChange(current);
+        }
+        gaps.advance(t);
+        list.advance(t);
+        this.time = t;
+        current = recordChange(current);
+        events.publish();
+        return !samePair(before, current);
+    }
+
+    @Override
+    public double getTime() {
+        return time;
+    }
+
+    @Override
+    public double nextEventTime() {
+        return Math.min(list.nextEventTime(), gaps.nextEventTime());
+    }
+
+    /**
+     * Listeners are told each time the closest pair changes, as a CLOSEST_PAIR_CHANGED event
+     */
+    @Override
+    public void addListener(final KineticEventListener<E> listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(final KineticEventListener<E> listener) {
+        events.removeListener(listener);
+    }
+
+    public boolean add(final OneDimensionalKineticElement<E> element) {
+        if (nodes.containsKey(element)) {
+            return false;
+        }
+        final Node node = new Node(element);
+        nodes.put(element, node);
+        list.add(node.listElement);
+
+        final int rank = list.rank(node.listElement);
+        final Node above = rank == 0 ? null : list.get(rank - 1).element;
+        final Node below = rank == list.size() - 1 ? null : list.get(rank + 1).element;
+        if (above != null) {
+            removeGap(above);
+        }
+        link(above, node);
+        link(node, below);
+        return true;
+    }
+
+    public boolean remove(final OneDimensionalKineticElement<E> element) {
+        final Node node = nodes.remove(element);
+        if (node == null) {
+            return false;
+        }
+        list.remove(list.rank(node.listElement));
+        final Node above = node.above;
+        final Node below = node.below;
+        if (above != null) {
+            removeGap(above);
+        }
+        removeGap(node);
+        link(above, below);
+        return true;
+    }
+
+    public boolean contains(final OneDimensionalKineticElement<E> element) {
+        return nodes.containsKey(element);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * @return The closest pair, higher priority element first, null if there are fewer than two elements
+     */
+    public KineticPair<OneDimensionalKineticElement<E>> getClosestPair() {
+        final OneDimensionalKineticElement<Gap> closest = gaps.peek();
+        return closest == null ? null : new KineticPair<>(closest.element.upper.element, closest.element.lower.element);
+    }
+
+    /**
+     * @return Distance between the closest pair, Double.POSITIVE_INFINITY if there are fewer than two elements
+     */
+    public double getDistance() {
+        final OneDimensionalKineticElement<Gap> closest = gaps.peek();
+        return closest == null ? Double.POSITIVE_INFINITY : Math.abs(closest.valueAt(time));
+    }
+
+    /*
+    Upper was directly above lower and they swapped, so the three gaps around them are replaced
+     */
+    private void swap(final Node upper, final Node lower) {
+        final Node above = upper.above;
+        final Node below = lower.below;
+        if (above != null) {
+            removeGap(above);
+        }
+        removeGap(upper);
+        removeGap(lower);
+        link(above, lower);
+        link(lower, upper);
+        link(upper, below);
+    }
+
+    private void link(final Node upper, final Node lower) {
+        if (upper != null) {
+            upper.below = lower;
+        }
+        if (lower != null) {
+            lower.above = upper;
+        }
+        if (upper != null && lower != null) {
+            upper.gapBelow = new Gap(upper, lower);
+            gaps.add(upper.gapBelow.element);
+        }
+    }
+
+    private void removeGap(final Node upper) {
+        if (upper.gapBelow != null) {
+            gaps.remove(upper.gapBelow.element);
+            upper.gapBelow = null;
+        }
+    }
+
+    private KineticPair<OneDimensionalKineticElement<E>> recordChange(final KineticPair<OneDimensionalKineticElement<E>> previous) {
+        final KineticPair<OneDimensionalKineticElement<E>> current = getClosestPair();
+        if (current != null && !samePair(previous, current)) {
+            events.record(KineticEvent.Type.CLOSEST_PAIR_CHANGED, current.first.element, current.second.element, time);
+        }
+        return current;
+    }
+
+    private static boolean samePair(final KineticPair<?> a, final KineticPair<?> b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private final class Node {
+
+        private final OneDimensionalKineticElement<E> element;
+
+        //The same motion with this node as its payload, so swaps in the list report nodes
+        private final OneDimensionalKineticElement<Node> listElement;
+
+        private Node above;
+        private Node below;
+        private Gap gapBelow;
+
+        @SuppressWarnings("unchecked")
+        private Node(final OneDimensionalKineticElement<E> element) {
+            this.element = element;
+            this.listElement = element instanceof PolynomialKineticElement
+                    ? new PolynomialKineticElement<>(this, ((PolynomialKineticElement<E>) element).coefficients)
+                    : new OneDimensionalKineticElement<>(this, element.function, element.primitiveFunction, element.minRate, element.maxRate);
+        }
+    }
+
+    private final class Gap {
+
+        private final Node upper;
+        private final Node lower;
+
+        //upper - lower, never negative while they are in order
+        private final OneDimensionalKineticElement<Gap> element;
+
+        @SuppressWarnings("unchecked")
+        private Gap(final Node upper, final Node lower) {
+            this.upper = upper;
+            this.lower = lower;
+            if (upper.listElement instanceof PolynomialKineticElement && lower.listElement instanceof PolynomialKineticElement) {
+                this.element = new PolynomialKineticElement<>(this, Polynomials.subtract(
+                        ((PolynomialKineticElement<Node>) upper.listElement).coefficients,
+                        ((PolynomialKineticElement<Node>) lower.listElement).coefficients));
+            } else {
+                this.element = OneDimensionalKineticElement.of(this, t -> upper.listElement.valueAt(t) - lower.listElement.valueAt(t),
+                        upper.listElement.minRate - lower.listElement.maxRate, upper.listElement.maxRate - lower.listElement.minRate);
+            }
+        }
+    }
+}
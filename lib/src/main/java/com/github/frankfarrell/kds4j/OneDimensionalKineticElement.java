@@ -1,10 +1,16 @@
 package com.github.frankfarrell.kds4j;
 
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 
 /**
  * General element for one dimensional kinetic data structures.
  *
+ * The kinetic data structures only ever evaluate the primitive view of the function, see {@link #valueAt(double)}.
+ * Elements created from a boxed Function are adapted to it, elements created through {@link #of(Object, DoubleUnaryOperator)}
+ * are evaluated without any boxing.
+ *
  * @author frankfarrell
  */
 public class OneDimensionalKineticElement<E> {
@@ -26,12 +32,165 @@ public class OneDimensionalKineticElement<E> {
      */
     public final Function<Double, Double> function;
 
+    /**
+     * Primitive view of function, f(t) = y without boxing.
+     */
+    public final DoubleUnaryOperator primitiveFunction;
+
+    /**
+     * Lower and upper bounds on the rate of change of function over all time, infinite if they are not known.
+     *
+     * When the bounds of two elements show that they cannot meet for a while from the gap between them now,
+     * the solver schedules a recheck rather than searching for a crossing.
+     */
+    public final double minRate;
+    public final double maxRate;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<OneDimensionalKineticElement> CACHE_VERSION =
+            AtomicLongFieldUpdater.newUpdater(OneDimensionalKineticElement.class, "cacheVersion");
+
+    /*
+    Values at the last two times read through cachedValueAt, so an element shared by two structures at different times
+    is cached for both. Each write replaces the older slot. The version is odd while one writer replaces a time and value,
+    so a reader on another thread, such as a solver batch, sees a matching pair or a miss. Nothing is allocated
+     */
+    private volatile long cacheVersion;
+    private volatile double firstCachedTime = Double.NaN;
+    private volatile double firstCachedValue;
+    private volatile double secondCachedTime = Double.NaN;
+    private volatile double secondCachedValue;
+
     /*
     Where function is f(time) -> priority
     Eg, pass in time and get back a priority
      */
     public OneDimensionalKineticElement(E element, Function<Double, Double> function) {
+        this(element, function, function::apply);
+    }
+
+    protected OneDimensionalKineticElement(final E element,
+                                           final Function<Double, Double> function,
+                                           final DoubleUnaryOperator primitiveFunction) {
+        this(element, function, primitiveFunction, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    protected OneDimensionalKineticElement(final E element,
+                                           final Function<Double, Double> function,
+                                           final DoubleUnaryOperator primitiveFunction,
+                                           final double minRate,
+                                           final double maxRate) {
+        if (!(minRate <= maxRate)) {
+            throw new IllegalArgumentException("minRate must not be greater than maxRate");
+        }
         this.element = element;
         this.function = function;
+        this.primitiveFunction = primitiveFunction;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+    }
+
+    /**
+     * Creates an element whose priority function is evaluated without boxing
+     *
+     * @param element The element to store in the data structure
+     * @param function Function f(t) = y over time
+     * @param <E> Type of element
+     *
+     * @return A new element
+     */
+    public static <E> OneDimensionalKineticElement<E> of(final E element, final DoubleUnaryOperator function) {
+        return new OneDimensionalKineticElement<>(element, function::applyAsDouble, function);
+    }
+
+    /**
+     * Creates an element whose priority never changes faster than maxSpeed, in either direction
+     *
+     * @param element The element to store in the data structure
+     * @param function Function f(t) = y over time
+     * @param maxSpeed Bound on |f'(t)| over all time
+     * @param <E> Type of element
+     *
+     * @return A new element
+     */
+    public static <E> OneDimensionalKineticElement<E> of(final E element, final DoubleUnaryOperator function, final double maxSpeed) {
+        if (!(maxSpeed >= 0)) {
+            throw new IllegalArgumentException("maxSpeed must not be negative");
+        }
+        return of(element, function, -maxSpeed, maxSpeed);
+    }
+
+    /**
+     * Creates an element whose rate of change is always between minRate and maxRate
+     *
+     * @param element The element to store in the data structure
+     * @param function Function f(t) = y over time
+     * @param minRate Lower bound on f'(t) over all time
+     * @param maxRate Upper bound on f'(t) over all time
+     * @param <E> Type of element
+     *
+     * @return A new element
+     */
+    public static <E> OneDimensionalKineticElement<E> of(final E element,
+                                                         final DoubleUnaryOperator function,
+                                                         final double minRate,
+                                                         final double maxRate) {
+        return new OneDimensionalKineticElement<>(element, function::applyAsDouble, function, minRate, maxRate);
+    }
+
+    /**
+     * @param time Time to evaluate at
+     *
+     * @return Priority of the element at time
+     */
+    public double valueAt(final double time) {
+        return primitiveFunction.applyAsDouble(time);
+    }
+
+    /**
+     * Same as valueAt, but the value is kept until the element is read at another time. The structures read their elements
+     * at their current time through this, so between advances sorting, searching and reading priorities do not evaluate
+     * the function again.
+     *
+     * @param time Time to evaluate at
+     *
+     * @return Priority of the element at time
+     */
+    public double cachedValueAt(final double time) {
+        final long version = cacheVersion;
+        if ((version & 1) == 0) {
+            final double cached = firstCachedTime == time
+                    ? firstCachedValue
+                    : secondCachedTime == time ? secondCachedValue : Double.NaN;
+            if (!Double.isNaN(cached) && cacheVersion == version) {
+                return cached;
+            }
+        }
+        final double value = valueAt(time);
+        //If another thread is writing, or has written since, its value is kept and this one is not cached
+        if ((version & 1) == 0 && CACHE_VERSION.compareAndSet(this, version, version + 1)) {
+            if ((version & 2) == 0) {
+                firstCachedTime = time;
+                firstCachedValue = value;
+            } else {
+                secondCachedTime = time;
+                secondCachedValue = value;
+            }
+            cacheVersion = version + 2;
+        }
+        return value;
+    }
+
+    /*
+    For elements whose values can change, such as a track that samples are appended to
+     */
+    void clearCachedValue() {
+        long version = cacheVersion;
+        while ((version & 1) != 0 || !CACHE_VERSION.compareAndSet(this, version, version + 1)) {
+            version = cacheVersion;
+        }
+        firstCachedTime = Double.NaN;
+        secondCachedTime = Double.NaN;
+        cacheVersion = version + 2;
     }
 }
@@ -0,0 +1,300 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.Arrays;
+
+/**
+ * Element whose priority is interpolated linearly between samples, eg a GPS or telemetry track.
+ * Before the first sample and after the last the priority holds the nearest sample's value.
+ *
+ * Certificates with another piecewise linear element, or a PolynomialKineticElement, are not computed with the
+ * Brent solver. The two sequences of segments are walked together from the current time and each pair of segments is
+ * solved exactly, so a crossing costs O(segments) with no iteration, and never misses a crossing between two samples.
+ * A segment against a polynomial of degree two or more is solved with the polynomial's closed form.
+ *
+ * Samples can be appended as they stream in. A certificate with a track, whatever the other element, is only computed up
+ * to the end of the track, and is re-solved there, so appending never invalidates an existing certificate. Samples
+ * appended after time has already passed the end of the track are not seen by existing certificates, call
+ * updateTrajectory with the element itself to re-solve them.
+ * Appending must not happen during an advance.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class PiecewiseLinearKineticElement<E> extends OneDimensionalKineticElement<E> {
+
+    //Steps taken from a computed crossing onto the first double at which the difference is negative
+    private static final int MAX_POLISH_STEPS = 64;
+
+    private final Track track;
+
+    /**
+     * @param element The element to store in the data structure
+     * @param times Times of the samples, strictly increasing
+     * @param values Value of the element at each sample time
+     */
+    public PiecewiseLinearKineticElement(final E element, final double[] times, final double[] values) {
+        this(new Track(times, values), element);
+    }
+
+    private PiecewiseLinearKineticElement(final Track track, final E element) {
+        super(element, track::valueAt, track::valueAt);
+        this.track = track;
+    }
+
+    /**
+     * Extends the track with a sample after its current end
+     *
+     * @param time Time of the sample, after the last sample's
+     * @param value Value of the element at time
+     */
+    public void append(final double time, final double value) {
+        track.append(time, value);
+        //The value held after the old end of the track has changed
+        clearCachedValue();
+    }
+
+    /**
+     * @return Number of samples in the track
+     */
+    public int samples() {
+        return track.length;
+    }
+
+    public double getStartTime() {
+        return track.times[0];
+    }
+
+    /**
+     * @return Time of the last sample, after which the element holds its last value until more samples are appended
+     */
+    public double getEndTime() {
+        return track.times[track.length - 1];
+    }
+
+    @Override
+    public double valueAt(final double time) {
+        return track.valueAt(time);
+    }
+
+    /*
+    Piecewise linear elements, and polynomials, which are a single segment
+     */
+    static boolean isSegmented(final OneDimensionalKineticElement<?> element) {
+        return element instanceof PiecewiseLinearKineticElement || element instanceof PolynomialKineticElement;
+    }
+
+    /*
+    Earliest end of either track after time, positive infinity if both tracks have ended or are lines
+     */
+    static double nextEnd(final OneDimensionalKineticElement<?> f, final OneDimensionalKineticElement<?> g, final double time) {
+        return Math.min(endAfter(f, time), endAfter(g, time));
+    }
+
+    private static double endAfter(final OneDimensionalKineticElement<?> element, final double time) {
+        if (element instanceof PiecewiseLinearKineticElement) {
+            final double end = ((PiecewiseLinearKineticElement<?>) element).getEndTime();
+            return end > time ? end : Double.POSITIVE_INFINITY;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * First time from time, up to until, after which f - g becomes negative.
+     * Agrees with Polynomials.firstNegativeCrossing, the returned time is the first double at which f is below g
+     *
+     * @return Time of the crossing, or NaN if f does not fall below g before until
+     */
+    static double firstNegativeCrossing(final OneDimensionalKineticElement<?> f,
+                                        final OneDimensionalKineticElement<?> g,
+                                        final double time,
+                                        final double until) {
+        final Cursor fCursor = new Cursor(f, time);
+        final Cursor gCursor = new Cursor(g, time);
+        double start = time;
+        while (start <= until) {
+            final double end = Math.min(fCursor.nextBreak(), gCursor.nextBreak());
+            if (fCursor.isCurved() || gCursor.isCurved()) {
+                final double crossing = Polynomials.firstNegativeCrossing(
+                        Polynomials.subtract(fCursor.coefficients(), gCursor.coefficients()), start);
+                if (crossing < end && crossing <= until) {
+                    return crossing == time ? crossing : polish(f, g, crossing);
+                }
+            } else {
+                final double difference = fCursor.valueAt(start) - gCursor.valueAt(start);
+                final double slope = fCursor.slope() - gCursor.slope();
+                if (difference < 0 || (difference == 0 && slope < 0)) {
+                    return start == time ? start : polish(f, g, start);
+                }
+                if (slope < 0) {
+                    final double crossing = start + difference / -slope;
+                    if (crossing < end && crossing <= until) {
+                        return polish(f, g, crossing);
+                    }
+                }
+            }
+            if (end == Double.POSITIVE_INFINITY) {
+                break;
+            }
+            fCursor.advanceTo(end);
+            gCursor.advanceTo(end);
+            start = end;
+        }
+        return Double.NaN;
+    }
+
+    /*
+    Steps onto the first double from crossing at which f is below g, when evaluated the way the structures evaluate them
+     */
+    private static double polish(final OneDimensionalKineticElement<?> f,
+                                 final OneDimensionalKineticElement<?> g,
+                                 final double crossing) {
+        double result = crossing;
+        for (int i = 0; i < MAX_POLISH_STEPS && f.valueAt(result) - g.valueAt(result) >= 0; i++) {
+            result = Math.nextUp(result);
+        }
+        return result;
+    }
+
+    /*
+    Samples in primitive arrays, grown by doubling as they are appended
+     */
+    private static final class Track {
+
+        private double[] times;
+        private double[] values;
+        private int length;
+
+        private Track(final double[] times, final double[] values) {
+            if (times.length != values.length) {
+                throw new IllegalArgumentException("There must be one value for each time");
+            }
+            if (times.length == 0) {
+                throw new IllegalArgumentException("A track must have at least one sample");
+            }
+            for (int i = 1; i < times.length; i++) {
+                if (!(times[i] > times[i - 1])) {
+                    throw new IllegalArgumentException("Sample times must be strictly increasing");
+                }
+            }
+            this.times = Arrays.copyOf(times, times.length);
+            this.values = Arrays.copyOf(values, values.length);
+            this.length = times.length;
+        }
+
+        private void append(final double time, final double value) {
+            if (!(time > times[length - 1])) {
+                throw new IllegalArgumentException("Samples must be appended after the end of the track");
+            }
+            if (length == times.length) {
+                times = Arrays.copyOf(times, length * 2);
+                values = Arrays.copyOf(values, length * 2);
+            }
+            times[length] = time;
+            values[length] = value;
+            length++;
+        }
+
+        /*
+        Index of the last sample at or before time, -1 if time is before the first sample
+         */
+        private int segmentAt(final double time) {
+            int low = 0;
+            int high = length - 1;
+            if (time < times[0]) {
+                return -1;
+            }
+            while (low < high) {
+                final int middle = (low + high + 1) >>> 1;
+                if (times[middle] <= time) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+
+        private double valueAt(final double time) {
+            return valueAt(segmentAt(time), time);
+        }
+
+        private double valueAt(final int segment, final double time) {
+            if (segment < 0) {
+                return values[0];
+            }
+            if (segment >= length - 1) {
+                return values[length - 1];
+            }
+            return values[segment] + (values[segment + 1] - values[segment]) * (time - times[segment]) / (times[segment + 1] - times[segment]);
+        }
+
+        private double slope(final int segment) {
+            if (segment < 0 || segment >= length - 1) {
+                return 0.0;
+            }
+            return (values[segment + 1] - values[segment]) / (times[segment + 1] - times[segment]);
+        }
+    }
+
+    /*
+    Walks forward through the segments of a track, or along a polynomial, without searching for each time
+     */
+    private static final class Cursor {
+
+        private final Track track;
+        private final double[] line;
+        private int segment;
+
+        private Cursor(final OneDimensionalKineticElement<?> element, final double time) {
+            if (element instanceof PiecewiseLinearKineticElement) {
+                this.track = ((PiecewiseLinearKineticElement<?>) element).track;
+                this.line = null;
+                this.segment = track.segmentAt(time);
+            } else {
+                this.track = null;
+                this.line = ((PolynomialKineticElement<?>) element).coefficients;
+            }
+        }
+
+        private double nextBreak() {
+            if (track == null || segment >= track.length - 1) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return track.times[segment + 1];
+        }
+
+        private void advanceTo(final double time) {
+            while (track != null && segment < track.length - 1 && track.times[segment + 1] <= time) {
+                segment++;
+            }
+        }
+
+        private double valueAt(final double time) {
+            return track == null ? Polynomials.evaluate(line, time) : track.valueAt(segment, time);
+        }
+
+        //A polynomial of degree two or more, whose crossings are not solved as lines
+        private boolean isCurved() {
+            return track == null && line.length > 2;
+        }
+
+        /*
+        Coefficients of the current segment, or of the polynomial
+         */
+        private double[] coefficients() {
+            if (track == null) {
+                return line;
+            }
+            final double at = track.times[Math.max(segment, 0)];
+            final double slope = slope();
+            return Polynomials.trim(new double[]{track.valueAt(segment, at) - slope * at, slope});
+        }
+
+        private double slope() {
+            if (track == null) {
+                return line.length > 1 ? line[1] : 0.0;
+            }
+            return track.slope(segment);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.Arrays;
+
+/**
+ * Element whose priority is a polynomial in time, f(t) = c0 + c1*t + c2*t^2 + ...
+ *
+ * Certificates between two polynomial elements are not computed numerically with the Brent solver,
+ * instead the first crossing of f - g is computed directly from the coefficients.
+ * This gives exact expiry times, and pairs that never cross get a certificate that is provably valid forever.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+public class PolynomialKineticElement<E> extends OneDimensionalKineticElement<E> {
+
+    /*
+    Coefficients in ascending order of power, without trailing zeros
+     */
+    final double[] coefficients;
+
+    /**
+     * @param element The element to store in the data structure
+     * @param coefficients Coefficients in ascending order of power, eg c0, c1, c2 for c0 + c1*t + c2*t^2
+     */
+    public PolynomialKineticElement(final E element, final double... coefficients) {
+        this(Polynomials.trim(coefficients), element);
+    }
+
+    private PolynomialKineticElement(final double[] coefficients, final E element) {
+        super(element, t -> Polynomials.evaluate(coefficients, t), t -> Polynomials.evaluate(coefficients, t));
+        this.coefficients = coefficients;
+    }
+
+    /**
+     * @param element The element to store in the data structure
+     * @param initialValue Value at time 0
+     * @param rate Rate of change of the value
+     * @param <E> Type of element
+     *
+     * @return An element moving linearly, f(t) = initialValue + rate * t
+     */
+    public static <E> PolynomialKineticElement<E> linear(final E element, final double initialValue, final double rate) {
+        return new PolynomialKineticElement<>(element, initialValue, rate);
+    }
+
+    /**
+     * @return Degree of the polynomial, -1 if it is identically zero
+     */
+    public int degree() {
+        return coefficients.length - 1;
+    }
+
+    /**
+     * @return Copy of the coefficients in ascending order of power
+     */
+    public double[] getCoefficients() {
+        return Arrays.copyOf(coefficients, coefficients.length);
+    }
+
+    @Override
+    public double valueAt(final double time) {
+        return Polynomials.evaluate(coefficients, time);
+    }
+}
@@ -0,0 +1,269 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.Arrays;
+
+/**
+ * Root finding for polynomials given as coefficients in ascending order of power.
+ *
+ * Degree one and two are solved in closed form. For higher degrees the roots of the derivative split the real line
+ * into intervals on which the polynomial is monotone, and each sign change is then bisected to machine precision.
+ * Roots of even multiplicity, where the polynomial touches zero but does not change sign, are never reported as crossings.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+final class Polynomials {
+
+    private static final double[] NO_ROOTS = new double[0];
+
+    //Upper bound on bisection steps, more than enough to reach adjacent doubles
+    private static final int MAX_BISECTIONS = 2100;
+
+    //Upper bound on steps when polishing a closed form root onto the correct side of zero
+    private static final int MAX_POLISH_STEPS = 64;
+
+    private Polynomials() {
+    }
+
+    static double evaluate(final double[] coefficients, final double t) {
+        double value = 0.0;
+        for (int i = coefficients.length - 1; i >= 0; i--) {
+            value = value * t + coefficients[i];
+        }
+        return value;
+    }
+
+    static double[] trim(final double[] coefficients) {
+        int length = coefficients.length;
+        while (length > 0 && coefficients[length - 1] == 0.0) {
+            length--;
+        }
+        return Arrays.copyOf(coefficients, length);
+    }
+
+    static double[] subtract(final double[] a, final double[] b) {
+        final double[] difference = new double[Math.max(a.length, b.length)];
+        for (int i = 0; i < difference.length; i++) {
+            difference[i] = (i < a.length ? a[i] : 0.0) - (i < b.length ? b[i] : 0.0);
+        }
+        return trim(difference);
+    }
+
+    static double[] add(final double[] a, final double[] b) {
+        final double[] sum = new double[Math.max(a.length, b.length)];
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = (i < a.length ? a[i] : 0.0) + (i < b.length ? b[i] : 0.0);
+        }
+        return trim(sum);
+    }
+
+    static double[] multiply(final double[] a, final double[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return NO_ROOTS;
+        }
+        final double[] product = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b.length; j++) {
+                product[i + j] += a[i] * b[j];
+            }
+        }
+        return trim(product);
+    }
+
+    /*
+    a * scaleA + b * scaleB
+     */
+    static double[] combine(final double[] a, final double scaleA, final double[] b, final double scaleB) {
+        final double[] combination = new double[Math.max(a.length, b.length)];
+        for (int i = 0; i < combination.length; i++) {
+            combination[i] = (i < a.length ? a[i] * scaleA : 0.0) + (i < b.length ? b[i] * scaleB : 0.0);
+        }
+        return trim(combination);
+    }
+
+    static double[] derivative(final double[] coefficients) {
+        if (coefficients.length <= 1) {
+            return NO_ROOTS;
+        }
+        final double[] derivative = new double[coefficients.length - 1];
+        for (int i = 1; i < coefficients.length; i++) {
+            derivative[i - 1] = coefficients[i] * i;
+        }
+        return derivative;
+    }
+
+    /**
+     * First time t &gt;= time after which the polynomial becomes negative.
+     *
+     * The returned time is the first double at which the polynomial evaluates to a negative value, so that
+     * evaluating the polynomial at the returned time is consistent with the crossing having happened.
+     *
+     * @param coefficients Polynomial, trimmed
+     * @param time Time to search from
+     *
+     * @return Time of the crossing, or NaN if the polynomial never becomes negative after time
+     */
+    static double firstNegativeCrossing(final double[] coefficients, final double time) {
+        if (coefficients.length == 0) {
+            return Double.NaN;
+        }
+        if (signJustAfter(coefficients, time) < 0) {
+            return time;
+        }
+        if (coefficients.length == 1) {
+            return Double.NaN;
+        }
+
+        final double[] roots = realRoots(coefficients);
+        for (int i = 0; i < roots.length; i++) {
+            if (roots[i] < time) {
+                continue;
+            }
+            final double signAfter = i + 1 < roots.length
+                    ? evaluate(coefficients, roots[i] + (roots[i + 1] - roots[i]) / 2)
+                    : coefficients[coefficients.length - 1];
+            if (signAfter < 0) {
+                return polish(coefficients, Math.max(roots[i], time), time);
+            }
+        }
+        return Double.NaN;
+    }
+
+    /*
+    Sign of the polynomial on (t, t + epsilon), taken from the first derivative that does not vanish at t
+     */
+    private static double signJustAfter(final double[] coefficients, final double t) {
+        double[] derivative = coefficients;
+        while (derivative.length > 0) {
+            final double value = evaluate(derivative, t);
+            if (value != 0.0) {
+                return Math.signum(value);
+            }
+            derivative = derivative(derivative);
+        }
+        return 0.0;
+    }
+
+    /*
+    All distinct real roots in ascending order, including roots of even multiplicity where they are found
+     */
+    static double[] realRoots(final double[] coefficients) {
+        switch (coefficients.length) {
+            case 0:
+            case 1:
+                return NO_ROOTS;
+            case 2:
+                return new double[]{-coefficients[0] / coefficients[1]};
+            case 3:
+                return quadraticRoots(coefficients[2], coefficients[1], coefficients[0]);
+            default:
+                return isolatedRoots(coefficients);
+        }
+    }
+
+    /*
+    Numerically stable quadratic formula, avoids cancellation between -b and the square root of the discriminant
+     */
+    private static double[] quadraticRoots(final double a, final double b, final double c) {
+        final double discriminant = b * b - 4 * a * c;
+        if (discriminant < 0) {
+            return NO_ROOTS;
+        }
+        if (discriminant == 0) {
+            return new double[]{-b / (2 * a)};
+        }
+        final double q = -0.5 * (b + Math.copySign(Math.sqrt(discriminant), b));
+        final double first = q / a;
+        final double second = c / q;
+        return first < second ? new double[]{first, second} : new double[]{second, first};
+    }
+
+    private static double[] isolatedRoots(final double[] coefficients) {
+        final double bound = cauchyBound(coefficients);
+        final double[] criticalPoints = realRoots(derivative(coefficients));
+
+        final double[] points = new double[criticalPoints.length + 2];
+        points[0] = -bound;
+        int count = 1;
+        for (final double criticalPoint : criticalPoints) {
+            if (criticalPoint > -bound && criticalPoint < bound) {
+                points[count++] = criticalPoint;
+            }
+        }
+        points[count++] = bound;
+
+        final double[] roots = new double[count];
+        int rootCount = 0;
+        for (int i = 0; i + 1 < count; i++) {
+            final double lower = evaluate(coefficients, points[i]);
+            final double upper = evaluate(coefficients, points[i + 1]);
+            if (lower == 0.0) {
+                if (rootCount == 0 || roots[rootCount - 1] != points[i]) {
+                    roots[rootCount++] = points[i];
+                }
+            } else if (upper != 0.0 && Math.signum(lower) != Math.signum(upper)) {
+                roots[rootCount++] = bisect(coefficients, points[i], points[i + 1]);
+            }
+        }
+        final double last = points[count - 1];
+        if (evaluate(coefficients, last) == 0.0 && (rootCount == 0 || roots[rootCount - 1] != last)) {
+            roots[rootCount++] = last;
+        }
+        return Arrays.copyOf(roots, rootCount);
+    }
+
+    /*
+    All real roots lie in [-bound, bound]
+     */
+    private static double cauchyBound(final double[] coefficients) {
+        final double leading = coefficients[coefficients.length - 1];
+        double max = 0.0;
+        for (int i = 0; i < coefficients.length - 1; i++) {
+            max = Math.max(max, Math.abs(coefficients[i] / leading));
+        }
+        return 1.0 + max;
+    }
+
+    /*
+    Bisects a sign change between lower and upper down to adjacent doubles, returning the end on the side of upper
+     */
+    private static double bisect(final double[] coefficients, final double lower, final double upper) {
+        final double upperSign = Math.signum(evaluate(coefficients, upper));
+        double low = lower;
+        double high = upper;
+        for (int i = 0; i < MAX_BISECTIONS; i++) {
+            final double mid = low + (high - low) / 2;
+            if (mid <= low || mid >= high) {
+                break;
+            }
+            if (Math.signum(evaluate(coefficients, mid)) == upperSign) {
+                high = mid;
+            } else {
+                low = mid;
+            }
+        }
+        return high;
+    }
+
+    /*
+    Moves an approximate root of a crossing from non negative to negative onto the first double where the polynomial is negative
+     */
+    private static double polish(final double[] coefficients, final double root, final double time) {
+        double low = root;
+        double step = Math.max(Math.ulp(root), Double.MIN_NORMAL);
+        for (int i = 0; i < MAX_POLISH_STEPS && low > time && evaluate(coefficients, low) < 0; i++) {
+            low = Math.max(time, root - step);
+            step *= 2;
+        }
+        double high = root;
+        step = Math.max(Math.ulp(root), Double.MIN_NORMAL);
+        for (int i = 0; i < MAX_POLISH_STEPS && evaluate(coefficients, high) >= 0; i++) {
+            high = root + step;
+            step *= 2;
+        }
+        if (evaluate(coefficients, low) < 0) {
+            return low;
+        }
+        return bisect(coefficients, low, high);
+    }
+}
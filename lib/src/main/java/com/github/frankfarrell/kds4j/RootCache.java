@@ -0,0 +1,139 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the roots of f - g found for pairs of elements, least recently used pairs are evicted first.
+ *
+ * Elements that oscillate, such as periodic functions, swap back and forth and become neighbours again and again.
+ * Each time their certificate is solved, the next root after the current time is looked up in O(log r) rather than
+ * searched for with the solver, as long as the time is still inside the window that was scanned.
+ *
+ * Elements are held by identity, so an element that is removed from a structure stays reachable until it is evicted.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+final class RootCache {
+
+    private final Map<Key, Roots> entries;
+
+    RootCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.entries = new LinkedHashMap<Key, Roots>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Roots> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return Roots of the pair, null if they are not cached
+     */
+    synchronized Roots get(final Object f, final Object g) {
+        return entries.get(new Key(f, g));
+    }
+
+    synchronized void put(final Object f, final Object g, final Roots roots) {
+        entries.put(new Key(f, g), roots);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * All sign changes of first - second found between from and to, in ascending order
+     */
+    static final class Roots {
+
+        private final Object first;
+        final double from;
+        final double to;
+        private final boolean negativeAtFrom;
+        private final double[] roots;
+        //If first - second becomes negative at each root, rather than positive
+        private final boolean[] falling;
+
+        Roots(final Object first,
+              final double from,
+              final double to,
+              final boolean negativeAtFrom,
+              final double[] roots,
+              final boolean[] falling) {
+            this.first = first;
+            this.from = from;
+            this.to = to;
+            this.negativeAtFrom = negativeAtFrom;
+            this.roots = roots;
+            this.falling = falling;
+        }
+
+        boolean covers(final double time) {
+            return time >= from && time < to;
+        }
+
+        /**
+         * @param f Element that has priority, either element of the pair
+         * @param time Time to search from, inside the window
+         *
+         * @return First root from time at which f falls below the other element, time if it already has, NaN if there is none before to
+         */
+        double firstNegativeCrossing(final Object f, final double time) {
+            final boolean flipped = f != first;
+            //Number of roots before time
+            int low = 0;
+            int high = roots.length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (roots[middle] < time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            final boolean negative = low == 0 ? negativeAtFrom != flipped : falling[low - 1] != flipped;
+            if (negative) {
+                return time;
+            }
+            for (int i = low; i < roots.length; i++) {
+                if (falling[i] != flipped) {
+                    return roots[i];
+                }
+            }
+            return Double.NaN;
+        }
+    }
+
+    /*
+    Unordered pair of elements, by identity
+     */
+    private static final class Key {
+
+        private final Object a;
+        private final Object b;
+
+        private Key(final Object a, final Object b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return (a == other.a && b == other.b) || (a == other.b && b == other.a);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(a) ^ System.identityHashCode(b);
+        }
+    }
+}
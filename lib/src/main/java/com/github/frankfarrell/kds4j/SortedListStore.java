@@ -0,0 +1,95 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Backing store for the ordered elements of a KineticSortedList, and the certificate between each element and the next.
+ *
+ * Each position is addressed by an int id. How ids relate to ranks depends on the store, so an id is only valid until the
+ * next insert or remove. Certificates always hold the id of their left element in their index field.
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+interface SortedListStore<E> {
+
+    int size();
+
+    /**
+     * @param rank Rank from 0 to size - 1
+     *
+     * @return Id at rank
+     */
+    int idAt(int rank);
+
+    int rankOf(int id);
+
+    /**
+     * @return Id of the first element, -1 if the store is empty
+     */
+    int first();
+
+    /**
+     * @return Id of the element after id, -1 if it is the last
+     */
+    int next(int id);
+
+    /**
+     * @return Id of the element before id, -1 if it is the first
+     */
+    int previous(int id);
+
+    OneDimensionalKineticElement<E> element(int id);
+
+    void setElement(int id, OneDimensionalKineticElement<E> element);
+
+    /**
+     * @return True if id is in use and holds element, by identity. Any int may be passed, eg a stale id
+     */
+    boolean holds(int id, OneDimensionalKineticElement<E> element);
+
+    /**
+     * @return Certificate between the element at id and the next one, null if there is none
+     */
+    Certificate<E> certificate(int id);
+
+    /**
+     * Sets the certificate between the element at id and the next one, and points the certificate at id
+     */
+    void setCertificate(int id, Certificate<E> certificate);
+
+    /**
+     * @return True if inserting or removing an element changes the ids of the elements after it
+     */
+    boolean shiftsIds();
+
+    /**
+     * Inserts an element at rank, with no certificate
+     *
+     * @return Id of the new element
+     */
+    int insert(int rank, OneDimensionalKineticElement<E> element);
+
+    /**
+     * Removes the element at id. Its certificate should already have been dealt with
+     */
+    void remove(int id);
+
+    /**
+     * Replaces the contents of the store
+     *
+     * @param elements Elements in order
+     * @param certificates Certificate between each element and the next, one fewer than elements
+     */
+    void load(List<OneDimensionalKineticElement<E>> elements, List<Certificate<E>> certificates);
+
+    /**
+     * Binary search over ranks
+     *
+     * @param predicate Must be false for every id up to some rank and true from there on
+     *
+     * @return The first rank for which predicate is true, size if there is none
+     */
+    int firstRank(IntPredicate predicate);
+}
@@ -0,0 +1,414 @@
+package com.github.frankfarrell.kds4j;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Order statistic tree backed store. The tree is a treap keyed implicitly by rank, laid out in int arrays,
+ * with the elements also threaded through a doubly linked list for O(1) neighbour access.
+ *
+ * Ids are stable for as long as an element is in the store. Insert, remove, idAt and rankOf are expected O(log n),
+ * next and previous are O(1), so no operation shifts an array.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Treap">Wikipedia entry</a>
+ *
+ * @author frankfarrell
+ * @since 0.0.1
+ */
+final class TreeSortedListStore<E> implements SortedListStore<E> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    //Id 0 is a sentinel for no node, it always has size 0
+    private static final int NIL = 0;
+
+    private final SplittableRandom random = new SplittableRandom();
+
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private int[] subtreeSize;
+    private int[] priority;
+    private int[] previous;
+    private int[] next;
+    private OneDimensionalKineticElement<E>[] elements;
+    private Certificate<E>[] elementCertificates;
+
+    private int root = NIL;
+    private int head = NIL;
+    private int tail = NIL;
+
+    //Ids are allocated from the end of the arrays, and freed ids are reused through a chain in next
+    private int allocated = 1;
+    private int freeList = NIL;
+
+    TreeSortedListStore() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public int size() {
+        return subtreeSize[root];
+    }
+
+    @Override
+    public int idAt(final int rank) {
+        if (rank < 0 || rank >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + rank + ", Size: " + size());
+        }
+        int node = root;
+        int remaining = rank;
+        while (true) {
+            final int leftSize = subtreeSize[left[node]];
+            if (remaining < leftSize) {
+                node = left[node];
+            } else if (remaining == leftSize) {
+                return node;
+            } else {
+                remaining -= leftSize + 1;
+                node = right[node];
+            }
+        }
+    }
+
+    @Override
+    public int rankOf(final int id) {
+        int rank = subtreeSize[left[id]];
+        int node = id;
+        while (parent[node] != NIL) {
+            final int up = parent[node];
+            if (right[up] == node) {
+                rank += subtreeSize[left[up]] + 1;
+            }
+            node = up;
+        }
+        return rank;
+    }
+
+    @Override
+    public int first() {
+        return head == NIL ? -1 : head;
+    }
+
+    @Override
+    public int next(final int id) {
+        return next[id] == NIL ? -1 : next[id];
+    }
+
+    @Override
+    public int previous(final int id) {
+        return previous[id] == NIL ? -1 : previous[id];
+    }
+
+    @Override
+    public OneDimensionalKineticElement<E> element(final int id) {
+        return elements[id];
+    }
+
+    @Override
+    public void setElement(final int id, final OneDimensionalKineticElement<E> element) {
+        elements[id] = element;
+    }
+
+    @Override
+    public boolean holds(final int id, final OneDimensionalKineticElement<E> element) {
+        //Freed ids have no element
+        return id > NIL && id < elements.length && elements[id] == element && element != null;
+    }
+
+    @Override
+    public Certificate<E> certificate(final int id) {
+        return elementCertificates[id];
+    }
+
+    @Override
+    public void setCertificate(final int id, final Certificate<E> certificate) {
+        elementCertificates[id] = certificate;
+        if (certificate != null) {
+            certificate.index = id;
+        }
+    }
+
+    @Override
+    public boolean shiftsIds() {
+        return false;
+    }
+
+    @Override
+    public int insert(final int rank, final OneDimensionalKineticElement<E> element) {
+        final int before = rank == 0 ? NIL : idAt(rank - 1);
+        final int after = before == NIL ? head : next[before];
+
+        final int id = newNode(element);
+        previous[id] = before;
+        next[id] = after;
+        if (before == NIL) {
+            head = id;
+        } else {
+            next[before] = id;
+        }
+        if (after == NIL) {
+            tail = id;
+        } else {
+            previous[after] = id;
+        }
+
+        //Insert as a leaf next to a neighbour, then rotate up while the heap order on priorities is violated
+        if (root == NIL) {
+            root = id;
+        } else if (before != NIL && right[before] == NIL) {
+            attach(before, id, false);
+        } else {
+            attach(after, id, true);
+        }
+        while (parent[id] != NIL && priority[parent[id]] < priority[id]) {
+            rotateUp(id);
+        }
+        return id;
+    }
+
+    @Override
+    public void remove(final int id) {
+        //Rotate down until it is a leaf, then detach it
+        while (left[id] != NIL || right[id] != NIL) {
+            final int child;
+            if (left[id] == NIL) {
+                child = right[id];
+            } else if (right[id] == NIL) {
+                child = left[id];
+            } else {
+                child = priority[left[id]] > priority[right[id]] ? left[id] : right[id];
+            }
+            rotateUp(child);
+        }
+
+        final int up = parent[id];
+        if (up == NIL) {
+            root = NIL;
+        } else {
+            if (left[up] == id) {
+                left[up] = NIL;
+            } else {
+                right[up] = NIL;
+            }
+            for (int node = up; node != NIL; node = parent[node]) {
+                subtreeSize[node]--;
+            }
+        }
+
+        final int before = previous[id];
+        final int after = next[id];
+        if (before == NIL) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NIL) {
+            tail = before;
+        } else {
+            previous[after] = before;
+        }
+
+        freeNode(id);
+    }
+
+    @Override
+    public void load(final List<OneDimensionalKineticElement<E>> elements, final List<Certificate<E>> certificates) {
+        allocate(Math.max(INITIAL_CAPACITY, elements.size() + 1));
+        root = NIL;
+        head = NIL;
+        tail = NIL;
+        allocated = 1;
+        freeList = NIL;
+
+        //Builds the treap in O(n) with a stack of the right spine, as for a cartesian tree
+        final int[] spine = new int[elements.size() + 1];
+        int spineSize = 0;
+        int last = NIL;
+        for (int i = 0; i < elements.size(); i++) {
+            final int id = newNode(elements.get(i));
+            if (i < certificates.size()) {
+                setCertificate(id, certificates.get(i));
+            }
+            previous[id] = last;
+            if (last == NIL) {
+                head = id;
+            } else {
+                next[last] = id;
+            }
+            last = id;
+
+            int lastPopped = NIL;
+            while (spineSize > 0 && priority[spine[spineSize - 1]] < priority[id]) {
+                lastPopped = spine[--spineSize];
+            }
+            if (lastPopped != NIL) {
+                left[id] = lastPopped;
+                parent[lastPopped] = id;
+            }
+            if (spineSize > 0) {
+                right[spine[spineSize - 1]] = id;
+                parent[id] = spine[spineSize - 1];
+            }
+            spine[spineSize++] = id;
+        }
+        tail = last;
+        root = spineSize > 0 ? spine[0] : NIL;
+        computeSizes(root);
+    }
+
+    @Override
+    public int firstRank(final IntPredicate predicate) {
+        int node = root;
+        int rank = 0;
+        int result = size();
+        while (node != NIL) {
+            if (predicate.test(node)) {
+                result = rank + subtreeSize[left[node]];
+                node = left[node];
+            } else {
+                rank += subtreeSize[left[node]] + 1;
+                node = right[node];
+            }
+        }
+        return result;
+    }
+
+    /*
+    Attaches a new leaf as the left or right child of node, and updates sizes up to the root
+     */
+    private void attach(final int node, final int leaf, final boolean asLeftChild) {
+        if (asLeftChild) {
+            left[node] = leaf;
+        } else {
+            right[node] = leaf;
+        }
+        parent[leaf] = node;
+        for (int up = node; up != NIL; up = parent[up]) {
+            subtreeSize[up]++;
+        }
+    }
+
+    /*
+    Rotates node above its parent, keeping the in order sequence
+     */
+    private void rotateUp(final int node) {
+        final int up = parent[node];
+        final int grandParent = parent[up];
+        if (left[up] == node) {
+            left[up] = right[node];
+            if (right[node] != NIL) {
+                parent[right[node]] = up;
+            }
+            right[node] = up;
+        } else {
+            right[up] = left[node];
+            if (left[node] != NIL) {
+                parent[left[node]] = up;
+            }
+            left[node] = up;
+        }
+        parent[up] = node;
+        parent[node] = grandParent;
+        if (grandParent == NIL) {
+            root = node;
+        } else if (left[grandParent] == up) {
+            left[grandParent] = node;
+        } else {
+            right[grandParent] = node;
+        }
+        subtreeSize[up] = subtreeSize[left[up]] + subtreeSize[right[up]] + 1;
+        subtreeSize[node] = subtreeSize[left[node]] + subtreeSize[right[node]] + 1;
+    }
+
+    /*
+    Children come after their parent in pre order, so sizes are summed in reverse pre order.
+    Without recursion since a loaded treap is only balanced in expectation
+     */
+    private void computeSizes(final int from) {
+        if (from == NIL) {
+            return;
+        }
+        final int[] preOrder = new int[subtreeSize.length];
+        int count = 0;
+        final int[] stack = new int[subtreeSize.length];
+        int stackSize = 0;
+        stack[stackSize++] = from;
+        while (stackSize > 0) {
+            final int node = stack[--stackSize];
+            preOrder[count++] = node;
+            if (left[node] != NIL) {
+                stack[stackSize++] = left[node];
+            }
+            if (right[node] != NIL) {
+                stack[stackSize++] = right[node];
+            }
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            final int node = preOrder[i];
+            subtreeSize[node] = subtreeSize[left[node]] + subtreeSize[right[node]] + 1;
+        }
+    }
+
+    private int newNode(final OneDimensionalKineticElement<E> element) {
+        final int id;
+        if (freeList != NIL) {
+            id = freeList;
+            freeList = next[id];
+        } else {
+            if (allocated == left.length) {
+                grow(left.length * 2);
+            }
+            id = allocated++;
+        }
+        left[id] = NIL;
+        right[id] = NIL;
+        parent[id] = NIL;
+        previous[id] = NIL;
+        next[id] = NIL;
+        subtreeSize[id] = 1;
+        priority[id] = random.nextInt();
+        elements[id] = element;
+        elementCertificates[id] = null;
+        return id;
+    }
+
+    private void freeNode(final int id) {
+        elements[id] = null;
+        elementCertificates[id] = null;
+        subtreeSize[id] = 0;
+        left[id] = NIL;
+        right[id] = NIL;
+        parent[id] = NIL;
+        previous[id] = NIL;
+        next[id] = freeList;
+        freeList = id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(final int capacity) {
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        subtreeSize = new int[capacity];
+        priority = new int[capacity];
+        previous = new int[capacity];
+        next = new int[capacity];
+        elements = (OneDimensionalKineticElement<E>[]) new OneDimensionalKineticElement[capacity];
+        elementCertificates = (Certificate<E>[]) new Certificate[capacity];
+    }
+
+    private void grow(final int capacity) {
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        subtreeSize = Arrays.copyOf(subtreeSize, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        previous = Arrays.copyOf(previous, capacity);
+        next = Arrays.copyOf(next, capacity);
+        elements = Arrays.copyOf(elements, capacity);
+        elementCertificates = Arrays.copyOf(elementCertificates, capacity);
+    }
+}
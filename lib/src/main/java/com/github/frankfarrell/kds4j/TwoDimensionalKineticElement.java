@@ -1,5 +1,6 @@
 package com.github.frankfarrell.kds4j;
 
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 
 public class TwoDimensionalKineticElement<E>  {
@@ -23,11 +24,124 @@ public class TwoDimensionalKineticElement<E>  {
 
     public final Function<Double, Double> yFunction;
 
+    /**
+     * Primitive views of xFunction and yFunction, evaluated without boxing
+     */
+    public final DoubleUnaryOperator xPrimitiveFunction;
+
+    public final DoubleUnaryOperator yPrimitiveFunction;
+
+    /*
+    Coefficients of x and y in ascending order of power, if the element was created as a polynomial. Otherwise null
+     */
+    final double[] xCoefficients;
+
+    final double[] yCoefficients;
+
     public TwoDimensionalKineticElement(final E element,
                                         final Function<Double, Double> xFunction,
                                         final Function<Double, Double> yFunction) {
+        this(element, xFunction, yFunction, xFunction::apply, yFunction::apply);
+    }
+
+    protected TwoDimensionalKineticElement(final E element,
+                                           final Function<Double, Double> xFunction,
+                                           final Function<Double, Double> yFunction,
+                                           final DoubleUnaryOperator xPrimitiveFunction,
+                                           final DoubleUnaryOperator yPrimitiveFunction) {
+        this(element, xFunction, yFunction, xPrimitiveFunction, yPrimitiveFunction, null, null);
+    }
+
+    private TwoDimensionalKineticElement(final E element,
+                                         final Function<Double, Double> xFunction,
+                                         final Function<Double, Double> yFunction,
+                                         final DoubleUnaryOperator xPrimitiveFunction,
+                                         final DoubleUnaryOperator yPrimitiveFunction,
+                                         final double[] xCoefficients,
+                                         final double[] yCoefficients) {
         this.element = element;
         this.xFunction = xFunction;
         this.yFunction = yFunction;
+        this.xPrimitiveFunction = xPrimitiveFunction;
+        this.yPrimitiveFunction = yPrimitiveFunction;
+        this.xCoefficients = xCoefficients;
+        this.yCoefficients = yCoefficients;
+    }
+
+    /**
+     * Creates an element whose x and y functions are evaluated without boxing
+     *
+     * @param element The element to store in the data structure
+     * @param xFunction Function f(t) = x over time
+     * @param yFunction Function f(t) = y over time
+     * @param <E> Type of element
+     *
+     * @return A new element
+     */
+    public static <E> TwoDimensionalKineticElement<E> of(final E element,
+                                                         final DoubleUnaryOperator xFunction,
+                                                         final DoubleUnaryOperator yFunction) {
+        return new TwoDimensionalKineticElement<>(element, xFunction::applyAsDouble, yFunction::applyAsDouble, xFunction, yFunction);
+    }
+
+    /**
+     * Creates an element whose x and y are polynomials in time. Its components are PolynomialKineticElements,
+     * and structures built on it, such as KineticClosestPair, compute its certificates exactly
+     *
+     * @param element The element to store in the data structure
+     * @param xCoefficients Coefficients of x in ascending order of power, eg c0, c1, c2 for c0 + c1*t + c2*t^2
+     * @param yCoefficients Coefficients of y in ascending order of power
+     * @param <E> Type of element
+     *
+     * @return A new element
+     */
+    public static <E> TwoDimensionalKineticElement<E> polynomial(final E element,
+                                                                 final double[] xCoefficients,
+                                                                 final double[] yCoefficients) {
+        final double[] x = Polynomials.trim(xCoefficients);
+        final double[] y = Polynomials.trim(yCoefficients);
+        return new TwoDimensionalKineticElement<>(element,
+                t -> Polynomials.evaluate(x, t), t -> Polynomials.evaluate(y, t),
+                t -> Polynomials.evaluate(x, t), t -> Polynomials.evaluate(y, t),
+                x, y);
+    }
+
+    /**
+     * @return An element moving in a straight line, from (x, y) at time 0 with velocity (dx, dy)
+     */
+    public static <E> TwoDimensionalKineticElement<E> linear(final E element,
+                                                             final double x,
+                                                             final double y,
+                                                             final double dx,
+                                                             final double dy) {
+        return polynomial(element, new double[]{x, dx}, new double[]{y, dy});
+    }
+
+    public double xAt(final double time) {
+        return xPrimitiveFunction.applyAsDouble(time);
+    }
+
+    public double yAt(final double time) {
+        return yPrimitiveFunction.applyAsDouble(time);
+    }
+
+    /**
+     * @return The x component of this element as a one dimensional element
+     */
+    public OneDimensionalKineticElement<E> xElement() {
+        if (xCoefficients != null) {
+            return new PolynomialKineticElement<>(element, xCoefficients);
+        }
+        return new OneDimensionalKineticElement<>(element, xFunction, xPrimitiveFunction);
+    }
+
+    /**
+     * @return The y component of this element as a one dimensional element
+     */
+    public OneDimensionalKineticElement<E> yElement() {
+        if (yCoefficients != null) {
+            return new PolynomialKineticElement<>(element, yCoefficients);
+        }
+        return new OneDimensionalKineticElement<>(element, yFunction, yPrimitiveFunction);
     }
 }
@@ -0,0 +1,69 @@
+package com.github.frankfarrell.kds4j;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class ColumnarKineticSortedListTest {
+
+    @Test
+    public void itHasTheCorrectOrdering() {
+        ColumnarKineticSortedList<String> listUnderTest = new ColumnarKineticSortedList<>(0.0, 2);
+
+        listUnderTest.addLinear("A", 8, -1);
+        listUnderTest.addLinear("B", 5, 0.5);
+        listUnderTest.addPolynomial("C", 0, -4, 0.5);
+        assertThat(new ArrayList<>(listUnderTest)).isEqualTo(Arrays.asList("A", "B", "C"));
+
+        List<KineticEvent<String>> events = new ArrayList<>();
+        listUnderTest.addListener(events::addAll);
+
+        assertThat(listUnderTest.advance(3.0)).isTrue();
+        assertThat(new ArrayList<>(listUnderTest)).isEqualTo(Arrays.asList("B", "A", "C"));
+        assertThat(events.size()).isEqualTo(1);
+        assertThat(events.get(0).left).isEqualTo("B");
+
+        assertThat(listUnderTest.remove(1)).isEqualTo("A");
+        assertThat(listUnderTest.advance(11.0)).isTrue();
+        assertThat(new ArrayList<>(listUnderTest)).isEqualTo(Arrays.asList("C", "B"));
+        assertThat(listUnderTest.nextEventTime()).isEqualTo(Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void itMatchesKineticSortedListForRandomLinearMovers() {
+        Random random = new Random(3);
+        ColumnarKineticSortedList<Integer> columnarList = new ColumnarKineticSortedList<>(0.0, 1);
+        KineticSortedList<Integer> objectList = new KineticSortedList<>(0.0, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+
+        List<Integer> elements = new ArrayList<>();
+        double[] coefficients = new double[2 * 500];
+        for (int i = 0; i < 500; i++) {
+            elements.add(i);
+            coefficients[2 * i] = random.nextDouble() * 100;
+            coefficients[2 * i + 1] = random.nextDouble() * 2 - 1;
+            objectList.add(PolynomialKineticElement.linear(i, coefficients[2 * i], coefficients[2 * i + 1]));
+        }
+        columnarList.addAllPolynomials(elements, coefficients);
+
+        for (int step = 1; step <= 20; step++) {
+            if (step % 5 == 0) {
+                columnarList.remove(step);
+                objectList.remove(step);
+                columnarList.addLinear(1000 + step, 50, 0);
+                objectList.add(PolynomialKineticElement.linear(1000 + step, 50, 0));
+            }
+            assertThat(columnarList.advance(step * 5.0)).isEqualTo(objectList.advance(step * 5.0));
+            for (int i = 0; i < columnarList.size(); i++) {
+                assertThat(columnarList.get(i)).isEqualTo(objectList.get(i).element);
+            }
+            for (int i = 1; i < columnarList.size(); i++) {
+                assertThat(columnarList.valueAt(i - 1)).isGreaterThanOrEqualTo(columnarList.valueAt(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.frankfarrell.kds4j;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class ConcurrentKineticSortedListTest {
+
+    @Test
+    public void itPublishesASnapshotAfterEachWrite() {
+        ConcurrentKineticSortedList<String> listUnderTest = new ConcurrentKineticSortedList<>(new KineticSortedList<String>(0.0));
+        assertThat(listUnderTest.snapshot().version).isEqualTo(0L);
+        assertThat(listUnderTest.snapshot().value.isEmpty()).isTrue();
+
+        listUnderTest.add(OneDimensionalKineticElement.of("A", x -> 8 - x));
+        listUnderTest.add(OneDimensionalKineticElement.of("B", x -> x / 2 + 5));
+        KineticSnapshot<List<OneDimensionalKineticElement<String>>> before = listUnderTest.snapshot();
+        assertThat(before.version).isEqualTo(2L);
+
+        //No swap, so the same list is reused
+        assertThat(listUnderTest.advance(1.0)).isFalse();
+        assertThat(listUnderTest.snapshot().value).isSameAs(before.value);
+        assertThat(listUnderTest.snapshot().time).isEqualTo(1.0);
+
+        assertThat(listUnderTest.advance(3.0)).isTrue();
+        KineticSnapshot<List<OneDimensionalKineticElement<String>>> after = listUnderTest.snapshot();
+        assertThat(after.version).isEqualTo(4L);
+        assertThat(after.value.get(0).element).isEqualTo("B");
+        //Earlier snapshots are not changed by later writes
+        assertThat(before.value.get(0).element).isEqualTo("A");
+    }
+
+    @Test
+    public void itCanBeReadWhileAdvancing() throws InterruptedException {
+        List<OneDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final int offset = i;
+            elements.add(OneDimensionalKineticElement.of(i, x -> offset + (offset % 2 == 0 ? x : -x)));
+        }
+        ConcurrentKineticSortedList<Integer> listUnderTest = new ConcurrentKineticSortedList<>(
+                new KineticSortedList<>(0.0, elements, new OneDimensionalKDSSolver(), KineticSortedList.Storage.TREE,
+                        KineticSortedList.AdvanceMode.EVENT_DRIVEN));
+
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                long lastVersion = -1;
+                for (int read = 0; read < 2000; read++) {
+                    KineticSnapshot<List<OneDimensionalKineticElement<Integer>>> snapshot = listUnderTest.snapshot();
+                    if (snapshot.version < lastVersion) {
+                        failure.set("Version went backwards");
+                    }
+                    lastVersion = snapshot.version;
+                    for (int i = 1; i < snapshot.value.size(); i++) {
+                        if (snapshot.value.get(i - 1).valueAt(snapshot.time) < snapshot.value.get(i).valueAt(snapshot.time) - 1e-6) {
+                            failure.set("Out of order at " + snapshot.time);
+                        }
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        for (int step = 1; step <= 200; step++) {
+            listUnderTest.advance(step / 10.0);
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertThat(failure.get()).isNull();
+        assertThat(listUnderTest.snapshot().version).isEqualTo(200L);
+        assertThat(listUnderTest.getTime()).isEqualTo(20.0);
+    }
+
+    @Test
+    public void itPublishesTheHeadOfAQueue() {
+        ConcurrentKineticPriorityQueue<String> queueUnderTest = new ConcurrentKineticPriorityQueue<>(new KineticPriorityQueue<String>(0.0));
+        assertThat(queueUnderTest.peek()).isNull();
+
+        queueUnderTest.offer(OneDimensionalKineticElement.of("A", x -> 8 - x));
+        queueUnderTest.offer(OneDimensionalKineticElement.of("B", x -> x / 2 + 5));
+        assertThat(queueUnderTest.peek().element).isEqualTo("A");
+
+        assertThat(queueUnderTest.advance(3.0)).isTrue();
+        assertThat(queueUnderTest.peek().element).isEqualTo("B");
+        assertThat(queueUnderTest.poll().element).isEqualTo("B");
+        assertThat(queueUnderTest.peek().element).isEqualTo("A");
+    }
+
+    @Test
+    public void itPublishesTheBoundingBoxAfterEveryAdvance() {
+        ConcurrentKineticBoundingBox<String> boxUnderTest = new ConcurrentKineticBoundingBox<>(new KineticBoundingBox<String>(0.0,
+                Arrays.asList(new TwoDimensionalKineticElement<>("A", x -> x, x -> 1.0),
+                        new TwoDimensionalKineticElement<>("B", x -> -x, x -> -1.0))));
+        assertThat(boxUnderTest.getBoundingBox().right).isEqualTo(0.0);
+
+        assertThat(boxUnderTest.advance(2.0)).isFalse();
+        assertThat(boxUnderTest.getBoundingBox().right).isEqualTo(2.0);
+        assertThat(boxUnderTest.getBoundingBox().left).isEqualTo(-2.0);
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.frankfarrell.kds4j;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class InMemoryKineticMetricsTest {
+
+    @Test
+    public void itRecordsSolverCallsAndAdvances() {
+        InMemoryKineticMetrics metrics = new InMemoryKineticMetrics();
+        KineticSortedList<String> listUnderTest = new KineticSortedList<String>(0.0, Collections.emptyList(),
+                new OneDimensionalKDSSolver(metrics), KineticSortedList.Storage.ARRAY, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+
+        listUnderTest.add(OneDimensionalKineticElement.of("A", x -> 8 - x));
+        listUnderTest.add(OneDimensionalKineticElement.of("B", x -> x / 2 + 5));
+        //Parallel to B and always below it, so the solver gives up looking for a crossing
+        listUnderTest.add(OneDimensionalKineticElement.of("C", x -> x / 2 - 100));
+
+        assertThat(metrics.solverEvaluations().count()).isEqualTo(metrics.solverBracketingIterations().count());
+        assertThat(metrics.solverGaveUp()).isEqualTo(1L);
+
+        assertThat(listUnderTest.advance(3.0)).isTrue();
+        assertThat(metrics.advanceNanos().count()).isEqualTo(1L);
+        assertThat(metrics.advanceCertificatesFailed().max()).isEqualTo(1L);
+        assertThat(metrics.advanceEvents().max()).isEqualTo(1L);
+        assertThat(metrics.advanceCertificatesCreated().max()).isEqualTo(2L);
+        assertThat(metrics.advanceHeapSize().max()).isEqualTo(2L);
+        assertThat(metrics.histograms().size()).isEqualTo(7);
+    }
+
+    @Test
+    public void itHasPowerOfTwoBuckets() {
+        InMemoryKineticMetrics.Histogram histogram = new InMemoryKineticMetrics.Histogram();
+        assertThat(histogram.percentile(0.5)).isEqualTo(0L);
+
+        for (long value = 0; value < 100; value++) {
+            histogram.record(value);
+        }
+        assertThat(histogram.count()).isEqualTo(100L);
+        assertThat(histogram.min()).isEqualTo(0L);
+        assertThat(histogram.max()).isEqualTo(99L);
+        assertThat(histogram.mean()).isEqualTo(49.5);
+        //50th value is 49, which is in the bucket from 32 to 63
+        assertThat(histogram.percentile(0.5)).isEqualTo(63L);
+        assertThat(histogram.percentile(1.0)).isEqualTo(99L);
+        assertThat(histogram.buckets()[7]).isEqualTo(36L);
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.frankfarrell.kds4j;
+
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class KineticBoundingBoxTest {
+
+    @Test
+    public void itHasTheCorrectBoundingBoxAsTimeAdvances() {
+        KineticBoundingBox<String> boxUnderTest = new KineticBoundingBox<String>(0.0);
+
+        boxUnderTest.add(new TwoDimensionalKineticElement<>("A", x -> 8 - x, x -> 8 + x));
+        boxUnderTest.add(new TwoDimensionalKineticElement<>("B", x -> x / 2 + 5, x -> x * x - x / 3));
+
+        BoundingBox atZero = boxUnderTest.getBoundingBox();
+        assertThat(atZero.top).isEqualTo(8.0);
+        assertThat(atZero.bottom).isEqualTo(0.0);
+        assertThat(atZero.left).isEqualTo(5.0);
+        assertThat(atZero.right).isEqualTo(8.0);
+
+        //x of B overtakes x of A at 2, y of B overtakes y of A at about 3.5
+        assertThat(boxUnderTest.advance(4.0)).isTrue();
+        BoundingBox atFour = boxUnderTest.getBoundingBox();
+        assertThat(atFour.top).isCloseTo(16.0 - 4.0 / 3, Offset.offset(1e-9));
+        assertThat(atFour.bottom).isEqualTo(12.0);
+        assertThat(atFour.left).isEqualTo(4.0);
+        assertThat(atFour.right).isEqualTo(7.0);
+    }
+
+    @Test
+    public void itUpdatesTrajectories() {
+        KineticBoundingBox<String> boxUnderTest = new KineticBoundingBox<String>(0.0);
+        TwoDimensionalKineticElement<String> a = TwoDimensionalKineticElement.linear("A", 0, 0, 1, 1);
+        TwoDimensionalKineticElement<String> b = TwoDimensionalKineticElement.linear("B", 10, 10, 0, 0);
+        boxUnderTest.add(a);
+        boxUnderTest.add(b);
+
+        boxUnderTest.advance(2.0);
+        //A turns back from (2, 2) at t = 2
+        TwoDimensionalKineticElement<String> turned = TwoDimensionalKineticElement.linear("A", 6, 6, -2, -2);
+        assertThat(boxUnderTest.updateTrajectory(a, turned)).isTrue();
+        assertThat(boxUnderTest.updateTrajectory(a, turned)).isFalse();
+
+        boxUnderTest.advance(4.0);
+        BoundingBox atFour = boxUnderTest.getBoundingBox();
+        assertThat(atFour.bottom).isCloseTo(-2.0, Offset.offset(1e-9));
+        assertThat(atFour.left).isCloseTo(-2.0, Offset.offset(1e-9));
+        assertThat(atFour.top).isEqualTo(10.0);
+        assertThat(boxUnderTest.size()).isEqualTo(2);
+
+        //Turning again, A passes B at t = 10
+        assertThat(boxUnderTest.updateTrajectory(turned, TwoDimensionalKineticElement.linear("A", -10, -10, 2, 2))).isTrue();
+        boxUnderTest.advance(12.0);
+        BoundingBox atTwelve = boxUnderTest.getBoundingBox();
+        assertThat(atTwelve.right).isCloseTo(14.0, Offset.offset(1e-9));
+        assertThat(atTwelve.left).isEqualTo(10.0);
+        assertThat(atTwelve.top).isCloseTo(14.0, Offset.offset(1e-9));
+    }
+
+    @Test
+    public void itReportsEachChangeOfSideToListeners() {
+        KineticBoundingBox<String> boxUnderTest = new KineticBoundingBox<String>(0.0);
+
+        boxUnderTest.add(new TwoDimensionalKineticElement<>("A", x -> 8 - x, x -> 8 + x));
+        boxUnderTest.add(new TwoDimensionalKineticElement<>("B", x -> x / 2 + 5, x -> x * x - x / 3));
+
+        List<KineticEvent<String>> events = new ArrayList<>();
+        boxUnderTest.addListener(events::addAll);
+
+        assertThat(boxUnderTest.advance(4.0)).isTrue();
+        assertThat(events.size()).isEqualTo(4);
+
+        //Left and right swap at 2, then top and bottom at about 3.5
+        assertThat(events.get(0).time).isCloseTo(2.0, Offset.offset(1e-6));
+        assertThat(events.get(1).time).isCloseTo(2.0, Offset.offset(1e-6));
+        assertThat(events.get(2).time).isGreaterThan(3.0);
+        for (KineticEvent<String> event : events) {
+            if (event.type == KineticEvent.Type.TOP_CHANGED || event.type == KineticEvent.Type.RIGHT_CHANGED) {
+                assertThat(event.left).isEqualTo("B");
+            } else {
+                assertThat(event.left).isEqualTo("A");
+            }
+        }
+    }
+
+    @Test
+    public void itReturnsNullWhenEmpty() {
+        KineticBoundingBox<String> boxUnderTest = new KineticBoundingBox<String>(0.0);
+        assertThat(boxUnderTest.getBoundingBox()).isNull();
+
+        TwoDimensionalKineticElement<String> element = TwoDimensionalKineticElement.of("A", x -> x, x -> -x);
+        boxUnderTest.add(element);
+        assertThat(boxUnderTest.remove(element)).isTrue();
+        assertThat(boxUnderTest.getBoundingBox()).isNull();
+    }
+
+    @Test
+    public void itMatchesTheBoundingBoxOfRandomLinearElements() {
+        Random random = new Random(7);
+        List<TwoDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final double x = random.nextDouble() * 100;
+            final double dx = random.nextDouble() * 10 - 5;
+            final double y = random.nextDouble() * 100;
+            final double dy = random.nextDouble() * 10 - 5;
+            elements.add(TwoDimensionalKineticElement.of(i, t -> x + dx * t, t -> y + dy * t));
+        }
+        KineticBoundingBox<Integer> boxUnderTest = new KineticBoundingBox<>(0.0, elements);
+
+        for (double time = 1.0; time < 40; time += 1.0) {
+            boxUnderTest.advance(time);
+            final double now = time;
+            BoundingBox box = boxUnderTest.getBoundingBox();
+            assertThat(box.top).isEqualTo(elements.stream().mapToDouble(e -> e.yAt(now)).max().getAsDouble());
+            assertThat(box.bottom).isEqualTo(elements.stream().mapToDouble(e -> e.yAt(now)).min().getAsDouble());
+            assertThat(box.left).isEqualTo(elements.stream().mapToDouble(e -> e.xAt(now)).min().getAsDouble());
+            assertThat(box.right).isEqualTo(elements.stream().mapToDouble(e -> e.xAt(now)).max().getAsDouble());
+        }
+    }
+
+    @Test
+    public void itDoesNotEvaluateElementsAgainUntilTimeAdvances() {
+        AtomicInteger evaluations = new AtomicInteger();
+        KineticBoundingBox<String> boxUnderTest = new KineticBoundingBox<String>(0.0);
+        boxUnderTest.add(new TwoDimensionalKineticElement<>("A", x -> {
+            evaluations.incrementAndGet();
+            return 2 * x;
+        }, x -> 0.0));
+        boxUnderTest.add(new TwoDimensionalKineticElement<>("B", x -> 5.0, x -> 1.0));
+        boxUnderTest.advance(1.0);
+
+        BoundingBox first = boxUnderTest.getBoundingBox();
+        int evaluated = evaluations.get();
+        BoundingBox second = boxUnderTest.getBoundingBox();
+        assertThat(evaluations.get()).isEqualTo(evaluated);
+        assertThat(second.left).isEqualTo(first.left);
+        assertThat(second.left).isEqualTo(2.0);
+
+        boxUnderTest.advance(4.0);
+        assertThat(boxUnderTest.getBoundingBox().right).isEqualTo(8.0);
+    }
+}
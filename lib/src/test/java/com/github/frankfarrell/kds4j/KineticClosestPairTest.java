@@ -0,0 +1,136 @@
+package com.github.frankfarrell.kds4j;
+
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class KineticClosestPairTest {
+
+    @Test
+    public void itHasTheCorrectClosestPair() {
+        TwoDimensionalKineticElement<String> a = TwoDimensionalKineticElement.of("A", t -> 0.0, t -> 0.0);
+        TwoDimensionalKineticElement<String> b = TwoDimensionalKineticElement.of("B", t -> 10.0, t -> 0.0);
+        //Closer to A than B is from t = (10 - sqrt(84)) / 2
+        TwoDimensionalKineticElement<String> c = TwoDimensionalKineticElement.of("C", t -> 4.0, t -> 10.0 - 2 * t);
+        KineticClosestPair<String> closestPairUnderTest = new KineticClosestPair<>(0.0, Arrays.asList(a, b, c));
+
+        assertThat(closestPairUnderTest.getClosestPair()).isEqualTo(new KineticPair<>(a, b));
+        assertThat(closestPairUnderTest.getDistance()).isCloseTo(10.0, Offset.offset(0.0001));
+        assertThat(closestPairUnderTest.nextEventTime()).isCloseTo((10 - Math.sqrt(84)) / 2, Offset.offset(0.0001));
+
+        List<KineticEvent<String>> events = new ArrayList<>();
+        closestPairUnderTest.addListener(events::addAll);
+
+        assertThat(closestPairUnderTest.advance(0.3)).isFalse();
+        assertThat(closestPairUnderTest.advance(1.0)).isTrue();
+        assertThat(closestPairUnderTest.getClosestPair()).isEqualTo(new KineticPair<>(a, c));
+        assertThat(closestPairUnderTest.getDistance()).isCloseTo(Math.sqrt(80), Offset.offset(0.0001));
+        assertThat(events.size()).isEqualTo(1);
+        assertThat(events.get(0).type).isEqualTo(KineticEvent.Type.CLOSEST_PAIR_CHANGED);
+        assertThat(new KineticPair<>(events.get(0).left, events.get(0).right)).isEqualTo(new KineticPair<>("A", "C"));
+    }
+
+    @Test
+    public void itAddsAndRemovesElements() {
+        KineticClosestPair<String> closestPairUnderTest = new KineticClosestPair<>(0.0);
+        TwoDimensionalKineticElement<String> a = TwoDimensionalKineticElement.of("A", t -> 0.0, t -> 0.0);
+        TwoDimensionalKineticElement<String> b = TwoDimensionalKineticElement.of("B", t -> 10.0, t -> 0.0);
+        TwoDimensionalKineticElement<String> c = TwoDimensionalKineticElement.of("C", t -> 9.0, t -> 2.0);
+
+        assertThat(closestPairUnderTest.getClosestPair()).isNull();
+        assertThat(closestPairUnderTest.getDistance()).isEqualTo(Double.POSITIVE_INFINITY);
+        closestPairUnderTest.add(a);
+        closestPairUnderTest.add(b);
+        assertThat(closestPairUnderTest.getClosestPair()).isEqualTo(new KineticPair<>(a, b));
+        assertThat(closestPairUnderTest.add(c)).isTrue();
+        assertThat(closestPairUnderTest.add(c)).isFalse();
+        assertThat(closestPairUnderTest.getClosestPair()).isEqualTo(new KineticPair<>(b, c));
+        assertThat(closestPairUnderTest.getDistance()).isCloseTo(Math.sqrt(5), Offset.offset(0.0001));
+
+        assertThat(closestPairUnderTest.remove(b)).isTrue();
+        assertThat(closestPairUnderTest.remove(b)).isFalse();
+        assertThat(closestPairUnderTest.contains(b)).isFalse();
+        assertThat(closestPairUnderTest.getClosestPair()).isEqualTo(new KineticPair<>(a, c));
+        assertThat(closestPairUnderTest.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void itKeepsTheClosestPairAsAnElementCrossesConeBoundaries() {
+        TwoDimensionalKineticElement<String> a = TwoDimensionalKineticElement.linear("A", 0, 0, 0, 0);
+        TwoDimensionalKineticElement<String> b = TwoDimensionalKineticElement.linear("B", 0, -3, 0, 0);
+        //On the boundary between the cones of A at 0 and 60 degrees
+        TwoDimensionalKineticElement<String> d = TwoDimensionalKineticElement.linear("D", 3 * Math.sqrt(3), 3, 0, 0);
+        //Passes over A, crossing the boundaries of its cones at 150, 90 and 30 degrees when x is -sqrt(3), 0 and sqrt(3)
+        TwoDimensionalKineticElement<String> c = TwoDimensionalKineticElement.linear("C", -5, 1, 1, 0);
+        List<TwoDimensionalKineticElement<String>> elements = Arrays.asList(a, b, c, d);
+        KineticClosestPair<String> closestPairUnderTest = new KineticClosestPair<>(0.0, elements);
+
+        assertThat(closestPairUnderTest.getClosestPair()).isEqualTo(new KineticPair<>(a, b));
+        for (double x : new double[]{-Math.sqrt(3), 0, Math.sqrt(3)}) {
+            for (double offset : new double[]{-0.01, 0, 0.01}) {
+                closestPairUnderTest.advance(5 + x + offset);
+                assertThat(closestPairUnderTest.getClosestPair()).isEqualTo(new KineticPair<>(a, c));
+                assertThat(closestPairUnderTest.getDistance()).isCloseTo(Math.hypot(x + offset, 1), Offset.offset(0.0001));
+            }
+        }
+
+        //C passes D at x = 3 sqrt(3), and then moves away from every other element
+        for (double time = 7.0; time <= 14.0; time += 0.25) {
+            closestPairUnderTest.advance(time);
+            assertThat(closestPairUnderTest.getDistance()).isCloseTo(distanceFromScratch(elements, time), Offset.offset(0.0001));
+        }
+        assertThat(closestPairUnderTest.getClosestPair()).isEqualTo(new KineticPair<>(a, b));
+    }
+
+    @Test
+    public void itMatchesAClosestPairComputedFromScratch() {
+        Random random = new Random(31);
+        List<TwoDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            final double x = random.nextDouble() * 100;
+            final double dx = random.nextDouble() * 10 - 5;
+            final double y = random.nextDouble() * 100;
+            final double dy = random.nextDouble() * 10 - 5;
+            elements.add(TwoDimensionalKineticElement.linear(i, x, y, dx, dy));
+        }
+        KineticClosestPair<Integer> closestPairUnderTest = new KineticClosestPair<>(0.0, elements.subList(0, 50));
+        for (int i = 50; i < 60; i++) {
+            closestPairUnderTest.add(elements.get(i));
+        }
+
+        for (int step = 1; step <= 60; step++) {
+            final double time = step * 0.5;
+            if (step % 15 == 0) {
+                //One of the closest pair and one other element
+                TwoDimensionalKineticElement<Integer> closest = closestPairUnderTest.getClosestPair().first;
+                assertThat(closestPairUnderTest.remove(closest)).isTrue();
+                elements.remove(closest);
+                assertThat(closestPairUnderTest.remove(elements.remove(step / 2))).isTrue();
+            }
+            closestPairUnderTest.advance(time);
+            KineticPair<TwoDimensionalKineticElement<Integer>> closest = closestPairUnderTest.getClosestPair();
+            assertThat(closestPairUnderTest.getDistance()).isCloseTo(distanceFromScratch(elements, time), Offset.offset(0.0001));
+            assertThat(distance(closest.first, closest.second, time)).isCloseTo(closestPairUnderTest.getDistance(), Offset.offset(0.0001));
+        }
+    }
+
+    private static <E> double distanceFromScratch(final List<TwoDimensionalKineticElement<E>> elements, final double t) {
+        double closest = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < elements.size(); i++) {
+            for (int j = i + 1; j < elements.size(); j++) {
+                closest = Math.min(closest, distance(elements.get(i), elements.get(j), t));
+            }
+        }
+        return closest;
+    }
+
+    private static double distance(TwoDimensionalKineticElement<?> a, TwoDimensionalKineticElement<?> b, double t) {
+        return Math.hypot(a.xAt(t) - b.xAt(t), a.yAt(t) - b.yAt(t));
+    }
+}
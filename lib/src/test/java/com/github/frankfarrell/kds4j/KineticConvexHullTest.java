@@ -0,0 +1,267 @@
+package com.github.frankfarrell.kds4j;
+
+import org.apache.commons.math3.analysis.solvers.BracketingNthOrderBrentSolver;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class KineticConvexHullTest {
+
+    @Test
+    public void itHasTheCorrectHull() {
+        TwoDimensionalKineticElement<String> a = TwoDimensionalKineticElement.of("A", t -> 0.0, t -> 0.0);
+        TwoDimensionalKineticElement<String> b = TwoDimensionalKineticElement.of("B", t -> 4.0, t -> 0.0);
+        TwoDimensionalKineticElement<String> c = TwoDimensionalKineticElement.of("C", t -> 2.0, t -> 4.0);
+        //Inside the triangle until it crosses the edge from B to C at t = 6 / 7, and B is inside the hull from t = 2
+        TwoDimensionalKineticElement<String> d = TwoDimensionalKineticElement.of("D", t -> 2.0 + 2 * t, t -> 1.0 - t / 2);
+        KineticConvexHull<String> hullUnderTest = new KineticConvexHull<>(0.0, Arrays.asList(a, b, c, d));
+
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("A", "B", "C"));
+
+        List<KineticEvent<String>> events = new ArrayList<>();
+        hullUnderTest.addListener(events::addAll);
+
+        assertThat(hullUnderTest.advance(0.5)).isFalse();
+        assertThat(hullUnderTest.advance(1.0)).isTrue();
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("A", "B", "D", "C"));
+        assertThat(events.size()).isEqualTo(1);
+        assertThat(events.get(0).type).isEqualTo(KineticEvent.Type.HULL_VERTEX_ADDED);
+        assertThat(events.get(0).left).isEqualTo("D");
+
+        assertThat(hullUnderTest.advance(3.0)).isTrue();
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("A", "D", "C"));
+        assertThat(hullUnderTest.isOnHull(b)).isFalse();
+    }
+
+    @Test
+    public void itAddsAndRemovesElements() {
+        KineticConvexHull<String> hullUnderTest = new KineticConvexHull<>(0.0);
+        TwoDimensionalKineticElement<String> a = TwoDimensionalKineticElement.of("A", t -> 0.0, t -> 0.0);
+        TwoDimensionalKineticElement<String> b = TwoDimensionalKineticElement.of("B", t -> 4.0, t -> 0.0);
+        TwoDimensionalKineticElement<String> c = TwoDimensionalKineticElement.of("C", t -> 2.0, t -> 4.0);
+        TwoDimensionalKineticElement<String> d = TwoDimensionalKineticElement.of("D", t -> 2.0, t -> 1.0);
+        TwoDimensionalKineticElement<String> e = TwoDimensionalKineticElement.of("E", t -> 2.0, t -> -2.0);
+
+        hullUnderTest.add(a);
+        hullUnderTest.add(b);
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("A", "B"));
+        hullUnderTest.add(c);
+        hullUnderTest.add(d);
+        hullUnderTest.add(e);
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("A", "E", "B", "C"));
+
+        assertThat(hullUnderTest.remove(e)).isTrue();
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("A", "B", "C"));
+        assertThat(hullUnderTest.remove(c)).isTrue();
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("A", "B", "D"));
+        assertThat(hullUnderTest.remove(c)).isFalse();
+        assertThat(hullUnderTest.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void itRemovesTheEndsOfTheChains() {
+        for (int removed = 0; removed < 3; removed++) {
+            TwoDimensionalKineticElement<String> a = TwoDimensionalKineticElement.linear("A", 0, 0, 0, 0);
+            TwoDimensionalKineticElement<String> b = TwoDimensionalKineticElement.linear("B", 4, 0, 0, 0);
+            TwoDimensionalKineticElement<String> c = TwoDimensionalKineticElement.linear("C", 2, 4, 0, 0);
+            List<TwoDimensionalKineticElement<String>> elements = new ArrayList<>(Arrays.asList(a, b, c));
+            KineticConvexHull<String> hullUnderTest = new KineticConvexHull<>(0.0, elements);
+
+            //A and B are the first and last vertices of both chains
+            assertThat(hullUnderTest.remove(elements.remove(removed))).isTrue();
+            assertThat(elements(hullUnderTest)).isEqualTo(hullFromScratch(elements, 0.0));
+            assertThat(hullUnderTest.remove(elements.remove(0))).isTrue();
+            assertThat(elements(hullUnderTest).size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void itKeepsItsCertificatesWhenElementsAreAddedWhileAdvancing() {
+        for (int seed = 0; seed < 60; seed++) {
+            Random random = new Random(seed);
+            KineticConvexHull<Integer> hullUnderTest = new KineticConvexHull<>(0.0);
+            double time = 0.0;
+            for (int i = 0; i < 12; i++) {
+                hullUnderTest.add(TwoDimensionalKineticElement.linear(i, random.nextDouble() * 10, random.nextDouble() * 10,
+                        random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1));
+                time += random.nextDouble();
+                hullUnderTest.advance(time);
+            }
+            assertThat(hullUnderTest.size()).isEqualTo(12);
+        }
+    }
+
+    @Test
+    public void itLeavesCollinearElementsOffTheHull() {
+        TwoDimensionalKineticElement<String> a = TwoDimensionalKineticElement.linear("A", 0, 0, 0, 0);
+        //On the edge from A to C, until it moves below it
+        TwoDimensionalKineticElement<String> b = TwoDimensionalKineticElement.linear("B", 2, 0, 0, -1);
+        TwoDimensionalKineticElement<String> c = TwoDimensionalKineticElement.linear("C", 4, 0, 0, 0);
+        TwoDimensionalKineticElement<String> d = TwoDimensionalKineticElement.linear("D", 2, 3, 0, 0);
+        //Crosses the edge from A to D at t = 1, when it is collinear with them
+        TwoDimensionalKineticElement<String> e = TwoDimensionalKineticElement.linear("E", -1, 1.5, 2, 0);
+        List<TwoDimensionalKineticElement<String>> elements = Arrays.asList(a, b, c, d, e);
+        KineticConvexHull<String> hullUnderTest = new KineticConvexHull<>(0.0, elements);
+
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("E", "A", "B", "C", "D"));
+        //Stepping around the events, at t = 0.5 when E passes A in x and t = 1
+        for (double time = 0.2; time <= 1.75; time += 0.25) {
+            hullUnderTest.advance(time);
+            assertThat(elements(hullUnderTest)).isEqualTo(hullFromScratch(elements, time));
+        }
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("A", "B", "C", "D"));
+
+        //Every element on one line
+        KineticConvexHull<String> lineUnderTest = new KineticConvexHull<>(0.0, Arrays.asList(a, c,
+                TwoDimensionalKineticElement.linear("F", 2, 0, 0, 0)));
+        assertThat(elements(lineUnderTest)).isEqualTo(Arrays.asList("A", "C"));
+    }
+
+    @Test
+    public void itOrdersElementsWithTheSameXByY() {
+        TwoDimensionalKineticElement<String> a = TwoDimensionalKineticElement.linear("A", 0, 0, 0, 0);
+        TwoDimensionalKineticElement<String> b = TwoDimensionalKineticElement.linear("B", 0, 2, 0, 0);
+        TwoDimensionalKineticElement<String> c = TwoDimensionalKineticElement.linear("C", 4, 1, 0, 0);
+        TwoDimensionalKineticElement<String> d = TwoDimensionalKineticElement.linear("D", 4, 3, 0, 0);
+        //Crosses the edge from A to B, and later passes C
+        TwoDimensionalKineticElement<String> e = TwoDimensionalKineticElement.linear("E", -1, 1, 1, 0);
+        List<TwoDimensionalKineticElement<String>> elements = Arrays.asList(a, b, c, d, e);
+        KineticConvexHull<String> hullUnderTest = new KineticConvexHull<>(0.0, elements);
+
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("E", "A", "C", "D", "B"));
+        hullUnderTest.advance(1.5);
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("A", "C", "D", "B"));
+        hullUnderTest.advance(6.0);
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("A", "E", "D", "B"));
+        assertThat(elements(hullUnderTest)).isEqualTo(hullFromScratch(elements, 6.0));
+
+        KineticConvexHull<String> verticalUnderTest = new KineticConvexHull<>(0.0, Arrays.asList(a, b, c));
+        assertThat(elements(verticalUnderTest)).isEqualTo(Arrays.asList("A", "C", "B"));
+    }
+
+    @Test
+    public void itMatchesAHullComputedFromScratch() {
+        Random random = new Random(29);
+        List<TwoDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            final double x = random.nextDouble() * 100;
+            final double dx = random.nextDouble() * 10 - 5;
+            final double y = random.nextDouble() * 100;
+            final double dy = random.nextDouble() * 10 - 5;
+            elements.add(TwoDimensionalKineticElement.of(i, t -> x + dx * t, t -> y + dy * t));
+        }
+        KineticConvexHull<Integer> hullUnderTest = new KineticConvexHull<>(0.0, elements.subList(0, 50));
+        for (int i = 50; i < 60; i++) {
+            hullUnderTest.add(elements.get(i));
+        }
+
+        for (int step = 1; step <= 60; step++) {
+            final double time = step * 0.5;
+            if (step % 15 == 0) {
+                //One vertex of the hull and one other element
+                TwoDimensionalKineticElement<Integer> vertex = hullUnderTest.getHull().get(1);
+                assertThat(hullUnderTest.remove(vertex)).isTrue();
+                elements.remove(vertex);
+                assertThat(hullUnderTest.remove(elements.remove(step / 2))).isTrue();
+            }
+            hullUnderTest.advance(time);
+            assertThat(elements(hullUnderTest)).isEqualTo(hullFromScratch(elements, time));
+        }
+    }
+
+    @Test
+    public void itFindsBothTimesAVertexOfLinearElementsTurnsReflex() {
+        //Vertex 1 turns reflex at about t = 0.974 and convex again at about t = 1.568
+        List<TwoDimensionalKineticElement<Integer>> elements = Arrays.asList(
+                TwoDimensionalKineticElement.linear(0, 5.069, 2.870, -0.908, -0.892),
+                TwoDimensionalKineticElement.linear(1, 4.982, 1.571, -0.920, 0.433),
+                TwoDimensionalKineticElement.linear(2, 2.454, 2.649, 0.602, -0.781),
+                TwoDimensionalKineticElement.linear(3, 3.479, 9.261, -0.529, -0.322),
+                TwoDimensionalKineticElement.linear(4, 2.066, 4.270, 0.258, 0.194));
+        KineticConvexHull<Integer> hullUnderTest = new KineticConvexHull<>(0.0, elements);
+
+        for (double time = 0.6; time <= 2.0; time += 0.6) {
+            hullUnderTest.advance(time);
+            assertThat(elements(hullUnderTest)).isEqualTo(hullFromScratch(elements, time));
+        }
+    }
+
+    @Test
+    public void itMatchesAHullComputedFromScratchForLinearElements() {
+        for (int seed = 0; seed < 300; seed++) {
+            Random random = new Random(seed);
+            KineticConvexHull<Integer> hullUnderTest = new KineticConvexHull<>(0.0);
+            List<TwoDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+            double time = 0.0;
+            for (int i = 0; i < 12; i++) {
+                TwoDimensionalKineticElement<Integer> element = TwoDimensionalKineticElement.linear(i, random.nextDouble() * 10,
+                        random.nextDouble() * 10, random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1);
+                elements.add(element);
+                hullUnderTest.add(element);
+                time += random.nextDouble();
+                hullUnderTest.advance(time);
+                if (elements.size() >= 3) {
+                    assertThat(elements(hullUnderTest)).isEqualTo(hullFromScratch(elements, time));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void itDoesNotFillTheRootCacheWithCertificates() {
+        OneDimensionalKDSSolver solver = new OneDimensionalKDSSolver(new BracketingNthOrderBrentSolver(OneDimensionalKDSSolver.DEFAULT_RELATIVE_ACCURACY,
+                OneDimensionalKDSSolver.DEFAULT_ABSOLUTE_ACCURACY, OneDimensionalKDSSolver.DEFAULT_MAXIMAL_ORDER),
+                KineticMetrics.NO_OP, null, OneDimensionalKDSSolver.DEFAULT_HORIZON, 100);
+        TwoDimensionalKineticElement<String> a = TwoDimensionalKineticElement.of("A", t -> 0.0, t -> 0.0);
+        TwoDimensionalKineticElement<String> b = TwoDimensionalKineticElement.of("B", t -> 4.0, t -> 0.0);
+        TwoDimensionalKineticElement<String> c = TwoDimensionalKineticElement.of("C", t -> 2.0, t -> 4.0);
+        TwoDimensionalKineticElement<String> d = TwoDimensionalKineticElement.of("D", t -> 2.0 + Math.sin(t), t -> 1.0 - t / 2);
+        KineticConvexHull<String> hullUnderTest = new KineticConvexHull<>(0.0, Arrays.asList(a, b, c, d), solver);
+
+        hullUnderTest.advance(5.0);
+
+        assertThat(elements(hullUnderTest)).isEqualTo(Arrays.asList("A", "D", "B", "C"));
+        assertThat(solver.cachedPairs()).isEqualTo(0);
+    }
+
+    private static <E> List<E> elements(final KineticConvexHull<E> hull) {
+        List<E> elements = new ArrayList<>();
+        hull.getHull().forEach(element -> elements.add(element.element));
+        return elements;
+    }
+
+    /*
+    Monotone chain, counter clockwise from the minimum x
+     */
+    private static <E> List<E> hullFromScratch(final List<TwoDimensionalKineticElement<E>> elements, final double t) {
+        List<TwoDimensionalKineticElement<E>> sorted = new ArrayList<>(elements);
+        sorted.sort(Comparator.<TwoDimensionalKineticElement<E>>comparingDouble(element -> element.xAt(t))
+                .thenComparingDouble(element -> element.yAt(t)));
+        List<TwoDimensionalKineticElement<E>> hull = new ArrayList<>();
+        for (int pass = 0; pass < 2; pass++) {
+            final int start = hull.size();
+            for (TwoDimensionalKineticElement<E> element : sorted) {
+                while (hull.size() >= start + 2 && cross(hull.get(hull.size() - 2), hull.get(hull.size() - 1), element, t) <= 0) {
+                    hull.remove(hull.size() - 1);
+                }
+                hull.add(element);
+            }
+            hull.remove(hull.size() - 1);
+            sorted = new ArrayList<>(sorted);
+            java.util.Collections.reverse(sorted);
+        }
+        List<E> result = new ArrayList<>();
+        hull.forEach(element -> result.add(element.element));
+        return result;
+    }
+
+    private static double cross(TwoDimensionalKineticElement<?> a, TwoDimensionalKineticElement<?> b, TwoDimensionalKineticElement<?> c, double t) {
+        return (b.xAt(t) - a.xAt(t)) * (c.yAt(t) - a.yAt(t)) - (b.yAt(t) - a.yAt(t)) * (c.xAt(t) - a.xAt(t));
+    }
+}
@@ -1,8 +1,16 @@
 package com.github.frankfarrell.kds4j;
 
+import org.assertj.core.data.Offset;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 
 /**
  * Created by frankfarrell on 13/03/2018.
@@ -40,7 +48,8 @@ public class KineticPriorityQueueTest {
         //Order does not change from 3->4
         assertThat(queueUnderTest.advance(4.0)).isFalse();
 
-        assertThat(queueUnderTest.advance(9.0)).isTrue();
+        //C overtakes A, but the head of the queue is still B
+        assertThat(queueUnderTest.advance(9.0)).isFalse();
         assertThat(queueUnderTest.peek().element).isEqualTo("B");
 
         assertThat(queueUnderTest.advance(11.0)).isTrue();
@@ -106,4 +115,74 @@ public class KineticPriorityQueueTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void itIteratesOverAllElements() {
+        KineticPriorityQueue<String> queueUnderTest = new KineticPriorityQueue<String>(0.0);
+
+        queueUnderTest.add(new OneDimensionalKineticElement<>("A", x -> 8 - x));
+        queueUnderTest.add(new OneDimensionalKineticElement<>("B", x -> x / 2 + 5));
+        queueUnderTest.add(new OneDimensionalKineticElement<>("C", x -> (x * x) / 2 - 4 * x));
+
+        List<String> elements = new ArrayList<>();
+        for (OneDimensionalKineticElement<String> element : queueUnderTest) {
+            elements.add(element.element);
+        }
+        Collections.sort(elements);
+        assertThat(elements).isEqualTo(Arrays.asList("A", "B", "C"));
+
+        Iterator<OneDimensionalKineticElement<String>> iterator = queueUnderTest.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().element.equals("A")) {
+                iterator.remove();
+            }
+        }
+        assertThat(queueUnderTest.size()).isEqualTo(2);
+        assertThat(queueUnderTest.peek().element).isEqualTo("B");
+    }
+
+    @Test
+    public void itReportsEachNewHeadToListeners() {
+        KineticPriorityQueue<String> queueUnderTest = new KineticPriorityQueue<String>(0.0);
+
+        queueUnderTest.add(new OneDimensionalKineticElement<>("A", x -> 8 - x));
+        queueUnderTest.add(new OneDimensionalKineticElement<>("B", x -> x / 2 + 5));
+        queueUnderTest.add(new OneDimensionalKineticElement<>("C", x -> (x * x) / 2 - 4 * x));
+
+        List<KineticEvent<String>> events = new ArrayList<>();
+        queueUnderTest.addListener(events::addAll);
+
+        assertThat(queueUnderTest.advance(11.0)).isTrue();
+
+        //B takes the head from A at 2, then C from B at 10
+        assertThat(events.size()).isEqualTo(2);
+        assertThat(events.get(0).type).isEqualTo(KineticEvent.Type.NEW_TOP);
+        assertThat(events.get(0).left).isEqualTo("B");
+        assertThat(events.get(0).right).isEqualTo("A");
+        assertThat(events.get(0).time).isCloseTo(2.0, Offset.offset(1e-6));
+        assertThat(events.get(1).left).isEqualTo("C");
+        assertThat(events.get(1).right).isEqualTo("B");
+        assertThat(events.get(1).time).isCloseTo(10.0, Offset.offset(1e-6));
+    }
+
+    @Test
+    public void itReturnsNullWhenEmpty() {
+        KineticPriorityQueue<String> queueUnderTest = new KineticPriorityQueue<String>(0.0);
+
+        assertThat(queueUnderTest.peek()).isNull();
+        assertThat(queueUnderTest.poll()).isNull();
+        assertThat(queueUnderTest.advance(10.0)).isFalse();
+    }
+
+    @Test
+    public void itRejectsAnElementThatIsAlreadyInTheQueue() {
+        OneDimensionalKineticElement<String> a = PolynomialKineticElement.linear("A", 1.0, 0.0);
+        KineticPriorityQueue<String> queueUnderTest = new KineticPriorityQueue<String>(0.0);
+        queueUnderTest.add(a);
+
+        assertThatThrownBy(() -> queueUnderTest.add(a)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> queueUnderTest.offer(a)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new KineticPriorityQueue<String>(0.0, Arrays.asList(a, a)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(queueUnderTest.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.frankfarrell.kds4j;
+
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class KineticSchedulerTest {
+
+    @Test
+    public void itReportsTheNextEventTime() {
+        KineticPriorityQueue<String> queueUnderTest = new KineticPriorityQueue<>(0.0);
+        assertThat(queueUnderTest.nextEventTime()).isEqualTo(Double.POSITIVE_INFINITY);
+
+        queueUnderTest.offer(PolynomialKineticElement.linear("A", 8, -1));
+        queueUnderTest.offer(PolynomialKineticElement.linear("B", 5, 0.5));
+        assertThat(queueUnderTest.nextEventTime()).isCloseTo(2.0, Offset.offset(1e-9));
+
+        //Nothing changes before the next event
+        assertThat(queueUnderTest.advance(1.999)).isFalse();
+        assertThat(queueUnderTest.advance(2.001)).isTrue();
+        assertThat(queueUnderTest.nextEventTime()).isEqualTo(Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void itOnlyAdvancesAtEventsAndRequestedTimes() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        double[] now = {0.0};
+        try (KineticScheduler schedulerUnderTest = new KineticScheduler(executor, () -> now[0], TimeUnit.HOURS)) {
+            KineticSortedList<String> listUnderTest = new KineticSortedList<>(0.0);
+            listUnderTest.add(PolynomialKineticElement.linear("A", 8, -1));
+            listUnderTest.add(PolynomialKineticElement.linear("B", 5, 0.5));
+            schedulerUnderTest.register(listUnderTest);
+            schedulerUnderTest.requestAdvance(1.0);
+
+            now[0] = 0.5;
+            assertThat(schedulerUnderTest.advance()).isEqualTo(1.0);
+            now[0] = 1.5;
+            assertThat(schedulerUnderTest.advance()).isCloseTo(2.0, Offset.offset(1e-9));
+            now[0] = 2.5;
+            assertThat(schedulerUnderTest.advance()).isEqualTo(Double.POSITIVE_INFINITY);
+            assertThat(listUnderTest.get(0).element).isEqualTo("B");
+            assertThat(listUnderTest.getTime()).isEqualTo(2.5);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void itWakesAtTheNextEvent() throws InterruptedException {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try (KineticScheduler schedulerUnderTest = new KineticScheduler(executor, 0.0, TimeUnit.MILLISECONDS)) {
+            //B overtakes A 50ms from now
+            KineticPriorityQueue<String> queueUnderTest = new KineticPriorityQueue<>(0.0);
+            queueUnderTest.offer(PolynomialKineticElement.linear("A", 100, -1));
+            queueUnderTest.offer(PolynomialKineticElement.linear("B", 50, 0));
+            CountDownLatch overtaken = new CountDownLatch(1);
+            queueUnderTest.addListener(events -> overtaken.countDown());
+
+            schedulerUnderTest.register(queueUnderTest);
+
+            assertThat(overtaken.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(queueUnderTest.getTime()).isGreaterThan(50.0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,7 +1,17 @@
 package com.github.frankfarrell.kds4j;
 
+import org.apache.commons.math3.analysis.solvers.BracketingNthOrderBrentSolver;
+import org.assertj.core.data.Offset;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
 /**
@@ -82,4 +92,606 @@ public class KineticSortedListTest {
         assertThat(listUnderTest.get(0).element).isEqualTo("C");
         assertThat(listUnderTest.get(1).element).isEqualTo("B");
     }
+
+    @Test
+    public void itHasTheCorrectOrderingForPrimitiveElements() {
+
+        KineticSortedList<String> listUnderTest = new KineticSortedList<String>(0.0);
+
+        listUnderTest.add(OneDimensionalKineticElement.of("A", x -> 8 - x));
+        listUnderTest.add(OneDimensionalKineticElement.of("B", x -> x / 2 + 5));
+        listUnderTest.add(OneDimensionalKineticElement.of("C", x -> (x * x) / 2 - 4 * x));
+
+        assertThat(listUnderTest.get(0).element).isEqualTo("A");
+        assertThat(listUnderTest.get(0).valueAt(0.0)).isEqualTo(8.0);
+
+        assertThat(listUnderTest.advance(3.0)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("B");
+        assertThat(listUnderTest.get(1).element).isEqualTo("A");
+        assertThat(listUnderTest.get(2).element).isEqualTo("C");
+
+        assertThat(listUnderTest.advance(11.0)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("C");
+        assertThat(listUnderTest.get(1).element).isEqualTo("B");
+        assertThat(listUnderTest.get(2).element).isEqualTo("A");
+    }
+
+    @Test
+    public void itHasTheCorrectOrderingForPolynomialElements() {
+
+        KineticSortedList<String> listUnderTest = new KineticSortedList<String>(0.0);
+
+        listUnderTest.add(PolynomialKineticElement.linear("A", 8, -1));
+        listUnderTest.add(PolynomialKineticElement.linear("B", 5, 0.5));
+        listUnderTest.add(new PolynomialKineticElement<>("C", 0, -4, 0.5));
+
+        assertThat(listUnderTest.advance(3.0)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("B");
+        assertThat(listUnderTest.get(1).element).isEqualTo("A");
+        assertThat(listUnderTest.get(2).element).isEqualTo("C");
+
+        assertThat(listUnderTest.advance(9.0)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("B");
+        assertThat(listUnderTest.get(1).element).isEqualTo("C");
+        assertThat(listUnderTest.get(2).element).isEqualTo("A");
+
+        assertThat(listUnderTest.advance(11.0)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("C");
+        assertThat(listUnderTest.get(1).element).isEqualTo("B");
+        assertThat(listUnderTest.get(2).element).isEqualTo("A");
+    }
+
+    @Test
+    public void itHasTheCorrectOrderingWhenTheLastItemIsRemoved() {
+
+        KineticSortedList<String> listUnderTest = new KineticSortedList<String>(0.0);
+
+        listUnderTest.add(new OneDimensionalKineticElement<>("A", x -> 8 - x));
+        listUnderTest.add(new OneDimensionalKineticElement<>("B", x -> x / 2 + 5));
+        listUnderTest.add(new OneDimensionalKineticElement<>("C", x -> (x * x) / 2 - 4 * x));
+
+        assertThat(listUnderTest.remove(2).element).isEqualTo("C");
+        assertThat(listUnderTest.size()).isEqualTo(2);
+
+        assertThat(listUnderTest.advance(3.0)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("B");
+        assertThat(listUnderTest.get(1).element).isEqualTo("A");
+
+        assertThat(listUnderTest.remove(0).element).isEqualTo("B");
+        assertThat(listUnderTest.remove(0).element).isEqualTo("A");
+        assertThat(listUnderTest.advance(20.0)).isFalse();
+    }
+
+    @Test
+    public void itHasTheCorrectOrderingAfterBulkInsertsAndRemoves() {
+
+        KineticSortedList<String> listUnderTest = new KineticSortedList<String>(0.0);
+
+        OneDimensionalKineticElement<String> first = new OneDimensionalKineticElement<>("A", x -> 8 - x);
+        OneDimensionalKineticElement<String> second = new OneDimensionalKineticElement<>("B", x -> x / 2 + 5);
+        OneDimensionalKineticElement<String> third = new OneDimensionalKineticElement<>("C", x -> (x * x) / 2 - 4 * x);
+        OneDimensionalKineticElement<String> fourth = new OneDimensionalKineticElement<>("D", x -> 6.0);
+
+        listUnderTest.add(second);
+        assertThat(listUnderTest.addAll(Arrays.asList(third, first, fourth))).isTrue();
+
+        assertThat(listUnderTest.get(0).element).isEqualTo("A");
+        assertThat(listUnderTest.get(1).element).isEqualTo("D");
+        assertThat(listUnderTest.get(2).element).isEqualTo("B");
+        assertThat(listUnderTest.get(3).element).isEqualTo("C");
+
+        assertThat(listUnderTest.removeIf(element -> element.element.equals("D"))).isTrue();
+        assertThat(listUnderTest.size()).isEqualTo(3);
+
+        assertThat(listUnderTest.advance(3.0)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("B");
+        assertThat(listUnderTest.get(1).element).isEqualTo("A");
+        assertThat(listUnderTest.get(2).element).isEqualTo("C");
+
+        assertThat(listUnderTest.retainAll(Arrays.asList(second, third))).isTrue();
+        assertThat(listUnderTest.advance(11.0)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("C");
+        assertThat(listUnderTest.get(1).element).isEqualTo("B");
+
+        assertThat(listUnderTest.removeAll(Arrays.asList(second, third))).isTrue();
+        assertThat(listUnderTest.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void itIsOrderedAfterRandomBulkOperations() {
+        Random random = new Random(11);
+        KineticSortedList<Integer> listUnderTest = new KineticSortedList<Integer>(0.0);
+
+        for (int round = 0; round < 5; round++) {
+            List<OneDimensionalKineticElement<Integer>> batch = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                batch.add(PolynomialKineticElement.linear(round * 100 + i, random.nextDouble() * 100, random.nextDouble() * 2 - 1));
+            }
+            listUnderTest.addAll(batch);
+            listUnderTest.removeIf(element -> element.element % 7 == 0);
+            assertThat(isOrdered(listUnderTest, 0.0)).isTrue();
+        }
+        assertThat(listUnderTest.size()).isEqualTo(500 - 72);
+    }
+
+    @Test
+    public void itHasTheCorrectOrderingWithTreeStorage() {
+
+        KineticSortedList<String> listUnderTest = new KineticSortedList<String>(0.0, KineticSortedList.Storage.TREE);
+
+        listUnderTest.add(new OneDimensionalKineticElement<>("A", x -> 8 - x));
+        listUnderTest.add(new OneDimensionalKineticElement<>("B", x -> x / 2 + 5));
+        listUnderTest.add(new OneDimensionalKineticElement<>("C", x -> (x * x) / 2 - 4 * x));
+
+        assertThat(listUnderTest.advance(3.0)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("B");
+        assertThat(listUnderTest.get(1).element).isEqualTo("A");
+        assertThat(listUnderTest.get(2).element).isEqualTo("C");
+
+        assertThat(listUnderTest.remove(1).element).isEqualTo("A");
+        assertThat(listUnderTest.advance(11.0)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("C");
+        assertThat(listUnderTest.get(1).element).isEqualTo("B");
+    }
+
+    @Test
+    public void itIsOrderedAfterRandomInsertsAndRemovesWithTreeStorage() {
+        Random random = new Random(5);
+        KineticSortedList<Integer> arrayList = new KineticSortedList<Integer>(0.0);
+        KineticSortedList<Integer> treeList = new KineticSortedList<Integer>(0.0, KineticSortedList.Storage.TREE);
+
+        double time = 0.0;
+        for (int i = 0; i < 1000; i++) {
+            if (random.nextInt(3) == 0 && !arrayList.isEmpty()) {
+                int index = random.nextInt(arrayList.size());
+                assertThat(treeList.remove(index).element).isEqualTo(arrayList.remove(index).element);
+            } else {
+                OneDimensionalKineticElement<Integer> element =
+                        PolynomialKineticElement.linear(i, random.nextDouble() * 100, random.nextDouble() * 2 - 1);
+                arrayList.add(element);
+                treeList.add(element);
+            }
+            //Small steps, so there are few crossings between each advance
+            if (i % 50 == 0) {
+                time += 0.01;
+                arrayList.advance(time);
+                treeList.advance(time);
+            }
+            assertThat(treeList.size()).isEqualTo(arrayList.size());
+        }
+        assertThat(isOrdered(treeList, time)).isTrue();
+        assertThat(new ArrayList<>(treeList)).isEqualTo(new ArrayList<>(arrayList));
+    }
+
+    @Test
+    public void itHasTheCorrectOrderingWhenEventDriven() {
+
+        KineticSortedList<String> listUnderTest = new KineticSortedList<String>(0.0, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+
+        listUnderTest.add(new OneDimensionalKineticElement<>("A", x -> 8 - x));
+        listUnderTest.add(new OneDimensionalKineticElement<>("B", x -> x / 2 + 5));
+        listUnderTest.add(new OneDimensionalKineticElement<>("C", x -> (x * x) / 2 - 4 * x));
+
+        assertThat(listUnderTest.advance(3.0)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("B");
+        assertThat(listUnderTest.get(1).element).isEqualTo("A");
+        assertThat(listUnderTest.get(2).element).isEqualTo("C");
+
+        assertThat(listUnderTest.advance(4.0)).isFalse();
+
+        //Both crossings, at 8 and 10, happen in one step
+        assertThat(listUnderTest.advance(11.0)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("C");
+        assertThat(listUnderTest.get(1).element).isEqualTo("B");
+        assertThat(listUnderTest.get(2).element).isEqualTo("A");
+    }
+
+    @Test
+    public void itIsOrderedAfterCoarseStepsWhenEventDriven() {
+        Random random = new Random(3);
+        List<OneDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            elements.add(PolynomialKineticElement.linear(i, random.nextDouble() * 100, random.nextDouble() * 2 - 1));
+        }
+
+        for (KineticSortedList.Storage storage : KineticSortedList.Storage.values()) {
+            KineticSortedList<Integer> listUnderTest = new KineticSortedList<Integer>(0.0, elements,
+                    new OneDimensionalKDSSolver(), storage, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+
+            for (double time = 25.0; time <= 100.0; time += 25.0) {
+                assertThat(listUnderTest.advance(time)).isTrue();
+                assertThat(isOrdered(listUnderTest, time)).isTrue();
+            }
+            assertThat(listUnderTest.size()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    public void itReportsEachSwapToListeners() {
+
+        KineticSortedList<String> listUnderTest = new KineticSortedList<String>(3.0, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+        listUnderTest.add(new OneDimensionalKineticElement<>("A", x -> 8 - x));
+        listUnderTest.add(new OneDimensionalKineticElement<>("B", x -> x / 2 + 5));
+        listUnderTest.add(new OneDimensionalKineticElement<>("C", x -> (x * x) / 2 - 4 * x));
+
+        List<List<KineticEvent<String>>> batches = new ArrayList<>();
+        listUnderTest.addListener(batches::add);
+
+        assertThat(listUnderTest.advance(4.0)).isFalse();
+        assertThat(listUnderTest.advance(11.0)).isTrue();
+
+        assertThat(batches.size()).isEqualTo(1);
+        List<KineticEvent<String>> events = batches.get(0);
+        assertThat(events.size()).isEqualTo(2);
+
+        assertThat(events.get(0).type).isEqualTo(KineticEvent.Type.SWAP);
+        assertThat(events.get(0).left).isEqualTo("C");
+        assertThat(events.get(0).right).isEqualTo("A");
+        assertThat(events.get(0).time).isCloseTo(8.0, Offset.offset(1e-6));
+
+        assertThat(events.get(1).left).isEqualTo("C");
+        assertThat(events.get(1).right).isEqualTo("B");
+        assertThat(events.get(1).time).isCloseTo(10.0, Offset.offset(1e-6));
+    }
+
+    @Test
+    public void itComputesTheSameCertificatesInParallel() {
+        Random random = new Random(13);
+        List<OneDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+        for (int i = 0; i < 3 * OneDimensionalKDSSolver.PARALLEL_THRESHOLD; i++) {
+            final double position = random.nextDouble() * 1000;
+            final double speed = random.nextDouble() * 2 - 1;
+            elements.add(OneDimensionalKineticElement.of(i, t -> position + speed * t));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            KineticSortedList<Integer> serialList = new KineticSortedList<Integer>(0.0, elements,
+                    new OneDimensionalKDSSolver(), KineticSortedList.Storage.ARRAY, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+            KineticSortedList<Integer> parallelList = new KineticSortedList<Integer>(0.0, elements,
+                    new OneDimensionalKDSSolver(KineticMetrics.NO_OP, pool),
+                    KineticSortedList.Storage.ARRAY, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+
+            assertThat(new ArrayList<>(parallelList)).isEqualTo(new ArrayList<>(serialList));
+            serialList.advance(5.0);
+            parallelList.advance(5.0);
+            assertThat(new ArrayList<>(parallelList)).isEqualTo(new ArrayList<>(serialList));
+            assertThat(isOrdered(parallelList, 5.0)).isTrue();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void itRechecksCertificatesAtTheHorizon() {
+        OneDimensionalKDSSolver solver = new OneDimensionalKDSSolver(
+                new BracketingNthOrderBrentSolver(1.0e-12, 1.0e-8, 5), KineticMetrics.NO_OP, null, 10.0);
+
+        for (KineticSortedList.AdvanceMode advanceMode : KineticSortedList.AdvanceMode.values()) {
+            KineticSortedList<String> listUnderTest = new KineticSortedList<String>(0.0, Arrays.asList(
+                    OneDimensionalKineticElement.of("A", x -> 100 - x),
+                    OneDimensionalKineticElement.of("B", x -> 0.0)),
+                    solver, KineticSortedList.Storage.ARRAY, advanceMode);
+
+            //The crossing at 100 is beyond the horizon, so it is only found by re-solving as time gets close to it
+            assertThat(listUnderTest.advance(50.0)).isFalse();
+            assertThat(listUnderTest.get(0).element).isEqualTo("A");
+
+            assertThat(listUnderTest.advance(101.0)).isTrue();
+            assertThat(listUnderTest.get(0).element).isEqualTo("B");
+            assertThat(listUnderTest.get(1).element).isEqualTo("A");
+        }
+    }
+
+    @Test
+    public void itFindsCrossingsBeyondTheBracketingWindow() {
+        KineticSortedList<String> listUnderTest = new KineticSortedList<String>(0.0, Arrays.asList(
+                OneDimensionalKineticElement.of("A", x -> 1.0e6 - x),
+                OneDimensionalKineticElement.of("B", x -> 0.0)));
+
+        assertThat(listUnderTest.advance(2.0e6)).isTrue();
+        assertThat(listUnderTest.get(0).element).isEqualTo("B");
+    }
+
+    @Test
+    public void itAnswersRangeAndRankQueries() {
+        for (KineticSortedList.Storage storage : KineticSortedList.Storage.values()) {
+            OneDimensionalKineticElement<String> a = OneDimensionalKineticElement.of("A", x -> 10 - x);
+            OneDimensionalKineticElement<String> b = OneDimensionalKineticElement.of("B", x -> 5.0);
+            OneDimensionalKineticElement<String> c = OneDimensionalKineticElement.of("C", x -> 2 * x);
+            OneDimensionalKineticElement<String> d = OneDimensionalKineticElement.of("D", x -> 1.0);
+            KineticSortedList<String> listUnderTest = new KineticSortedList<String>(0.0, Arrays.asList(a, b, c, d),
+                    new OneDimensionalKDSSolver(), storage, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+
+            //A 10, B 5, D 1, C 0
+            assertThat(listUnderTest.countInRange(1.0, 5.0)).isEqualTo(2);
+            assertThat(listUnderTest.range(1.0, 5.0).get(0).element).isEqualTo("B");
+            assertThat(listUnderTest.range(1.0, 5.0).get(1).element).isEqualTo("D");
+            assertThat(listUnderTest.range(11.0, 20.0).isEmpty()).isTrue();
+            assertThat(listUnderTest.rank(d)).isEqualTo(2);
+            assertThat(listUnderTest.select(3).element).isEqualTo("C");
+            assertThat(listUnderTest.valueAt(0)).isCloseTo(10.0, Offset.offset(0.0001));
+
+            //A 7, C 6, B 5, D 1
+            listUnderTest.advance(3.0);
+            assertThat(listUnderTest.countInRange(4.0, 6.5)).isEqualTo(2);
+            assertThat(listUnderTest.range(4.0, 6.5).get(0).element).isEqualTo("C");
+            assertThat(listUnderTest.countInRange(0.0, 100.0)).isEqualTo(4);
+            assertThat(listUnderTest.rank(c)).isEqualTo(1);
+            assertThat(listUnderTest.rank(OneDimensionalKineticElement.of("E", x -> 6.0))).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    public void itKeepsRanksAfterInsertsAndRemoves() {
+        for (KineticSortedList.Storage storage : KineticSortedList.Storage.values()) {
+            KineticSortedList<Integer> listUnderTest = new KineticSortedList<Integer>(0.0, Collections.emptyList(),
+                    new OneDimensionalKDSSolver(), storage, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+            List<OneDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+            Random random = new Random(17);
+            for (int i = 0; i < 200; i++) {
+                final double value = random.nextDouble() * 100;
+                OneDimensionalKineticElement<Integer> element = OneDimensionalKineticElement.of(i, x -> value);
+                elements.add(element);
+                listUnderTest.add(element);
+            }
+            for (int i = 0; i < 200; i += 3) {
+                assertThat(listUnderTest.remove(elements.get(i))).isTrue();
+            }
+            for (int i = 0; i < 200; i++) {
+                final int rank = listUnderTest.rank(elements.get(i));
+                if (i % 3 == 0) {
+                    assertThat(rank).isEqualTo(-1);
+                } else {
+                    assertThat(listUnderTest.get(rank)).isSameAs(elements.get(i));
+                }
+            }
+
+            //Each copy of an element added twice is found until both are removed
+            OneDimensionalKineticElement<Integer> twice = elements.get(1);
+            listUnderTest.add(twice);
+            assertThat(listUnderTest.remove(twice)).isTrue();
+            assertThat(listUnderTest.get(listUnderTest.rank(twice))).isSameAs(twice);
+            assertThat(listUnderTest.remove(twice)).isTrue();
+            assertThat(listUnderTest.contains(twice)).isFalse();
+        }
+    }
+
+    @Test
+    public void itUpdatesTrajectoriesInPlace() {
+        for (KineticSortedList.Storage storage : KineticSortedList.Storage.values()) {
+            Random random = new Random(7);
+            List<OneDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                elements.add(PolynomialKineticElement.linear(i, random.nextDouble() * 100, random.nextDouble() * 2 - 1));
+            }
+            KineticSortedList<Integer> listUnderTest = new KineticSortedList<Integer>(0.0, elements,
+                    new OneDimensionalKDSSolver(), storage, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+
+            for (double time = 1.0; time <= 20.0; time += 1.0) {
+                listUnderTest.advance(time);
+                for (int j = 0; j < 10; j++) {
+                    int index = random.nextInt(elements.size());
+                    OneDimensionalKineticElement<Integer> old = elements.get(index);
+                    //Mostly changes of course, sometimes a jump
+                    double start = j % 5 == 0 ? random.nextDouble() * 100 : old.valueAt(time);
+                    double velocity = random.nextDouble() * 2 - 1;
+                    OneDimensionalKineticElement<Integer> updated =
+                            PolynomialKineticElement.linear(old.element, start - velocity * time, velocity);
+                    assertThat(listUnderTest.updateTrajectory(old, updated)).isTrue();
+                    assertThat(listUnderTest.contains(old)).isFalse();
+                    assertThat(listUnderTest.get(listUnderTest.rank(updated))).isSameAs(updated);
+                    elements.set(index, updated);
+                }
+                assertThat(isOrdered(listUnderTest, time)).isTrue();
+            }
+            assertThat(listUnderTest.size()).isEqualTo(100);
+            assertThat(listUnderTest.updateTrajectory(PolynomialKineticElement.linear(-1, 0, 0), elements.get(0))).isFalse();
+
+            assertThat(listUnderTest.remove((Object) elements.get(0))).isTrue();
+            assertThat(listUnderTest.remove((Object) elements.get(0))).isFalse();
+            assertThat(listUnderTest.size()).isEqualTo(99);
+            listUnderTest.advance(40.0);
+            assertThat(isOrdered(listUnderTest, 40.0)).isTrue();
+        }
+    }
+
+    @Test
+    public void itIsOrderedAsSamplesAreAppendedToTracks() {
+        for (KineticSortedList.Storage storage : KineticSortedList.Storage.values()) {
+            Random random = new Random(11);
+            List<PiecewiseLinearKineticElement<Integer>> tracks = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                tracks.add(new PiecewiseLinearKineticElement<>(i, new double[]{0.0, 1.0},
+                        new double[]{random.nextDouble() * 100, random.nextDouble() * 100}));
+            }
+            KineticSortedList<Integer> listUnderTest = new KineticSortedList<Integer>(0.0, new ArrayList<>(tracks),
+                    new OneDimensionalKDSSolver(), storage, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+
+            //Each sample arrives a second before the track reaches it
+            for (int second = 1; second < 30; second++) {
+                for (PiecewiseLinearKineticElement<Integer> track : tracks) {
+                    track.append(second + 1, random.nextDouble() * 100);
+                }
+                listUnderTest.advance(second + 0.5);
+                assertThat(isOrdered(listUnderTest, second + 0.5)).isTrue();
+            }
+
+            //A sample that arrives after its track has ended is picked up once the element is refreshed
+            listUnderTest.advance(40.0);
+            PiecewiseLinearKineticElement<Integer> late = (PiecewiseLinearKineticElement<Integer>) listUnderTest.get(49);
+            late.append(41.0, 1000.0);
+            assertThat(listUnderTest.updateTrajectory(late, late)).isTrue();
+            listUnderTest.advance(41.0);
+            assertThat(listUnderTest.get(0)).isSameAs(late);
+            assertThat(isOrdered(listUnderTest, 41.0)).isTrue();
+        }
+    }
+
+    @Test
+    public void itSolvesFewerCertificatesForElementsWithRateBounds() {
+        //Neighbours are further apart than their relative speed times the horizon
+        Random random = new Random(5);
+        List<OneDimensionalKineticElement<Integer>> bounded = new ArrayList<>();
+        List<OneDimensionalKineticElement<Integer>> unbounded = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            double offset = random.nextDouble() * 1000;
+            double rate = random.nextDouble() * 2 - 1;
+            bounded.add(OneDimensionalKineticElement.of(i, x -> offset + rate * x, 1.0));
+            unbounded.add(OneDimensionalKineticElement.of(i, x -> offset + rate * x));
+        }
+
+        BracketingNthOrderBrentSolver brentSolver = new BracketingNthOrderBrentSolver(OneDimensionalKDSSolver.DEFAULT_RELATIVE_ACCURACY,
+                OneDimensionalKDSSolver.DEFAULT_ABSOLUTE_ACCURACY, OneDimensionalKDSSolver.DEFAULT_MAXIMAL_ORDER);
+        InMemoryKineticMetrics boundedMetrics = new InMemoryKineticMetrics();
+        InMemoryKineticMetrics unboundedMetrics = new InMemoryKineticMetrics();
+        KineticSortedList<Integer> boundedList = new KineticSortedList<Integer>(0.0, bounded,
+                new OneDimensionalKDSSolver(brentSolver, boundedMetrics, null, 10.0), KineticSortedList.Storage.ARRAY, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+        KineticSortedList<Integer> unboundedList = new KineticSortedList<Integer>(0.0, unbounded,
+                new OneDimensionalKDSSolver(brentSolver, unboundedMetrics, null, 10.0), KineticSortedList.Storage.ARRAY, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+
+        for (double time = 5.0; time <= 50.0; time += 5.0) {
+            boundedList.advance(time);
+            unboundedList.advance(time);
+            assertThat(isOrdered(boundedList, time)).isTrue();
+            for (int i = 0; i < boundedList.size(); i++) {
+                assertThat(boundedList.get(i).element).isEqualTo(unboundedList.get(i).element);
+            }
+        }
+        assertThat(boundedMetrics.solverEvaluations().sum()).isLessThan(unboundedMetrics.solverEvaluations().sum());
+    }
+
+    @Test
+    public void itEvaluatesLessWithARootCacheForOscillatingElements() {
+        List<OneDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+        AtomicLong evaluations = new AtomicLong();
+        Random random = new Random(5);
+        for (int i = 0; i < 10; i++) {
+            double offset = random.nextDouble() * 20;
+            double amplitude = 1 + random.nextDouble() * 5;
+            double frequency = 0.2 + random.nextDouble() * 0.3;
+            elements.add(OneDimensionalKineticElement.of(i, x -> {
+                evaluations.incrementAndGet();
+                return offset + amplitude * Math.sin(frequency * x);
+            }));
+        }
+
+        long[] evaluationsPerRun = new long[2];
+        int[] rootCacheSizes = {0, 100};
+        for (int run = 0; run < 2; run++) {
+            evaluations.set(0);
+            OneDimensionalKDSSolver solver = new OneDimensionalKDSSolver(new BracketingNthOrderBrentSolver(OneDimensionalKDSSolver.DEFAULT_RELATIVE_ACCURACY,
+                    OneDimensionalKDSSolver.DEFAULT_ABSOLUTE_ACCURACY, OneDimensionalKDSSolver.DEFAULT_MAXIMAL_ORDER),
+                    KineticMetrics.NO_OP, null, OneDimensionalKDSSolver.DEFAULT_HORIZON, rootCacheSizes[run]);
+            KineticSortedList<Integer> listUnderTest = new KineticSortedList<Integer>(0.0, elements,
+                    solver, KineticSortedList.Storage.ARRAY, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+            for (double time = 1.0; time <= 100.0; time += 1.0) {
+                listUnderTest.advance(time);
+                if (rootCacheSizes[run] > 0) {
+                    assertThat(isOrdered(listUnderTest, time)).isTrue();
+                }
+            }
+            evaluationsPerRun[run] = evaluations.get();
+        }
+        assertThat(evaluationsPerRun[1]).isLessThan(evaluationsPerRun[0]);
+    }
+
+    @Test
+    public void itEvaluatesEachElementOnceAtTheCurrentTime() {
+        AtomicLong evaluations = new AtomicLong();
+        Random random = new Random(13);
+        List<OneDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            double offset = random.nextDouble() * 100;
+            //Parallel, so their certificates are settled by the rate bounds without solving
+            elements.add(OneDimensionalKineticElement.of(i, x -> {
+                evaluations.incrementAndGet();
+                return offset - x;
+            }, -1.0, -1.0));
+        }
+        KineticSortedList<Integer> listUnderTest = new KineticSortedList<Integer>(0.0);
+
+        //Sorting extracts one key per element rather than evaluating both sides of every comparison
+        List<OneDimensionalKineticElement<Integer>> ordered = listUnderTest.getTotalOrdering(elements, 0.0);
+        assertThat(evaluations.get()).isEqualTo(1000);
+        assertThat(isOrdered(ordered, 0.0)).isTrue();
+        evaluations.set(0);
+
+        //Elements already read at this time are not evaluated again by inserts, searches or reads
+        listUnderTest.addAll(ordered.subList(0, 999));
+        listUnderTest.add(ordered.get(999));
+        listUnderTest.countInRange(20.0, 80.0);
+        double highest = listUnderTest.valueAt(0);
+        assertThat(evaluations.get()).isEqualTo(0);
+        assertThat(highest).isEqualTo(ordered.get(0).valueAt(0.0));
+
+        //Until time advances
+        listUnderTest.advance(1.0);
+        assertThat(listUnderTest.valueAt(0)).isEqualTo(highest - 1.0);
+    }
+
+    @Test
+    public void itCachesValuesForTwoListsAtDifferentTimes() {
+        AtomicLong evaluations = new AtomicLong();
+        OneDimensionalKineticElement<String> a = OneDimensionalKineticElement.of("A", x -> {
+            evaluations.incrementAndGet();
+            return 10 - x;
+        }, -1.0, -1.0);
+        KineticSortedList<String> earlier = new KineticSortedList<String>(0.0, Collections.singletonList(a));
+        KineticSortedList<String> later = new KineticSortedList<String>(0.0, Collections.singletonList(a));
+        later.advance(1.0);
+        earlier.valueAt(0);
+        later.valueAt(0);
+        evaluations.set(0);
+
+        //The element is shared, but reading it at one time does not drop its value at the other
+        for (int i = 0; i < 3; i++) {
+            assertThat(earlier.valueAt(0)).isEqualTo(10.0);
+            assertThat(later.valueAt(0)).isEqualTo(9.0);
+        }
+        assertThat(evaluations.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void itDoesNotCacheTheRootsOfATrack() {
+        OneDimensionalKDSSolver solver = new OneDimensionalKDSSolver(new BracketingNthOrderBrentSolver(OneDimensionalKDSSolver.DEFAULT_RELATIVE_ACCURACY,
+                OneDimensionalKDSSolver.DEFAULT_ABSOLUTE_ACCURACY, OneDimensionalKDSSolver.DEFAULT_MAXIMAL_ORDER),
+                KineticMetrics.NO_OP, null, OneDimensionalKDSSolver.DEFAULT_HORIZON, 100);
+        PiecewiseLinearKineticElement<String> track = new PiecewiseLinearKineticElement<>("A", new double[]{0, 0.25}, new double[]{0, 0});
+        OneDimensionalKineticElement<String> constant = OneDimensionalKineticElement.of("B", x -> 5.0);
+        KineticSortedList<String> listUnderTest = new KineticSortedList<String>(0.0, Arrays.asList(track, constant),
+                solver, KineticSortedList.Storage.ARRAY, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+
+        //Appended after time has passed the end of the track, so the certificate is re-solved with the track itself
+        listUnderTest.advance(0.5);
+        track.append(2, 10);
+        assertThat(listUnderTest.updateTrajectory(track, track)).isTrue();
+        listUnderTest.advance(3.0);
+
+        assertThat(listUnderTest.get(0).element).isEqualTo("A");
+    }
+
+    @Test
+    public void itSeesSamplesAppendedToATrackNextToAFunction() {
+        for (KineticSortedList.AdvanceMode advanceMode : KineticSortedList.AdvanceMode.values()) {
+            PiecewiseLinearKineticElement<String> track = new PiecewiseLinearKineticElement<>("A", new double[]{0, 1}, new double[]{0, 0});
+            OneDimensionalKineticElement<String> constant = OneDimensionalKineticElement.of("B", x -> 5.0);
+            KineticSortedList<String> listUnderTest = new KineticSortedList<String>(0.0, Arrays.asList(track, constant),
+                    new OneDimensionalKDSSolver(), KineticSortedList.Storage.ARRAY, advanceMode);
+
+            listUnderTest.advance(0.5);
+            track.append(2, 10);
+            listUnderTest.advance(3.0);
+            assertThat(listUnderTest.get(0).element).isEqualTo("A");
+        }
+    }
+
+    private static boolean isOrdered(List<OneDimensionalKineticElement<Integer>> list, double time) {
+        for (int i = 0; i < list.size() - 1; i++) {
+            if (list.get(i).valueAt(time) < list.get(i + 1).valueAt(time)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,97 @@
+package com.github.frankfarrell.kds4j;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class KineticTopKTest {
+
+    @Test
+    public void itKeepsTheTopK() {
+        KineticTopK<String> topUnderTest = new KineticTopK<>(2, 0.0);
+
+        topUnderTest.add(PolynomialKineticElement.linear("A", 8, -1));
+        topUnderTest.add(PolynomialKineticElement.linear("B", 5, 0.5));
+        topUnderTest.add(PolynomialKineticElement.linear("C", 0, 1));
+        assertThat(elements(topUnderTest)).isEqualTo(Arrays.asList("A", "B"));
+        assertThat(topUnderTest.size()).isEqualTo(3);
+
+        List<KineticEvent<String>> events = new ArrayList<>();
+        topUnderTest.addListener(events::addAll);
+
+        //B overtakes A at 2, C overtakes A at 4
+        assertThat(topUnderTest.advance(5.0)).isTrue();
+        assertThat(elements(topUnderTest)).isEqualTo(Arrays.asList("B", "C"));
+        assertThat(events.size()).isEqualTo(2);
+        assertThat(events.get(1).left).isEqualTo("C");
+        assertThat(events.get(1).right).isEqualTo("A");
+
+        //C overtakes B at 10
+        assertThat(topUnderTest.advance(11.0)).isTrue();
+        assertThat(elements(topUnderTest)).isEqualTo(Arrays.asList("C", "B"));
+    }
+
+    @Test
+    public void itReplacesRemovedElementsWithTheBestOutsider() {
+        OneDimensionalKineticElement<String> a = PolynomialKineticElement.linear("A", 8, -1);
+        KineticTopK<String> topUnderTest = new KineticTopK<>(2, 0.0, Arrays.asList(a,
+                PolynomialKineticElement.linear("B", 5, 0.5),
+                PolynomialKineticElement.linear("C", 0, 1)));
+
+        assertThat(topUnderTest.remove(a)).isTrue();
+        assertThat(topUnderTest.remove(a)).isFalse();
+        assertThat(elements(topUnderTest)).isEqualTo(Arrays.asList("B", "C"));
+    }
+
+    @Test
+    public void itDoesNotAddAnElementTwice() {
+        OneDimensionalKineticElement<String> a = PolynomialKineticElement.linear("A", 8, -1);
+        OneDimensionalKineticElement<String> c = PolynomialKineticElement.linear("C", 0, 1);
+        KineticTopK<String> topUnderTest = new KineticTopK<>(2, 0.0, Arrays.asList(a,
+                PolynomialKineticElement.linear("B", 5, 0.5), c));
+
+        //Once in the top k and once outside it
+        assertThat(topUnderTest.add(a)).isFalse();
+        assertThat(topUnderTest.add(c)).isFalse();
+        assertThat(topUnderTest.size()).isEqualTo(3);
+
+        assertThat(topUnderTest.remove(a)).isTrue();
+        assertThat(topUnderTest.contains(a)).isFalse();
+        assertThat(elements(topUnderTest)).isEqualTo(Arrays.asList("B", "C"));
+    }
+
+    @Test
+    public void itMatchesTheHeadOfAKineticSortedList() {
+        Random random = new Random(17);
+        List<OneDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            elements.add(PolynomialKineticElement.linear(i, random.nextDouble() * 300, random.nextDouble() * 20 - 10));
+        }
+        KineticTopK<Integer> topUnderTest = new KineticTopK<>(10, 0.0, elements);
+        KineticSortedList<Integer> allElements = new KineticSortedList<>(0.0, elements, new OneDimensionalKDSSolver(),
+                KineticSortedList.Storage.ARRAY, KineticSortedList.AdvanceMode.EVENT_DRIVEN);
+
+        for (int step = 1; step <= 40; step++) {
+            if (step % 10 == 0) {
+                OneDimensionalKineticElement<Integer> removed = allElements.remove(random.nextInt(20));
+                assertThat(topUnderTest.remove(removed)).isTrue();
+            }
+            topUnderTest.advance(step * 0.5);
+            allElements.advance(step * 0.5);
+            for (int rank = 0; rank < 10; rank++) {
+                assertThat(topUnderTest.get(rank)).isSameAs(allElements.get(rank));
+            }
+        }
+    }
+
+    private static <E> List<E> elements(final KineticTopK<E> topK) {
+        List<E> elements = new ArrayList<>();
+        topK.forEach(element -> elements.add(element.element));
+        return elements;
+    }
+}
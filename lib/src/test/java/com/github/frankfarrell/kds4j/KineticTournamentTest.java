@@ -0,0 +1,75 @@
+package com.github.frankfarrell.kds4j;
+
+import org.apache.commons.math3.analysis.solvers.BracketingNthOrderBrentSolver;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class KineticTournamentTest {
+
+    @Test
+    public void itHasTheCorrectMinimumAsTimeAdvances() {
+        KineticTournament<String> tournamentUnderTest = new KineticTournament<>(0.0, KineticTournament.Order.MINIMUM);
+
+        tournamentUnderTest.add(new OneDimensionalKineticElement<>("A", x -> 8 - x));
+        tournamentUnderTest.add(new OneDimensionalKineticElement<>("B", x -> x / 2 + 5));
+        tournamentUnderTest.add(new OneDimensionalKineticElement<>("C", x -> (x * x) / 2 - 4 * x));
+
+        assertThat(tournamentUnderTest.peek().element).isEqualTo("C");
+
+        assertThat(tournamentUnderTest.advance(9.0)).isTrue();
+        assertThat(tournamentUnderTest.peek().element).isEqualTo("A");
+
+        assertThat(tournamentUnderTest.poll().element).isEqualTo("A");
+        assertThat(tournamentUnderTest.peek().element).isEqualTo("C");
+    }
+
+    @Test
+    public void itRechecksCertificatesAtTheHorizon() {
+        OneDimensionalKDSSolver solver = new OneDimensionalKDSSolver(
+                new BracketingNthOrderBrentSolver(1.0e-12, 1.0e-8, 5), KineticMetrics.NO_OP, null, 10.0);
+        KineticTournament<String> tournamentUnderTest = new KineticTournament<>(0.0, KineticTournament.Order.MINIMUM,
+                Arrays.asList(OneDimensionalKineticElement.of("A", x -> x - 100), OneDimensionalKineticElement.of("B", x -> 0.0)),
+                solver);
+
+        assertThat(tournamentUnderTest.advance(95.0)).isFalse();
+        assertThat(tournamentUnderTest.peek().element).isEqualTo("A");
+        assertThat(tournamentUnderTest.advance(105.0)).isTrue();
+        assertThat(tournamentUnderTest.peek().element).isEqualTo("B");
+    }
+
+    @Test
+    public void itMatchesTheMaximumOfRandomLinearElements() {
+        Random random = new Random(42);
+        KineticTournament<Integer> tournamentUnderTest = new KineticTournament<>(0.0, KineticTournament.Order.MAXIMUM);
+        List<OneDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            OneDimensionalKineticElement<Integer> element =
+                    PolynomialKineticElement.linear(i, random.nextDouble() * 100, random.nextDouble() * 10 - 5);
+            elements.add(element);
+            tournamentUnderTest.add(element);
+        }
+
+        for (double time = 0.5; time < 50; time += 0.5) {
+            tournamentUnderTest.advance(time);
+
+            if (random.nextInt(4) == 0) {
+                OneDimensionalKineticElement<Integer> removed = elements.remove(random.nextInt(elements.size()));
+                assertThat(tournamentUnderTest.remove(removed)).isTrue();
+            }
+
+            final double now = time;
+            OneDimensionalKineticElement<Integer> expected = elements.stream()
+                    .max((x, y) -> Double.compare(x.valueAt(now), y.valueAt(now)))
+                    .get();
+            assertThat(tournamentUnderTest.peek().element).isEqualTo(expected.element);
+            assertThat(tournamentUnderTest.size()).isEqualTo(elements.size());
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.github.frankfarrell.kds4j;
 
+import org.apache.commons.math3.analysis.solvers.BracketingNthOrderBrentSolver;
 import org.assertj.core.data.Percentage;
 import org.junit.Test;
 
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -59,6 +61,23 @@ public class OneDimensionalKDSSolverTest {
 
     }
 
+    @Test
+    public void itOnlyExpiresCertificatesWhenTheFirstElementFallsBehind() {
+        OneDimensionalKDSSolver solverUnderTest = new OneDimensionalKDSSolver();
+        OneDimensionalKineticElement<String> rising = OneDimensionalKineticElement.of("A", x -> Math.sin(x));
+        OneDimensionalKineticElement<String> falling = OneDimensionalKineticElement.of("B", x -> -Math.sin(x));
+
+        //Rising has just overtaken falling at 0, so a certificate created then does not fail on the same root
+        assertThat(solverUnderTest.calculateIntersection(rising, falling, 0.0).get()).isCloseTo(Math.PI, Percentage.withPercentage(0.001));
+
+        //Falling is already behind
+        assertThat(solverUnderTest.calculateIntersection(falling, rising, 1.0).get()).isEqualTo(1.0);
+
+        //The crossing is taken once rising has fallen behind
+        double crossing = solverUnderTest.calculateIntersection(rising, falling, 1.0).get();
+        assertThat(rising.valueAt(crossing)).isLessThanOrEqualTo(falling.valueAt(crossing));
+    }
+
     @Test
     public void itCorrectlyCalculatesIntersectionForCubicFunctions() {
         OneDimensionalKDSSolver solverUnderTest = new OneDimensionalKDSSolver();
@@ -92,4 +111,169 @@ public class OneDimensionalKDSSolverTest {
         assertThat(value).isEmpty();
     }
 
+    @Test
+    public void itCalculatesExactIntersectionForPolynomialElements() {
+        OneDimensionalKDSSolver solverUnderTest = new OneDimensionalKDSSolver();
+
+        PolynomialKineticElement<String> linearA = new PolynomialKineticElement<>("A", 8, -1);
+        PolynomialKineticElement<String> linearB = PolynomialKineticElement.linear("B", 5, 0.5);
+        PolynomialKineticElement<String> quadraticC = new PolynomialKineticElement<>("C", 0, -4, 0.5);
+
+        assertThat(solverUnderTest.calculateIntersection(linearA, linearB, 0.0).get()).isCloseTo(2.0, Percentage.withPercentage(1e-10));
+        //After they cross B has priority over A forever
+        assertThat(solverUnderTest.calculateIntersection(linearB, linearA, 100.0)).isEmpty();
+
+        assertThat(solverUnderTest.calculateIntersection(linearA, quadraticC, 0.0).get()).isCloseTo(8.0, Percentage.withPercentage(1e-10));
+        assertThat(solverUnderTest.calculateIntersection(linearB, quadraticC, 0.0).get()).isCloseTo(4.5 + Math.sqrt(30.25), Percentage.withPercentage(1e-10));
+    }
+
+    @Test
+    public void itReturnsEmptyForPolynomialElementsThatNeverCross() {
+        OneDimensionalKDSSolver solverUnderTest = new OneDimensionalKDSSolver();
+
+        //Parallel lines never cross, no matter how far ahead we look
+        assertThat(solverUnderTest.calculateIntersection(
+                new PolynomialKineticElement<>("A", 3, 1),
+                new PolynomialKineticElement<>("B", 0, 1), 1.0e12)).isEmpty();
+
+        //They meet at 2.5 but do not intersect
+        assertThat(solverUnderTest.calculateIntersection(
+                new PolynomialKineticElement<>("A", 2, -5, 1),
+                new PolynomialKineticElement<>("B", -10.5, 5, -1), 1.0)).isEmpty();
+    }
+
+    @Test
+    public void itCalculatesIntersectionForCubicPolynomialElements() {
+        OneDimensionalKDSSolver solverUnderTest = new OneDimensionalKDSSolver();
+
+        //(t - 1)(t - 2)(t - 3) = t^3 - 6t^2 + 11t - 6 against zero
+        PolynomialKineticElement<String> cubic = new PolynomialKineticElement<>("A", -6, 11, -6, 1);
+        PolynomialKineticElement<String> zero = new PolynomialKineticElement<>("B", 0);
+
+        assertThat(solverUnderTest.calculateIntersection(zero, cubic, 0.0).get()).isCloseTo(1.0, Percentage.withPercentage(1e-10));
+        assertThat(solverUnderTest.calculateIntersection(cubic, zero, 1.5).get()).isCloseTo(2.0, Percentage.withPercentage(1e-10));
+        assertThat(solverUnderTest.calculateIntersection(zero, cubic, 2.5).get()).isCloseTo(3.0, Percentage.withPercentage(1e-10));
+        assertThat(solverUnderTest.calculateIntersection(cubic, zero, 3.5)).isEmpty();
+    }
+
+    @Test
+    public void itCalculatesExactIntersectionForPiecewiseLinearElements() {
+        OneDimensionalKDSSolver solverUnderTest = new OneDimensionalKDSSolver();
+
+        //A dips below B between two of its samples and comes back, which bracketing over whole windows can miss
+        PiecewiseLinearKineticElement<String> trackA = new PiecewiseLinearKineticElement<>("A",
+                new double[]{0, 10, 11, 12, 20}, new double[]{5, 5, 1, 5, 5});
+        PiecewiseLinearKineticElement<String> trackB = new PiecewiseLinearKineticElement<>("B",
+                new double[]{0, 20}, new double[]{3, 3});
+
+        assertThat(solverUnderTest.calculateIntersection(trackA, trackB, 0.0).get()).isCloseTo(10.5, Percentage.withPercentage(1e-10));
+        assertThat(solverUnderTest.calculateIntersection(trackB, trackA, 10.75).get()).isCloseTo(11.5, Percentage.withPercentage(1e-10));
+        //Nothing is known after the tracks end, so the certificate is solved again there
+        assertThat(solverUnderTest.calculateIntersection(trackA, trackB, 12.0)).isEmpty();
+        assertThat(solverUnderTest.recheckTime(trackA, trackB, 12.0)).isEqualTo(20.0);
+
+        //A line is a single segment, C reaches A as A starts to fall
+        PolynomialKineticElement<String> line = PolynomialKineticElement.linear("C", 0, 0.5);
+        assertThat(solverUnderTest.calculateIntersection(trackA, line, 0.0).get()).isCloseTo(10.0, Percentage.withPercentage(1e-10));
+
+        //B rises after A's track ends, they are re-solved from there
+        trackB.append(30, 10);
+        assertThat(solverUnderTest.calculateIntersection(trackA, trackB, 12.0)).isEmpty();
+        assertThat(solverUnderTest.recheckTime(trackA, trackB, 12.0)).isEqualTo(20.0);
+        assertThat(solverUnderTest.calculateIntersection(trackA, trackB, 20.0).get()).isCloseTo(20.0 + 2 / 0.7, Percentage.withPercentage(1e-10));
+
+        //With a function or a higher degree polynomial, the crossing is also only searched for up to the end of the track
+        OneDimensionalKineticElement<String> rising = OneDimensionalKineticElement.of("D", x -> x);
+        assertThat(solverUnderTest.calculateIntersection(trackB, rising, 0.0).get()).isCloseTo(3.0, Percentage.withPercentage(1e-6));
+        //B holds 10 from 30, and this would pass it at 34
+        OneDimensionalKineticElement<String> slower = OneDimensionalKineticElement.of("D", x -> 0.5 * x - 7);
+        assertThat(solverUnderTest.calculateIntersection(trackB, slower, 25.0)).isEmpty();
+        assertThat(solverUnderTest.recheckTime(trackB, slower, 25.0)).isEqualTo(30.0);
+        assertThat(solverUnderTest.recheckTime(trackB, new PolynomialKineticElement<>("E", 0, 0, 1), 25.0)).isEqualTo(30.0);
+    }
+
+    @Test
+    public void itCalculatesExactIntersectionOfATrackAndAPolynomial() {
+        OneDimensionalKDSSolver solverUnderTest = new OneDimensionalKDSSolver();
+
+        PiecewiseLinearKineticElement<String> track = new PiecewiseLinearKineticElement<>("A",
+                new double[]{0, 4, 8}, new double[]{0, 4, 4});
+        //4.01 - (t - 6)^2, above the track only between 5.9 and 6.1, after its kink at 4
+        PolynomialKineticElement<String> quadratic = new PolynomialKineticElement<>("B", -31.99, 12, -1);
+
+        assertThat(solverUnderTest.calculateIntersection(track, quadratic, 0.0).get()).isCloseTo(5.9, Percentage.withPercentage(1e-10));
+        assertThat(solverUnderTest.calculateIntersection(quadratic, track, 6.0).get()).isCloseTo(6.1, Percentage.withPercentage(1e-10));
+        //Nothing is known after the track ends, so the certificate is solved again there
+        assertThat(solverUnderTest.calculateIntersection(track, quadratic, 6.5)).isEmpty();
+        assertThat(solverUnderTest.recheckTime(track, quadratic, 6.5)).isEqualTo(8.0);
+    }
+
+    @Test
+    public void itSkipsTheSolverForPairsThatCannotMeetYet() {
+        OneDimensionalKDSSolver solverUnderTest = new OneDimensionalKDSSolver();
+        AtomicInteger evaluations = new AtomicInteger();
+
+        //At most 1 apart in rate, and 100 apart at time 0
+        OneDimensionalKineticElement<String> a = OneDimensionalKineticElement.of("A", x -> {
+            evaluations.incrementAndGet();
+            return 100 + 0.5 * Math.sin(x);
+        }, 0.5);
+        OneDimensionalKineticElement<String> b = OneDimensionalKineticElement.of("B", x -> {
+            evaluations.incrementAndGet();
+            return 0.5 * Math.cos(x);
+        }, 0.5);
+
+        Certificate<String> certificate = solverUnderTest.getCertificate("A", "B", a, b, 0.0);
+        assertThat(certificate.recheck).isTrue();
+        assertThat(certificate.expiryTime.get()).isCloseTo(99.5, Percentage.withPercentage(1e-10));
+        assertThat(evaluations.get()).isEqualTo(2);
+
+        //Rates that can never close the gap
+        Certificate<String> forever = solverUnderTest.getCertificate("A", "C", a,
+                OneDimensionalKineticElement.of("C", x -> -x, -2.0, -1.0), 0.0);
+        assertThat(forever.expiryTime).isEmpty();
+
+        //Too close to rule anything out, so the crossing is solved for
+        OneDimensionalKineticElement<String> c = OneDimensionalKineticElement.of("C", x -> 0.5 - x, 1.0);
+        OneDimensionalKineticElement<String> d = OneDimensionalKineticElement.of("D", x -> 0.0, 0.0);
+        Certificate<String> crossing = solverUnderTest.getCertificate("C", "D", c, d, 0.0);
+        assertThat(crossing.recheck).isFalse();
+        assertThat(crossing.expiryTime.get()).isCloseTo(0.5, Percentage.withPercentage(1e-6));
+    }
+
+    @Test
+    public void itLooksUpRootsOfPairsItHasSolvedBefore() {
+        OneDimensionalKDSSolver solverUnderTest = new OneDimensionalKDSSolver(
+                new BracketingNthOrderBrentSolver(OneDimensionalKDSSolver.DEFAULT_RELATIVE_ACCURACY,
+                        OneDimensionalKDSSolver.DEFAULT_ABSOLUTE_ACCURACY, OneDimensionalKDSSolver.DEFAULT_MAXIMAL_ORDER),
+                KineticMetrics.NO_OP, null, OneDimensionalKDSSolver.DEFAULT_HORIZON, 16);
+        AtomicInteger evaluations = new AtomicInteger();
+
+        //They cross at every multiple of pi
+        OneDimensionalKineticElement<String> a = OneDimensionalKineticElement.of("A", x -> {
+            evaluations.incrementAndGet();
+            return Math.sin(x);
+        });
+        OneDimensionalKineticElement<String> b = OneDimensionalKineticElement.of("B", x -> 0.0);
+
+        Certificate<String> first = solverUnderTest.getCertificate("A", "B", a, b, 0.5);
+        assertThat(first.expiryTime.get()).isCloseTo(Math.PI, Percentage.withPercentage(1e-6));
+        int scanned = evaluations.get();
+
+        //The same pair, swapped and later on, comes from the cache
+        Certificate<String> second = solverUnderTest.getCertificate("B", "A", b, a, first.expiryTime.get());
+        assertThat(second.expiryTime.get()).isCloseTo(2 * Math.PI, Percentage.withPercentage(1e-6));
+        Certificate<String> third = solverUnderTest.getCertificate("A", "B", a, b, second.expiryTime.get());
+        assertThat(third.expiryTime.get()).isCloseTo(3 * Math.PI, Percentage.withPercentage(1e-6));
+        assertThat(evaluations.get()).isEqualTo(scanned);
+
+        //Already crossed
+        assertThat(solverUnderTest.getCertificate("B", "A", b, a, 1.0).expiryTime.get()).isEqualTo(1.0);
+
+        //No crossing in the window that was scanned, so it is scanned again from its end
+        Certificate<String> beyond = solverUnderTest.getCertificate("A", "B", a,
+                OneDimensionalKineticElement.of("C", x -> -2.0), 0.0);
+        assertThat(beyond.recheck).isTrue();
+        assertThat(beyond.expiryTime.get()).isCloseTo(OneDimensionalKDSSolver.ROOT_CACHE_WINDOW, Percentage.withPercentage(1e-6));
+    }
 }
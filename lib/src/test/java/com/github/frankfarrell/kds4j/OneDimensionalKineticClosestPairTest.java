@@ -0,0 +1,86 @@
+package com.github.frankfarrell.kds4j;
+
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class OneDimensionalKineticClosestPairTest {
+
+    @Test
+    public void itHasTheCorrectClosestPair() {
+        OneDimensionalKineticElement<String> a = PolynomialKineticElement.linear("A", 0.0, 0.0);
+        OneDimensionalKineticElement<String> b = PolynomialKineticElement.linear("B", 3.0, 0.0);
+        OneDimensionalKineticElement<String> c = OneDimensionalKineticElement.of("C", t -> 10.0 - 2 * t);
+        OneDimensionalKineticClosestPair<String> closestPairUnderTest = new OneDimensionalKineticClosestPair<>(0.0, Arrays.asList(a, b, c));
+
+        assertThat(closestPairUnderTest.getClosestPair()).isEqualTo(new KineticPair<>(a, b));
+        assertThat(closestPairUnderTest.getDistance()).isCloseTo(3.0, Offset.offset(0.0001));
+
+        List<KineticEvent<String>> events = new ArrayList<>();
+        closestPairUnderTest.addListener(events::addAll);
+
+        //C is within 3 of B from t = 2, passes it at t = 3.5 and is closer to A than to B from t = 4.25
+        assertThat(closestPairUnderTest.advance(1.5)).isFalse();
+        assertThat(closestPairUnderTest.advance(3.0)).isTrue();
+        assertThat(closestPairUnderTest.getClosestPair()).isEqualTo(new KineticPair<>(b, c));
+        assertThat(closestPairUnderTest.getDistance()).isCloseTo(1.0, Offset.offset(0.0001));
+        assertThat(closestPairUnderTest.advance(4.0)).isFalse();
+        assertThat(closestPairUnderTest.getClosestPair()).isEqualTo(new KineticPair<>(b, c));
+        assertThat(closestPairUnderTest.advance(4.5)).isTrue();
+        assertThat(closestPairUnderTest.getClosestPair()).isEqualTo(new KineticPair<>(a, c));
+        assertThat(closestPairUnderTest.getDistance()).isCloseTo(1.0, Offset.offset(0.0001));
+
+        assertThat(events.size()).isEqualTo(2);
+        assertThat(events.get(0).type).isEqualTo(KineticEvent.Type.CLOSEST_PAIR_CHANGED);
+        assertThat(new KineticPair<>(events.get(1).left, events.get(1).right)).isEqualTo(new KineticPair<>("A", "C"));
+    }
+
+    @Test
+    public void itMatchesAClosestPairComputedFromScratch() {
+        Random random = new Random(37);
+        List<OneDimensionalKineticElement<Integer>> elements = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            final double start = random.nextDouble() * 100;
+            final double rate = random.nextDouble() * 10 - 5;
+            //Half polynomial, half only known as a function
+            elements.add(i % 2 == 0
+                    ? PolynomialKineticElement.linear(i, start, rate)
+                    : OneDimensionalKineticElement.of(i, t -> start + rate * t));
+        }
+        OneDimensionalKineticClosestPair<Integer> closestPairUnderTest = new OneDimensionalKineticClosestPair<>(0.0, elements.subList(0, 70));
+        for (int i = 70; i < 80; i++) {
+            closestPairUnderTest.add(elements.get(i));
+        }
+
+        for (int step = 1; step <= 60; step++) {
+            final double time = step * 0.5;
+            if (step % 15 == 0) {
+                OneDimensionalKineticElement<Integer> closest = closestPairUnderTest.getClosestPair().first;
+                assertThat(closestPairUnderTest.remove(closest)).isTrue();
+                elements.remove(closest);
+                assertThat(closestPairUnderTest.remove(elements.remove(step / 2))).isTrue();
+            }
+            closestPairUnderTest.advance(time);
+            KineticPair<OneDimensionalKineticElement<Integer>> closest = closestPairUnderTest.getClosestPair();
+            assertThat(closestPairUnderTest.getDistance()).isCloseTo(distanceFromScratch(elements, time), Offset.offset(0.0001));
+            assertThat(Math.abs(closest.first.valueAt(time) - closest.second.valueAt(time)))
+                    .isCloseTo(closestPairUnderTest.getDistance(), Offset.offset(0.0001));
+        }
+    }
+
+    private static double distanceFromScratch(final List<OneDimensionalKineticElement<Integer>> elements, final double t) {
+        double closest = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < elements.size(); i++) {
+            for (int j = i + 1; j < elements.size(); j++) {
+                closest = Math.min(closest, Math.abs(elements.get(i).valueAt(t) - elements.get(j).valueAt(t)));
+            }
+        }
+        return closest;
+    }
+}